@@ -0,0 +1,71 @@
+package com.eti.qualaboa.estabelecimento.index;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência do autocomplete com 100 mil nomes e prefixos de 1 a 4 letras, que são os que mais
+ * casam; SampleTime para o JMH mostrar p50/p99. Roda em memória, sem banco, com
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="NomePrefixIndex"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NomePrefixIndexBenchmark {
+
+    private static final int NOMES = 100_000;
+    private static final int CONSULTAS = 20_000;
+    private static final String[] TIPOS = {"Bar", "Boteco", "Restaurante", "Pizzaria", "Lanchonete", "Cervejaria", "Café"};
+    private static final String[] PALAVRAS = {"do", "da", "Zé", "Maria", "Central", "Estrela", "Sol", "Bom", "Gosto",
+            "Esquina", "Praça", "Tio", "Vila", "Ponto", "Chopp", "Amigos", "Recanto", "Sabor", "Paraná", "Londrina"};
+
+    private NomePrefixIndex index;
+    private String[] prefixos;
+    private int proximo;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new NomePrefixIndex(null);
+        for (long id = 1; id <= NOMES; id++) {
+            index.indexar(id, nome(random), random.nextBoolean());
+        }
+        prefixos = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            String nome = nome(random);
+            prefixos[i] = nome.substring(0, 1 + random.nextInt(Math.min(4, nome.length())));
+        }
+    }
+
+    @Benchmark
+    public List<EstabelecimentoSugestaoDTO> buscar() {
+        String prefixo = prefixos[proximo];
+        proximo = (proximo + 1) % CONSULTAS;
+        return index.buscar(prefixo, 10);
+    }
+
+    private static String nome(Random random) {
+        StringBuilder sb = new StringBuilder(TIPOS[random.nextInt(TIPOS.length)]);
+        int palavras = 1 + random.nextInt(3);
+        for (int i = 0; i < palavras; i++) {
+            sb.append(' ').append(PALAVRAS[random.nextInt(PALAVRAS.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.eti.qualaboa.texto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.Normalizer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por nome da normalização contra a versão com Normalizer + regex, em nomes com acento e
+ * em nomes já normalizados. Com -prof gc o JMH mostra também quanto cada caminho aloca:
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="NormalizadorTexto -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizadorTextoBenchmark {
+
+    private static final int NOMES = 10_000;
+    private static final String[] PALAVRAS = {"Bar", "do", "Zé", "Café", "Açaí", "Pão", "de", "Queijo", "Estação",
+            "Choperia", "São", "João", "Paraná", "Londrina", "Cantô", "Música", "ao", "vivo", "Ponto", "Recanto"};
+
+    private String[] nomes;
+    private String[] normalizados;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        nomes = new String[NOMES];
+        normalizados = new String[NOMES];
+        for (int i = 0; i < NOMES; i++) {
+            StringBuilder sb = new StringBuilder(PALAVRAS[random.nextInt(PALAVRAS.length)]);
+            for (int p = random.nextInt(3); p >= 0; p--) {
+                sb.append(' ').append(PALAVRAS[random.nextInt(PALAVRAS.length)]);
+            }
+            nomes[i] = sb.toString();
+            normalizados[i] = NormalizadorTexto.normalizarNome(nomes[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOMES)
+    public void antigo(Blackhole bh) {
+        for (String nome : nomes) {
+            bh.consume(nomeAntigo(nome));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOMES)
+    public void tabela(Blackhole bh) {
+        for (String nome : nomes) {
+            bh.consume(NormalizadorTexto.normalizarNome(nome));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOMES)
+    public void tabelaJaNormalizado(Blackhole bh) {
+        for (String nome : normalizados) {
+            bh.consume(NormalizadorTexto.normalizarNome(nome));
+        }
+    }
+
+    private static String nomeAntigo(String nome) {
+        String nomeSemAcento = Normalizer.normalize(nome, Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        return nomeSemAcento.toUpperCase().trim();
+    }
+}
@@ -1,21 +1,82 @@
 package com.eti.qualaboa.config;
 
+import com.eti.qualaboa.map.cache.DiskCacheStore;
+import com.eti.qualaboa.map.cache.PesoJson;
+import com.eti.qualaboa.map.cache.TieredCache;
+import com.eti.qualaboa.map.cache.TieredCaffeineCacheManager;
+import com.eti.qualaboa.map.tile.PinTile;
+import com.eti.qualaboa.map.tile.TileKey;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.*;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
+@EnableConfigurationProperties(MapProperties.class)
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager manager = new CaffeineCacheManager("places", "placeDetails");
-        manager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(Duration.ofHours(6))
-                .maximumSize(5_000));
+    public CacheManager cacheManager(MapProperties properties) {
+        MapProperties.Cache config = properties.getCache();
+        // ObjectMapper próprio: o formato no disco não deve mudar junto com a configuração do Jackson da API
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Duration> validades = new HashMap<>();
+        config.getSpecs().forEach((nome, spec) -> validades.put(nome,
+                spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : config.getExpireAfterWrite()));
+
+        CaffeineCacheManager manager = config.getDisk().isEnabled()
+                ? new TieredCaffeineCacheManager(discos(config, objectMapper), validades)
+                : new CaffeineCacheManager();
+        // a renovação fica no MapService (stale-while-revalidate); a expiração aqui é só o limite final
+        // recordStats alimenta as métricas cache.gets/cache.evictions do actuator
+        PesoJson peso = new PesoJson(objectMapper);
+        config.getSpecs().forEach((nome, spec) -> manager.registerCustomCache(nome, Caffeine.newBuilder()
+                .expireAfterWrite(validades.get(nome))
+                .maximumWeight(spec.getMaxWeight().toBytes())
+                .weigher(peso)
+                .recordStats()
+                .build()));
+        // só os caches configurados: nome desconhecido devolve null em vez de criar um cache sem limite
+        manager.setCacheNames(List.of());
         return manager;
     }
+
+    private static Map<String, DiskCacheStore> discos(MapProperties.Cache config, ObjectMapper objectMapper) {
+        Map<String, DiskCacheStore> discos = new HashMap<>();
+        config.getSpecs().forEach((nome, spec) -> {
+            if (spec.getType() != null) {
+                discos.put(nome, new DiskCacheStore(
+                        config.getDisk().getDirectory().resolve(nome + ".log"), spec.getType(), objectMapper));
+            }
+        });
+        return discos;
+    }
+
+    // o actuator só conhece CaffeineCache; com o disco ligado as métricas vêm do Caffeine da frente
+    @Bean
+    @SuppressWarnings("unchecked")
+    public CacheMeterBinderProvider<TieredCache> tieredCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(
+                (Cache<Object, Object>) cache.getNativeCache(), cache.getName(), tags);
+    }
+
+    // fora do CacheManager porque precisa de limite por bytes e não por número de entradas
+    @Bean
+    public Cache<TileKey, PinTile> pinTileCache(MapProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumWeight(properties.getTiles().getMaxSize().toBytes())
+                .weigher((TileKey key, PinTile tile) -> tile.bytes())
+                .recordStats()
+                .build();
+    }
 }
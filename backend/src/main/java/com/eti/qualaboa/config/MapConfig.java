@@ -0,0 +1,51 @@
+package com.eti.qualaboa.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableConfigurationProperties(MapProperties.class)
+public class MapConfig {
+
+    // pool limitado só para as chamadas ao Google Places; os parceiros saem do índice na própria thread.
+    // Se lotar, a busca recusa e a resposta vai sem o Google em vez de chamar o Google na thread da requisição
+    @Bean
+    public ThreadPoolTaskExecutor placesExecutor(MapProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getExecutor().getThreads());
+        executor.setMaxPoolSize(properties.getExecutor().getThreads());
+        executor.setQueueCapacity(properties.getExecutor().getQueueCapacity());
+        executor.setThreadNamePrefix("places-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // pool pequeno e limitado para renovar entradas vencidas do cache; se lotar, a renovação é descartada
+    @Bean
+    public ThreadPoolTaskExecutor placesRefreshExecutor(MapProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCache().getRefreshThreads());
+        executor.setMaxPoolSize(properties.getCache().getRefreshThreads());
+        executor.setQueueCapacity(properties.getCache().getRefreshQueueCapacity());
+        executor.setThreadNamePrefix("places-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    // só vence o debounce do autocomplete: confere a tecla e repassa ao placesExecutor, então uma thread basta
+    @Bean
+    public ThreadPoolTaskScheduler autocompleteScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("autocomplete-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
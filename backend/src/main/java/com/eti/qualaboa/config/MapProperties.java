@@ -0,0 +1,136 @@
+package com.eti.qualaboa.config;
+
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.places.model.PlaceReviewsResponse;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "map")
+public class MapProperties {
+
+    private Pins pins = new Pins();
+    private Executor executor = new Executor();
+    private Cache cache = new Cache();
+    private Tiles tiles = new Tiles();
+    private Places places = new Places();
+    private Autocomplete autocomplete = new Autocomplete();
+
+    @Data
+    public static class Pins {
+        // tempo máximo de espera pelo Google antes de responder só com os parceiros
+        private Duration placesTimeout = Duration.ofMillis(1500);
+    }
+
+    @Data
+    public static class Executor {
+        private int threads = 16;
+        private int queueCapacity = 200;
+    }
+
+    @Data
+    public static class Cache {
+        // depois disso a entrada ainda é servida, mas é renovada em segundo plano
+        private Duration refreshAfter = Duration.ofHours(6);
+        // expiração definitiva, só para entradas que ninguém mais acessou
+        private Duration expireAfterWrite = Duration.ofHours(24);
+        private int refreshThreads = 2;
+        private int refreshQueueCapacity = 100;
+        private Disk disk = new Disk();
+        // um bloco por cache (map.cache.specs.<nome>.*); cache novo é só mais uma entrada aqui
+        private Map<String, CacheSpec> specs = new LinkedHashMap<>(Map.of(
+                "places", new CacheSpec(null, DataSize.ofMegabytes(32), PlaceSearchResponse.class),
+                "placeDetails", new CacheSpec(null, DataSize.ofMegabytes(16), PlaceDetailsResponse.class),
+                "placeReviews", new CacheSpec(Duration.ofHours(12), DataSize.ofMegabytes(8), PlaceReviewsResponse.class),
+                "autocomplete", new CacheSpec(Duration.ofHours(6), DataSize.ofMegabytes(8), PlaceSearchResponse.class)));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSpec {
+        // vazio herda map.cache.expire-after-write
+        private Duration expireAfterWrite;
+        // limite pelo tamanho estimado em JSON das entradas, não pelo número delas
+        private DataSize maxWeight = DataSize.ofMegabytes(16);
+        // tipo do valor, necessário para ler de volta do disco; sem ele o cache fica só na memória
+        private Class<?> type;
+    }
+
+    @Data
+    public static class Disk {
+        // segundo nível em disco dos caches do Google, para o nó voltar aquecido depois de um restart
+        private boolean enabled = false;
+        private Path directory = Path.of("data", "places-cache");
+    }
+
+    @Data
+    public static class Autocomplete {
+        // espera antes de ir ao Google, sem prender thread; se a mesma aba digitar de novo nesse meio tempo, a busca antiga não sai
+        private Duration debounce = Duration.ofMillis(250);
+        // abaixo disso só os estabelecimentos locais
+        private int minPrefix = 3;
+        private int limit = 10;
+    }
+
+    @Data
+    public static class Tiles {
+        // orçamento de memória do cache de tiles, medido pelo tamanho do JSON
+        private DataSize maxSize = DataSize.ofMegabytes(32);
+        // por quanto tempo navegador/CDN podem reaproveitar o tile sem revalidar o ETag
+        private Duration maxAge = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Places {
+        // timeout de cada chamada ao Google, por operação
+        private Duration searchTimeout = Duration.ofSeconds(3);
+        private Duration detailsTimeout = Duration.ofSeconds(2);
+        private Duration reviewsTimeout = Duration.ofSeconds(2);
+        // páginas do nearbySearch (20 locais cada, no máximo 3) e quanto o token leva para valer
+        private int maxPages = 3;
+        private Duration pageTokenDelay = Duration.ofSeconds(2);
+        // bulkhead: chamadas simultâneas ao Google e quanto esperar por uma vaga
+        private int maxConcurrentCalls = 20;
+        private Duration maxWait = Duration.ZERO;
+        private Breaker breaker = new Breaker();
+        private Quota quota = new Quota();
+    }
+
+    @Data
+    public static class Breaker {
+        // abre quando a taxa de falhas nas últimas chamadas passa do limite
+        private int failureRateThreshold = 50;
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        private Duration openDuration = Duration.ofSeconds(30);
+        // chamadas de teste no meio aberto; todas precisam dar certo para fechar
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class Quota {
+        // usuário esperando no mapa (nearby, detalhes, avaliações)
+        private Orcamento interactive = new Orcamento(8_000, 200);
+        // renovação do cache e vínculo de parceiros com o Google
+        private Orcamento background = new Orcamento(2_000, 50);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Orcamento {
+        private int perDay;
+        // quanto pode acumular para absorver picos
+        private int burst;
+    }
+}
@@ -5,6 +5,9 @@ import com.eti.qualaboa.cupom.model.Cupom;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoRegisterDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoResponseDTO;
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.dto.PaginaBuscaDTO;
+import com.eti.qualaboa.estabelecimento.dto.ResultadoFiltroDTO;
 import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
 import com.eti.qualaboa.estabelecimento.service.EstabelecimentoService;
 import com.eti.qualaboa.metricas.dto.RelatorioCliquesDTO;
@@ -21,6 +24,8 @@ import java.util.List;
 @Slf4j
 public class EstabelecimentoController {
 
+    private static final int MAX_SUGESTOES = 50;
+
     private final EstabelecimentoService service;
 
     @PostMapping
@@ -49,12 +54,62 @@ public class EstabelecimentoController {
     }
 
     @GetMapping("buscarNome")
-    public ResponseEntity<EstabelecimentoResponseDTO> buscarEstabelecimentoPeloNome(@RequestParam String nomeEstabelecimento) {
-        Estabelecimento estabelecimento = service.buscarPorNome(nomeEstabelecimento);
+    public ResponseEntity<EstabelecimentoResponseDTO> buscarEstabelecimentoPeloNome(
+            @RequestParam String nomeEstabelecimento,
+            @RequestParam(defaultValue = "false") boolean aproximado) {
+        Estabelecimento estabelecimento = service.buscarPorNome(nomeEstabelecimento, aproximado);
         EstabelecimentoResponseDTO responseDTO = new EstabelecimentoResponseDTO(estabelecimento);
         return ResponseEntity.ok(responseDTO);
     }
 
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<EstabelecimentoSugestaoDTO>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite) {
+        if (limite < 1 || limite > MAX_SUGESTOES) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.autocompletar(q, limite));
+    }
+
+    // tolerante a erro de digitação, do mais parecido para o menos
+    @GetMapping("/busca-aproximada")
+    public ResponseEntity<List<EstabelecimentoSugestaoDTO>> buscaAproximada(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite) {
+        if (limite < 1 || limite > MAX_SUGESTOES) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.buscarAproximado(q, limite));
+    }
+
+    // texto livre em categoria, conveniências, nome e descrição, do mais relevante para o menos
+    @GetMapping("/busca")
+    public ResponseEntity<PaginaBuscaDTO> busca(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamanho) {
+        if (pagina < 0 || tamanho < 1 || tamanho > MAX_SUGESTOES) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.buscarTexto(q, pagina, tamanho));
+    }
+
+    // várias categorias: qualquer uma delas; várias conveniências: todas; com as contagens de cada faceta
+    @GetMapping("/filtro")
+    public ResponseEntity<ResultadoFiltroDTO> filtrar(
+            @RequestParam(required = false) List<String> categoria,
+            @RequestParam(required = false) List<String> conveniencia,
+            @RequestParam(required = false) Boolean parceiro,
+            @RequestParam(required = false) Double classificacaoMin,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamanho) {
+        if (pagina < 0 || tamanho < 1 || tamanho > MAX_SUGESTOES) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(service.filtrar(categoria, conveniencia, parceiro, classificacaoMin, pagina, tamanho));
+    }
+
     @GetMapping("/{id}/cliques/relatorio")
     public ResponseEntity<RelatorioCliquesDTO> getRelatorioDeCliques(@PathVariable Long id) {
         RelatorioCliquesDTO relatorio = service.buscarRelatorioDeCliques(id);
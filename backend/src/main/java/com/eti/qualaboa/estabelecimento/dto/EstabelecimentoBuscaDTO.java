@@ -0,0 +1,6 @@
+package com.eti.qualaboa.estabelecimento.dto;
+
+// item da busca por texto; relevancia é o score BM25, só serve para comparar itens da mesma busca
+public record EstabelecimentoBuscaDTO(Long idEstabelecimento, String nome, String categoria, boolean parceiro,
+                                      double relevancia) {
+}
@@ -0,0 +1,6 @@
+package com.eti.qualaboa.estabelecimento.dto;
+
+// item do filtro por facetas: o que a lista mostra; o resto vem de GET /estabelecimentos/{id}
+public record EstabelecimentoFiltradoDTO(Long idEstabelecimento, String nome, String categoria, boolean parceiro,
+                                         Double classificacao) {
+}
@@ -0,0 +1,5 @@
+package com.eti.qualaboa.estabelecimento.dto;
+
+// item do autocomplete: só o que a lista de sugestões mostra; o resto vem de GET /estabelecimentos/{id}
+public record EstabelecimentoSugestaoDTO(Long idEstabelecimento, String nome, boolean parceiro) {
+}
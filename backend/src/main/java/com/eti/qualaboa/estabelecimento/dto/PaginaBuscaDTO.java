@@ -0,0 +1,7 @@
+package com.eti.qualaboa.estabelecimento.dto;
+
+import java.util.List;
+
+// total conta todos os que casaram com a busca, não só os da página
+public record PaginaBuscaDTO(List<EstabelecimentoBuscaDTO> itens, int total, int pagina, int tamanho) {
+}
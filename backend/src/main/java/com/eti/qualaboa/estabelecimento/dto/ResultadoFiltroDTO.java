@@ -0,0 +1,9 @@
+package com.eti.qualaboa.estabelecimento.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// facetas: nome da faceta → valor → quantos estabelecimentos o filtro traria com esse valor
+public record ResultadoFiltroDTO(List<EstabelecimentoFiltradoDTO> itens, int total, int pagina, int tamanho,
+                                 Map<String, Map<String, Integer>> facetas) {
+}
@@ -0,0 +1,38 @@
+package com.eti.qualaboa.estabelecimento.event;
+
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+
+import java.util.List;
+
+/**
+ * Publicado após criar/atualizar/vincular um estabelecimento.
+ * Carrega uma cópia dos campos para que os listeners não dependam da sessão JPA.
+ */
+public record EstabelecimentoAlteradoEvent(
+        Long idEstabelecimento,
+        String nome,
+        String placeId,
+        boolean parceiro,
+        Double latitude,
+        Double longitude,
+        String descricao,
+        String enderecoFormatado,
+        String categoria,
+        List<String> conveniencias,
+        Double classificacao) {
+
+    public static EstabelecimentoAlteradoEvent de(Estabelecimento e) {
+        return new EstabelecimentoAlteradoEvent(
+                e.getIdEstabelecimento(),
+                e.getNome(),
+                e.getPlaceId(),
+                Boolean.TRUE.equals(e.getParceiro()),
+                e.getLatitude(),
+                e.getLongitude(),
+                e.getDescricao(),
+                e.getEnderecoFormatado(),
+                e.getCategoria(),
+                e.getConveniencias() != null ? List.copyOf(e.getConveniencias()) : List.of(),
+                e.getClassificacao());
+    }
+}
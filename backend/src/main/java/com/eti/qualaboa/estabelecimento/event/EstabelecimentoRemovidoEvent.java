@@ -0,0 +1,4 @@
+package com.eti.qualaboa.estabelecimento.event;
+
+public record EstabelecimentoRemovidoEvent(Long idEstabelecimento) {
+}
@@ -0,0 +1,260 @@
+package com.eti.qualaboa.estabelecimento.index;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoBuscaDTO;
+import com.eti.qualaboa.estabelecimento.dto.PaginaBuscaDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.texto.NormalizadorTexto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Busca por texto em categoria, conveniências, nome e descrição: índice invertido em memória
+ * (termo → estabelecimentos com a frequência do termo) e ordenação por BM25.
+ * <p>
+ * Os termos passam pela mesma normalização dos outros índices de nome (sem acento, maiúsculas),
+ * e palavras vazias como "ao" e "de" ficam de fora. Todas as palavras da busca precisam aparecer,
+ * como no plainto_tsquery: "música ao vivo" traz quem tem MUSICA e VIVO, os mais relevantes antes.
+ * Cada campo conta com um peso na frequência e no tamanho do documento (BM25F simplificado),
+ * então "karaokê" na categoria pesa mais que perdido no meio da descrição. A carga monta o
+ * índice à parte e troca de uma vez, sem deixar a busca vazia no meio.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BuscaTextoIndex {
+
+    // valores usuais do BM25: saturação da frequência e quanto o tamanho do documento penaliza
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final float PESO_CATEGORIA = 3f;
+    private static final float PESO_CONVENIENCIA = 2f;
+    private static final float PESO_NOME = 2f;
+    private static final float PESO_DESCRICAO = 1f;
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "A", "O", "AS", "OS", "E", "DE", "DA", "DO", "DAS", "DOS", "EM", "NA", "NO", "NAS", "NOS",
+            "AO", "AOS", "UM", "UMA", "COM", "PARA", "POR", "QUE");
+
+    private final EstabelecimentoRepository estRepo;
+
+    // trocado inteiro pela carga; as escritas passam pelo synchronized de aplicar
+    private volatile Conteudo atual = new Conteudo();
+    // escritas que chegam enquanto a carga lê o banco, reaplicadas no conteúdo novo antes da troca
+    private List<Consumer<Conteudo>> pendentes;
+
+    private record Documento(Long id, String nome, String categoria, boolean parceiro, float tamanho,
+                             Set<String> termos) {
+    }
+
+    private record Resultado(Documento documento, double relevancia) {
+    }
+
+    private static class Conteudo {
+        // termo → (id → frequência já multiplicada pelo peso do campo)
+        private final Map<String, Map<Long, Float>> postings = new ConcurrentHashMap<>();
+        private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+        // soma dos tamanhos, para o tamanho médio; só muda dentro de aplicar ou na carga, antes da troca
+        private volatile double somaTamanhos;
+
+        void indexar(Long id, String nome, String categoria, String descricao, List<String> conveniencias,
+                     boolean parceiro) {
+            remover(id);
+            Map<String, Float> frequencias = new HashMap<>();
+            float tamanho = contar(frequencias, categoria, PESO_CATEGORIA)
+                    + contar(frequencias, nome, PESO_NOME)
+                    + contar(frequencias, descricao, PESO_DESCRICAO);
+            if (conveniencias != null) {
+                for (String c : conveniencias) {
+                    tamanho += contar(frequencias, c, PESO_CONVENIENCIA);
+                }
+            }
+            if (frequencias.isEmpty()) {
+                return;
+            }
+            documentos.put(id, new Documento(id, nome, categoria, parceiro, tamanho, Set.copyOf(frequencias.keySet())));
+            somaTamanhos += tamanho;
+            frequencias.forEach((termo, tf) -> postings.computeIfAbsent(termo, k -> new ConcurrentHashMap<>()).put(id, tf));
+        }
+
+        void remover(Long id) {
+            Documento antigo = documentos.remove(id);
+            if (antigo == null) {
+                return;
+            }
+            somaTamanhos -= antigo.tamanho();
+            for (String termo : antigo.termos()) {
+                Map<Long, Float> ids = postings.get(termo);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(termo, ids);
+                    }
+                }
+            }
+        }
+    }
+
+    // monta o conteúdo novo fora do ar e troca de uma vez: quem busca durante a carga vê o anterior
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        synchronized (this) {
+            pendentes = new ArrayList<>();
+        }
+        Conteudo novo = new Conteudo();
+        try {
+            for (Estabelecimento e : estRepo.findAllBy()) {
+                if (e.getIdEstabelecimento() != null) {
+                    novo.indexar(e.getIdEstabelecimento(), e.getNome(), e.getCategoria(), e.getDescricao(),
+                            e.getConveniencias(), Boolean.TRUE.equals(e.getParceiro()));
+                }
+            }
+            synchronized (this) {
+                pendentes.forEach(escrita -> escrita.accept(novo));
+                atual = novo;
+            }
+        } finally {
+            synchronized (this) {
+                pendentes = null;
+            }
+        }
+        log.info("Índice de texto carregado com {} estabelecimentos e {} termos", novo.documentos.size(), novo.postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlterado(EstabelecimentoAlteradoEvent event) {
+        indexar(event.idEstabelecimento(), event.nome(), event.categoria(), event.descricao(),
+                event.conveniencias(), event.parceiro());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRemovido(EstabelecimentoRemovidoEvent event) {
+        Long id = event.idEstabelecimento();
+        aplicar(c -> c.remover(id));
+    }
+
+    public void indexar(Long id, String nome, String categoria, String descricao,
+                        List<String> conveniencias, boolean parceiro) {
+        if (id == null) {
+            return;
+        }
+        aplicar(c -> c.indexar(id, nome, categoria, descricao, conveniencias, parceiro));
+    }
+
+    public PaginaBuscaDTO buscar(String consulta, int pagina, int tamanho) {
+        Conteudo conteudo = atual;
+        Map<Long, Documento> documentos = conteudo.documentos;
+        Set<String> termos = termos(consulta);
+        int n = documentos.size();
+        if (termos.isEmpty() || n == 0) {
+            return new PaginaBuscaDTO(List.of(), 0, pagina, tamanho);
+        }
+        double tamanhoMedio = Math.max(conteudo.somaTamanhos / n, 1);
+
+        Map<Long, Double> relevancias = new HashMap<>();
+        Map<Long, Integer> casados = new HashMap<>();
+        for (String termo : termos) {
+            Map<Long, Float> ids = conteudo.postings.get(termo);
+            if (ids == null) {
+                // falta uma palavra em todos: nenhum estabelecimento tem a busca inteira
+                return new PaginaBuscaDTO(List.of(), 0, pagina, tamanho);
+            }
+            double idf = Math.log(1 + (n - ids.size() + 0.5) / (ids.size() + 0.5));
+            for (Map.Entry<Long, Float> e : ids.entrySet()) {
+                Documento doc = documentos.get(e.getKey());
+                if (doc == null) {
+                    continue;
+                }
+                double tf = e.getValue();
+                double norma = K1 * (1 - B + B * doc.tamanho() / tamanhoMedio);
+                relevancias.merge(e.getKey(), idf * tf * (K1 + 1) / (tf + norma), Double::sum);
+                casados.merge(e.getKey(), 1, Integer::sum);
+            }
+        }
+
+        // só os melhores até o fim da página ficam no heap, o resto da lista nem é ordenado
+        Comparator<Resultado> ordem = Comparator.comparingDouble(Resultado::relevancia).reversed()
+                .thenComparing(r -> r.documento().id());
+        long fim = (long) pagina * tamanho + tamanho;
+        PriorityQueue<Resultado> melhores = new PriorityQueue<>(ordem.reversed());
+        int total = 0;
+        for (Map.Entry<Long, Double> e : relevancias.entrySet()) {
+            Documento doc = documentos.get(e.getKey());
+            if (doc == null || casados.get(e.getKey()) < termos.size()) {
+                continue;
+            }
+            total++;
+            melhores.add(new Resultado(doc, e.getValue()));
+            if (melhores.size() > fim) {
+                melhores.poll();
+            }
+        }
+
+        List<Resultado> ordenados = new ArrayList<>(melhores);
+        ordenados.sort(ordem);
+        List<EstabelecimentoBuscaDTO> itens = new ArrayList<>();
+        for (int i = (int) Math.min((long) pagina * tamanho, ordenados.size()); i < ordenados.size(); i++) {
+            Documento doc = ordenados.get(i).documento();
+            itens.add(new EstabelecimentoBuscaDTO(doc.id(), doc.nome(), doc.categoria(), doc.parceiro(),
+                    ordenados.get(i).relevancia()));
+        }
+        return new PaginaBuscaDTO(itens, total, pagina, tamanho);
+    }
+
+    public int size() {
+        return atual.documentos.size();
+    }
+
+    private synchronized void aplicar(Consumer<Conteudo> escrita) {
+        escrita.accept(atual);
+        if (pendentes != null) {
+            pendentes.add(escrita);
+        }
+    }
+
+    // soma as ocorrências do texto com o peso do campo e devolve quanto o campo acrescenta ao tamanho
+    private static float contar(Map<String, Float> frequencias, String texto, float peso) {
+        float tamanho = 0;
+        for (String termo : palavras(texto)) {
+            frequencias.merge(termo, peso, Float::sum);
+            tamanho += peso;
+        }
+        return tamanho;
+    }
+
+    static Set<String> termos(String consulta) {
+        return new LinkedHashSet<>(palavras(consulta));
+    }
+
+    private static List<String> palavras(String texto) {
+        String normalizado = NormalizadorTexto.normalizarTermo(texto);
+        if (normalizado.isEmpty()) {
+            return List.of();
+        }
+        List<String> palavras = new ArrayList<>();
+        for (String p : normalizado.split(" ")) {
+            if (!PALAVRAS_VAZIAS.contains(p)) {
+                palavras.add(p);
+            }
+        }
+        return palavras;
+    }
+}
@@ -0,0 +1,377 @@
+package com.eti.qualaboa.estabelecimento.index;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoFiltradoDTO;
+import com.eti.qualaboa.estabelecimento.dto.ResultadoFiltroDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.texto.NormalizadorTexto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Filtro por categoria, conveniências, parceiro e classificação mínima sem ir ao banco: cada
+ * estabelecimento ganha um ordinal e cada valor de faceta um bitmap com os ordinais que o têm.
+ * <p>
+ * Um filtro é um AND/OR de bitmaps (várias categorias: qualquer uma; várias conveniências:
+ * todas), e as contagens de cada faceta saem da cardinalidade da interseção com o resultado,
+ * então o custo depende do número de valores e não de quantos estabelecimentos casam.
+ * <p>
+ * As páginas saem na ordem dos ordinais, então eles não são reaproveitados: a carga numera por
+ * id, quem chega depois vai para o fim e quem é alterado fica onde estava. Os ordinais vagos das
+ * remoções são compactados quando passam de um quarto dos ocupados, renumerando na mesma ordem,
+ * para os bitmaps não crescerem com as escritas. A carga monta tudo à parte e troca de uma vez.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FacetaIndex {
+
+    // um bitmap por meia estrela: o de índice k tem quem tem classificação >= k / 2
+    private static final int FAIXAS = 11;
+    // abaixo disso não compensa renumerar, por mais vagos que sejam em proporção
+    private static final int VAGOS_MINIMOS = 64;
+
+    private final EstabelecimentoRepository estRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Estado estado = new Estado();
+    // escritas que chegam enquanto a carga lê o banco, reaplicadas no estado novo antes da troca
+    private List<Consumer<Estado>> pendentes;
+
+    private record Documento(Long id, String nome, String categoria, List<String> conveniencias, boolean parceiro,
+                             Double classificacao, String chaveCategoria, Set<String> chavesConveniencias) {
+    }
+
+    // valor normalizado → bitmap, mais o primeiro texto original visto, para mostrar nas contagens
+    private static class Faceta {
+        private final Map<String, BitSet> bits = new HashMap<>();
+        private final Map<String, String> rotulos = new HashMap<>();
+
+        void adicionar(String chave, String rotulo, int ordinal) {
+            bits.computeIfAbsent(chave, k -> new BitSet()).set(ordinal);
+            rotulos.putIfAbsent(chave, rotulo);
+        }
+
+        void remover(String chave, int ordinal) {
+            BitSet b = bits.get(chave);
+            if (b != null) {
+                b.clear(ordinal);
+                if (b.isEmpty()) {
+                    bits.remove(chave);
+                    rotulos.remove(chave);
+                }
+            }
+        }
+
+        BitSet get(String chave) {
+            return bits.getOrDefault(chave, new BitSet());
+        }
+    }
+
+    // tudo o que a carga troca de uma vez; só é usado com o lock
+    private static class Estado {
+        private final Map<Long, Integer> ordinais = new HashMap<>();
+        private final List<Documento> documentos = new ArrayList<>();
+        private final BitSet todos = new BitSet();
+        private final BitSet parceiros = new BitSet();
+        private final BitSet[] porClassificacao = new BitSet[FAIXAS];
+        private final Faceta categorias = new Faceta();
+        private final Faceta conveniencias = new Faceta();
+        private int vagos;
+
+        Estado() {
+            for (int k = 0; k < FAIXAS; k++) {
+                porClassificacao[k] = new BitSet();
+            }
+        }
+
+        void indexar(Long id, String nome, String categoria, List<String> convenienciasDoEst,
+                     boolean parceiro, Double classificacao) {
+            Integer existente = ordinais.get(id);
+            int ordinal;
+            if (existente != null) {
+                limpar(existente);
+                ordinal = existente;
+            } else {
+                ordinal = documentos.size();
+                documentos.add(null);
+            }
+
+            String chaveCategoria = NormalizadorTexto.normalizarTermo(categoria);
+            if (!chaveCategoria.isEmpty()) {
+                categorias.adicionar(chaveCategoria, categoria.trim(), ordinal);
+            }
+            Set<String> chavesConveniencias = new LinkedHashSet<>();
+            if (convenienciasDoEst != null) {
+                for (String c : convenienciasDoEst) {
+                    String chave = NormalizadorTexto.normalizarTermo(c);
+                    if (!chave.isEmpty() && chavesConveniencias.add(chave)) {
+                        conveniencias.adicionar(chave, c.trim(), ordinal);
+                    }
+                }
+            }
+            todos.set(ordinal);
+            if (parceiro) {
+                parceiros.set(ordinal);
+            }
+            if (classificacao != null) {
+                for (int k = 0; k < FAIXAS && classificacao >= k / 2.0; k++) {
+                    porClassificacao[k].set(ordinal);
+                }
+            }
+
+            List<String> copia = convenienciasDoEst == null ? List.of() : new ArrayList<>(convenienciasDoEst);
+            documentos.set(ordinal, new Documento(id, nome, categoria, copia, parceiro, classificacao,
+                    chaveCategoria, Set.copyOf(chavesConveniencias)));
+            ordinais.put(id, ordinal);
+        }
+
+        // o ordinal fica vago até a próxima compactação
+        void remover(Long id) {
+            Integer ordinal = ordinais.remove(id);
+            if (ordinal != null) {
+                limpar(ordinal);
+                documentos.set(ordinal, null);
+                vagos++;
+            }
+        }
+
+        private void limpar(int ordinal) {
+            Documento antigo = documentos.get(ordinal);
+            if (!antigo.chaveCategoria().isEmpty()) {
+                categorias.remover(antigo.chaveCategoria(), ordinal);
+            }
+            for (String c : antigo.chavesConveniencias()) {
+                conveniencias.remover(c, ordinal);
+            }
+            todos.clear(ordinal);
+            parceiros.clear(ordinal);
+            for (BitSet b : porClassificacao) {
+                b.clear(ordinal);
+            }
+        }
+
+        boolean precisaCompactar() {
+            return vagos >= VAGOS_MINIMOS && vagos > ordinais.size() / 4;
+        }
+
+        // renumera na ordem atual, então quem vinha antes continua vindo antes
+        Estado compactado() {
+            Estado novo = new Estado();
+            for (Documento d : documentos) {
+                if (d != null) {
+                    novo.indexar(d.id(), d.nome(), d.categoria(), d.conveniencias(), d.parceiro(), d.classificacao());
+                }
+            }
+            return novo;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        lock.writeLock().lock();
+        try {
+            pendentes = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Estado novo = new Estado();
+        try {
+            List<Estabelecimento> estabelecimentos = new ArrayList<>(estRepo.findAllBy());
+            estabelecimentos.removeIf(e -> e.getIdEstabelecimento() == null);
+            estabelecimentos.sort(Comparator.comparing(Estabelecimento::getIdEstabelecimento));
+            for (Estabelecimento e : estabelecimentos) {
+                novo.indexar(e.getIdEstabelecimento(), e.getNome(), e.getCategoria(), e.getConveniencias(),
+                        Boolean.TRUE.equals(e.getParceiro()), e.getClassificacao());
+            }
+            lock.writeLock().lock();
+            try {
+                pendentes.forEach(escrita -> escrita.accept(novo));
+                estado = novo.precisaCompactar() ? novo.compactado() : novo;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendentes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Índice de facetas carregado com {} estabelecimentos e {} categorias",
+                novo.ordinais.size(), novo.categorias.bits.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlterado(EstabelecimentoAlteradoEvent event) {
+        indexar(event.idEstabelecimento(), event.nome(), event.categoria(), event.conveniencias(),
+                event.parceiro(), event.classificacao());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRemovido(EstabelecimentoRemovidoEvent event) {
+        Long id = event.idEstabelecimento();
+        aplicar(e -> e.remover(id));
+    }
+
+    public void indexar(Long id, String nome, String categoria, List<String> convenienciasDoEst,
+                        boolean parceiro, Double classificacao) {
+        if (id == null) {
+            return;
+        }
+        aplicar(e -> e.indexar(id, nome, categoria, convenienciasDoEst, parceiro, classificacao));
+    }
+
+    /**
+     * Filtros nulos ou vazios não restringem. As contagens de categoria ignoram o próprio filtro
+     * de categoria (para mostrar as alternativas); as demais são sobre o resultado.
+     */
+    public ResultadoFiltroDTO filtrar(Collection<String> categoriasFiltro, Collection<String> convenienciasFiltro,
+                                      Boolean parceiro, Double classificacaoMinima, int pagina, int tamanho) {
+        lock.readLock().lock();
+        try {
+            Estado e = estado;
+            BitSet semCategoria = (BitSet) e.todos.clone();
+            if (convenienciasFiltro != null) {
+                for (String c : convenienciasFiltro) {
+                    semCategoria.and(e.conveniencias.get(NormalizadorTexto.normalizarTermo(c)));
+                }
+            }
+            if (parceiro != null) {
+                if (parceiro) {
+                    semCategoria.and(e.parceiros);
+                } else {
+                    semCategoria.andNot(e.parceiros);
+                }
+            }
+            if (classificacaoMinima != null) {
+                semCategoria.and(comClassificacaoMinima(e, classificacaoMinima));
+            }
+
+            BitSet resultado = semCategoria;
+            if (categoriasFiltro != null && !categoriasFiltro.isEmpty()) {
+                BitSet qualquer = new BitSet();
+                for (String c : categoriasFiltro) {
+                    qualquer.or(e.categorias.get(NormalizadorTexto.normalizarTermo(c)));
+                }
+                resultado = (BitSet) semCategoria.clone();
+                resultado.and(qualquer);
+            }
+
+            Map<String, Map<String, Integer>> facetas = new LinkedHashMap<>();
+            facetas.put("categoria", contagens(e.categorias, semCategoria));
+            facetas.put("conveniencias", contagens(e.conveniencias, resultado));
+            int totalParceiros = contar(resultado, e.parceiros);
+            facetas.put("parceiro", Map.of("true", totalParceiros, "false", resultado.cardinality() - totalParceiros));
+            Map<String, Integer> estrelas = new LinkedHashMap<>();
+            for (int k = 2; k < FAIXAS; k += 2) {
+                estrelas.put(String.valueOf(k / 2), contar(resultado, e.porClassificacao[k]));
+            }
+            facetas.put("classificacaoMinima", estrelas);
+
+            return new ResultadoFiltroDTO(pagina(e, resultado, pagina, tamanho), resultado.cardinality(),
+                    pagina, tamanho, facetas);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return estado.ordinais.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Consumer<Estado> escrita) {
+        lock.writeLock().lock();
+        try {
+            escrita.accept(estado);
+            if (pendentes != null) {
+                pendentes.add(escrita);
+            }
+            if (estado.precisaCompactar()) {
+                estado = estado.compactado();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // a faixa de meia estrela abaixo do mínimo mais a conferência só de quem está entre ela e a próxima
+    private static BitSet comClassificacaoMinima(Estado e, double minima) {
+        if (minima > 5) {
+            return new BitSet();
+        }
+        int k = Math.max(0, (int) Math.floor(minima * 2));
+        BitSet aceitos = (BitSet) e.porClassificacao[k].clone();
+        if (minima > k / 2.0) {
+            BitSet fronteira = (BitSet) aceitos.clone();
+            if (k + 1 < FAIXAS) {
+                fronteira.andNot(e.porClassificacao[k + 1]);
+            }
+            for (int i = fronteira.nextSetBit(0); i >= 0; i = fronteira.nextSetBit(i + 1)) {
+                if (e.documentos.get(i).classificacao() < minima) {
+                    aceitos.clear(i);
+                }
+            }
+        }
+        return aceitos;
+    }
+
+    private static List<EstabelecimentoFiltradoDTO> pagina(Estado e, BitSet resultado, int pagina, int tamanho) {
+        long pular = (long) pagina * tamanho;
+        List<EstabelecimentoFiltradoDTO> itens = new ArrayList<>(tamanho);
+        int i = resultado.nextSetBit(0);
+        for (long p = 0; p < pular && i >= 0; p++) {
+            i = resultado.nextSetBit(i + 1);
+        }
+        for (; i >= 0 && itens.size() < tamanho; i = resultado.nextSetBit(i + 1)) {
+            Documento doc = e.documentos.get(i);
+            itens.add(new EstabelecimentoFiltradoDTO(doc.id(), doc.nome(), doc.categoria(), doc.parceiro(),
+                    doc.classificacao()));
+        }
+        return itens;
+    }
+
+    private static Map<String, Integer> contagens(Faceta faceta, BitSet base) {
+        Map<String, Integer> contagens = new TreeMap<>();
+        faceta.bits.forEach((chave, bits) -> {
+            int n = contar(base, bits);
+            if (n > 0) {
+                contagens.put(faceta.rotulos.get(chave), n);
+            }
+        });
+        return contagens;
+    }
+
+    private static int contar(BitSet a, BitSet b) {
+        BitSet intersecao = (BitSet) a.clone();
+        intersecao.and(b);
+        return intersecao.cardinality();
+    }
+}
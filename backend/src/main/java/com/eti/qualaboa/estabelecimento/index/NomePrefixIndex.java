@@ -0,0 +1,180 @@
+package com.eti.qualaboa.estabelecimento.index;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.texto.NormalizadorTexto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Índice em memória dos nomes de estabelecimentos para o autocomplete: um mapa ordenado
+ * (skip list) em que a busca por prefixo é um intervalo de chaves, sem ir ao banco.
+ * <p>
+ * Cada nome entra uma vez inteiro e uma vez a partir de cada palavra seguinte, para "ze"
+ * achar "Bar do Zé"; os que começam pelo termo vêm antes. A chave termina com o id, então
+ * nomes iguais não colidem. Mantido pelos mesmos eventos que o índice espacial.
+ * <p>
+ * A carga monta um conteúdo novo e só então troca pelo atual, então o autocomplete não fica
+ * vazio nem pela metade enquanto ela lê o banco.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NomePrefixIndex {
+
+    private static final char NOME_INTEIRO = '0';
+    private static final char MEIO_DO_NOME = '1';
+    private static final char SEPARADOR = '\u0000';
+
+    private final EstabelecimentoRepository estRepo;
+
+    // trocado inteiro pela carga; as escritas passam pelo synchronized de aplicar
+    private volatile Conteudo atual = new Conteudo();
+    // escritas que chegam enquanto a carga lê o banco, reaplicadas no conteúdo novo antes da troca
+    private List<Consumer<Conteudo>> pendentes;
+
+    private static class Conteudo {
+        private final ConcurrentSkipListMap<String, EstabelecimentoSugestaoDTO> entradas = new ConcurrentSkipListMap<>();
+        // chaves atuais de cada estabelecimento, para tirar as antigas quando o nome muda
+        private final Map<Long, List<String>> chavesPorId = new ConcurrentHashMap<>();
+
+        void indexar(Long id, String nome, boolean parceiro) {
+            String normalizado = NormalizadorTexto.normalizarTermo(nome);
+            if (normalizado.isEmpty()) {
+                remover(id);
+                return;
+            }
+            EstabelecimentoSugestaoDTO sugestao = new EstabelecimentoSugestaoDTO(id, nome, parceiro);
+            List<String> novas = chaves(id, normalizado);
+            // leitores podem ver os dois nomes por um instante
+            for (String chave : novas) {
+                entradas.put(chave, sugestao);
+            }
+            List<String> antigas = chavesPorId.put(id, novas);
+            if (antigas != null) {
+                for (String chave : antigas) {
+                    if (!novas.contains(chave)) {
+                        entradas.remove(chave);
+                    }
+                }
+            }
+        }
+
+        void remover(Long id) {
+            List<String> antigas = chavesPorId.remove(id);
+            if (antigas != null) {
+                antigas.forEach(entradas::remove);
+            }
+        }
+    }
+
+    // monta o conteúdo novo fora do ar e troca de uma vez: quem busca durante a carga vê o anterior
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        synchronized (this) {
+            pendentes = new ArrayList<>();
+        }
+        Conteudo novo = new Conteudo();
+        try {
+            for (Estabelecimento e : estRepo.findAll()) {
+                if (e.getIdEstabelecimento() != null) {
+                    novo.indexar(e.getIdEstabelecimento(), e.getNome(), Boolean.TRUE.equals(e.getParceiro()));
+                }
+            }
+            synchronized (this) {
+                pendentes.forEach(escrita -> escrita.accept(novo));
+                atual = novo;
+            }
+        } finally {
+            synchronized (this) {
+                pendentes = null;
+            }
+        }
+        log.info("Índice de nomes carregado com {} estabelecimentos", novo.chavesPorId.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlterado(EstabelecimentoAlteradoEvent event) {
+        indexar(event.idEstabelecimento(), event.nome(), event.parceiro());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRemovido(EstabelecimentoRemovidoEvent event) {
+        Long id = event.idEstabelecimento();
+        aplicar(c -> c.remover(id));
+    }
+
+    public void indexar(Long id, String nome, boolean parceiro) {
+        if (id == null) {
+            return;
+        }
+        aplicar(c -> c.indexar(id, nome, parceiro));
+    }
+
+    public List<EstabelecimentoSugestaoDTO> buscar(String prefixo, int limite) {
+        String termo = NormalizadorTexto.normalizarTermo(prefixo);
+        if (termo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        NavigableMap<String, EstabelecimentoSugestaoDTO> entradas = atual.entradas;
+        List<EstabelecimentoSugestaoDTO> resultado = new ArrayList<>(limite);
+        Set<Long> vistos = new HashSet<>();
+        coletar(entradas, NOME_INTEIRO + termo, limite, resultado, vistos);
+        coletar(entradas, MEIO_DO_NOME + termo, limite, resultado, vistos);
+        return resultado;
+    }
+
+    public int size() {
+        return atual.chavesPorId.size();
+    }
+
+    private synchronized void aplicar(Consumer<Conteudo> escrita) {
+        escrita.accept(atual);
+        if (pendentes != null) {
+            pendentes.add(escrita);
+        }
+    }
+
+    private static void coletar(NavigableMap<String, EstabelecimentoSugestaoDTO> entradas, String inicio, int limite,
+                                List<EstabelecimentoSugestaoDTO> resultado, Set<Long> vistos) {
+        if (resultado.size() >= limite) {
+            return;
+        }
+        // todas as chaves que começam com 'inicio' ficam entre ele e ele seguido do maior char
+        for (EstabelecimentoSugestaoDTO s : entradas.subMap(inicio, inicio + Character.MAX_VALUE).values()) {
+            if (vistos.add(s.idEstabelecimento())) {
+                resultado.add(s);
+                if (resultado.size() >= limite) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static List<String> chaves(Long id, String normalizado) {
+        List<String> chaves = new ArrayList<>();
+        String sufixo = SEPARADOR + id.toString();
+        chaves.add(NOME_INTEIRO + normalizado + sufixo);
+        for (int i = normalizado.indexOf(' '); i >= 0; i = normalizado.indexOf(' ', i + 1)) {
+            chaves.add(MEIO_DO_NOME + normalizado.substring(i + 1) + sufixo);
+        }
+        return chaves;
+    }
+}
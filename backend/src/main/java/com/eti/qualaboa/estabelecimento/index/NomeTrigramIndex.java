@@ -0,0 +1,245 @@
+package com.eti.qualaboa.estabelecimento.index;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.texto.NormalizadorTexto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Busca de nomes tolerante a erro de digitação: listas invertidas de trigramas em memória,
+ * no mesmo formato do pg_trgm (cada palavra com dois espaços antes e um depois).
+ * <p>
+ * A consulta só visita as listas dos trigramas do termo, conta os trigramas em comum por
+ * estabelecimento e ordena pela similaridade (comuns / união). A distância de edição, que é
+ * cara, roda só na lista curta dos mais parecidos e decide quem entra no resultado.
+ * A carga monta as listas à parte e troca de uma vez, sem deixar a busca vazia no meio.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NomeTrigramIndex {
+
+    // abaixo disso o candidato nem vai para a distância de edição (o padrão do pg_trgm é 0,3)
+    private static final double SIMILARIDADE_MINIMA = 0.3;
+    // tamanho da lista curta verificada com a distância de edição
+    private static final int CANDIDATOS = 50;
+
+    private final EstabelecimentoRepository estRepo;
+
+    // trocado inteiro pela carga; as escritas passam pelo synchronized de aplicar
+    private volatile Conteudo atual = new Conteudo();
+    // escritas que chegam enquanto a carga lê o banco, reaplicadas no conteúdo novo antes da troca
+    private List<Consumer<Conteudo>> pendentes;
+
+    private record Entrada(EstabelecimentoSugestaoDTO sugestao, String normalizado, Set<String> trigramas) {
+    }
+
+    private record Candidato(Entrada entrada, double similaridade, int distancia) {
+    }
+
+    private static class Conteudo {
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+        private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+        void indexar(Long id, String nome, boolean parceiro) {
+            remover(id);
+            String normalizado = NormalizadorTexto.normalizarTermo(nome);
+            if (normalizado.isEmpty()) {
+                return;
+            }
+            Set<String> trigramas = trigramas(normalizado);
+            entradas.put(id, new Entrada(new EstabelecimentoSugestaoDTO(id, nome, parceiro), normalizado, trigramas));
+            for (String t : trigramas) {
+                postings.computeIfAbsent(t, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void remover(Long id) {
+            Entrada antiga = entradas.remove(id);
+            if (antiga == null) {
+                return;
+            }
+            for (String t : antiga.trigramas()) {
+                Set<Long> ids = postings.get(t);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(t, ids);
+                    }
+                }
+            }
+        }
+    }
+
+    // monta o conteúdo novo fora do ar e troca de uma vez: quem busca durante a carga vê o anterior
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        synchronized (this) {
+            pendentes = new ArrayList<>();
+        }
+        Conteudo novo = new Conteudo();
+        try {
+            for (Estabelecimento e : estRepo.findAll()) {
+                if (e.getIdEstabelecimento() != null) {
+                    novo.indexar(e.getIdEstabelecimento(), e.getNome(), Boolean.TRUE.equals(e.getParceiro()));
+                }
+            }
+            synchronized (this) {
+                pendentes.forEach(escrita -> escrita.accept(novo));
+                atual = novo;
+            }
+        } finally {
+            synchronized (this) {
+                pendentes = null;
+            }
+        }
+        log.info("Índice de trigramas carregado com {} nomes e {} trigramas", novo.entradas.size(), novo.postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlterado(EstabelecimentoAlteradoEvent event) {
+        indexar(event.idEstabelecimento(), event.nome(), event.parceiro());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRemovido(EstabelecimentoRemovidoEvent event) {
+        Long id = event.idEstabelecimento();
+        aplicar(c -> c.remover(id));
+    }
+
+    public void indexar(Long id, String nome, boolean parceiro) {
+        if (id == null) {
+            return;
+        }
+        aplicar(c -> c.indexar(id, nome, parceiro));
+    }
+
+    public List<EstabelecimentoSugestaoDTO> buscar(String termo, int limite) {
+        String normalizado = NormalizadorTexto.normalizarTermo(termo);
+        if (normalizado.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        Conteudo conteudo = atual;
+        Set<String> doTermo = trigramas(normalizado);
+        Map<Long, Integer> emComum = new HashMap<>();
+        for (String t : doTermo) {
+            Set<Long> ids = conteudo.postings.get(t);
+            if (ids != null) {
+                for (Long id : ids) {
+                    emComum.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Candidato> candidatos = new ArrayList<>();
+        for (Map.Entry<Long, Integer> e : emComum.entrySet()) {
+            Entrada entrada = conteudo.entradas.get(e.getKey());
+            if (entrada == null) {
+                continue;
+            }
+            int comuns = e.getValue();
+            double similaridade = (double) comuns / (doTermo.size() + entrada.trigramas().size() - comuns);
+            if (similaridade >= SIMILARIDADE_MINIMA) {
+                candidatos.add(new Candidato(entrada, similaridade, 0));
+            }
+        }
+        candidatos.sort(Comparator.comparingDouble(Candidato::similaridade).reversed());
+        if (candidatos.size() > CANDIDATOS) {
+            candidatos = candidatos.subList(0, CANDIDATOS);
+        }
+
+        // lista curta: distância de edição contra o nome inteiro ou o começo dele do tamanho do termo
+        int maxDistancia = maxDistancia(normalizado);
+        List<Candidato> aceitos = new ArrayList<>();
+        for (Candidato c : candidatos) {
+            String nome = c.entrada().normalizado();
+            int distancia = Math.min(
+                    levenshtein(normalizado, nome, maxDistancia),
+                    levenshtein(normalizado, nome.substring(0, Math.min(nome.length(), normalizado.length())), maxDistancia));
+            if (distancia <= maxDistancia) {
+                aceitos.add(new Candidato(c.entrada(), c.similaridade(), distancia));
+            }
+        }
+        aceitos.sort(Comparator.comparingInt(Candidato::distancia)
+                .thenComparing(Comparator.comparingDouble(Candidato::similaridade).reversed()));
+
+        List<EstabelecimentoSugestaoDTO> resultado = new ArrayList<>(Math.min(limite, aceitos.size()));
+        for (int i = 0; i < aceitos.size() && i < limite; i++) {
+            resultado.add(aceitos.get(i).entrada().sugestao());
+        }
+        return resultado;
+    }
+
+    public int size() {
+        return atual.entradas.size();
+    }
+
+    private synchronized void aplicar(Consumer<Conteudo> escrita) {
+        escrita.accept(atual);
+        if (pendentes != null) {
+            pendentes.add(escrita);
+        }
+    }
+
+    // um erro a cada quatro letras, no mínimo um
+    static int maxDistancia(String termo) {
+        return Math.max(1, termo.length() / 4);
+    }
+
+    static Set<String> trigramas(String normalizado) {
+        Set<String> trigramas = new LinkedHashSet<>();
+        for (String palavra : normalizado.split(" ")) {
+            String p = "  " + palavra + " ";
+            for (int i = 0; i + 3 <= p.length(); i++) {
+                trigramas.add(p.substring(i, i + 3));
+            }
+        }
+        return trigramas;
+    }
+
+    // Levenshtein com corte: para assim que a linha inteira passa do máximo e devolve max + 1
+    static int levenshtein(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] anterior = new int[b.length() + 1];
+        int[] atual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            atual[0] = i;
+            int menorDaLinha = atual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int custo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                atual[j] = Math.min(Math.min(atual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + custo);
+                menorDaLinha = Math.min(menorDaLinha, atual[j]);
+            }
+            if (menorDaLinha > max) {
+                return max + 1;
+            }
+            int[] troca = anterior;
+            anterior = atual;
+            atual = troca;
+        }
+        return Math.min(anterior[b.length()], max + 1);
+    }
+}
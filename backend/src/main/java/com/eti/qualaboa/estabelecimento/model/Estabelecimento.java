@@ -76,6 +76,10 @@ public class Estabelecimento {
     @Column(length = 1000)
     private String enderecoFormatado;       // endereço obtido pelo Places
 
+    // versão do catálogo de pins na última escrita (sequence catalogo_versao_seq), usada no delta sync
+    @Column(name = "versao_catalogo")
+    private Long versaoCatalogo;
+
     //relacionamentos
     @OneToMany(mappedBy = "estabelecimento", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
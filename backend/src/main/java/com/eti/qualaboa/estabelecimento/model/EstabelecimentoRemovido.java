@@ -0,0 +1,27 @@
+package com.eti.qualaboa.estabelecimento.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Registro de exclusão de um estabelecimento, para que o delta sync do mapa consiga
+ * avisar os clientes que já tinham o pin salvo.
+ */
+@Entity
+@Table(name = "estabelecimentos_removidos", indexes = @Index(name = "idx_estabelecimentos_removidos_versao", columnList = "versao"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstabelecimentoRemovido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long idEstabelecimento;
+
+    @Column(nullable = false)
+    private Long versao;
+}
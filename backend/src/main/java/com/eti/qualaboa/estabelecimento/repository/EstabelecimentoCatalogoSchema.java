@@ -0,0 +1,40 @@
+package com.eti.qualaboa.estabelecimento.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Garante a sequence da versão do catálogo de pins e o índice usado pelo delta sync, e
+ * versiona as linhas que ainda não têm versão (data.sql e bancos anteriores à coluna),
+ * que senão ficariam fora de um sync a partir do zero.
+ * Roda antes do {@link DataInitializer}, que já grava pelo EstabelecimentoService.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class EstabelecimentoCatalogoSchema implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS catalogo_versao_seq");
+        jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_estabelecimentos_versao_catalogo ON estabelecimentos (versao_catalogo)
+                """);
+
+        int versionados = jdbcTemplate.update("""
+                UPDATE estabelecimentos SET versao_catalogo = nextval('catalogo_versao_seq')
+                WHERE versao_catalogo IS NULL
+                """);
+        if (versionados > 0) {
+            log.info("{} estabelecimentos receberam versão de catálogo", versionados);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.eti.qualaboa.estabelecimento.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Garante a coluna espacial {@code geom} de estabelecimentos e o índice GiST usado
+ * pelas consultas por raio. A coluna é gerada a partir de latitude/longitude, então
+ * o banco a mantém sincronizada em todo INSERT/UPDATE.
+ * Roda antes do {@link DataInitializer}.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class EstabelecimentoGeoSchema implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        // versões antigas criavam geom como coluna comum preenchida só no INSERT
+        List<String> geradas = jdbcTemplate.queryForList("""
+                SELECT is_generated FROM information_schema.columns
+                WHERE table_name = 'estabelecimentos' AND column_name = 'geom'
+                """, String.class);
+        if (!geradas.isEmpty() && !"ALWAYS".equals(geradas.get(0))) {
+            log.info("Recriando estabelecimentos.geom como coluna gerada");
+            jdbcTemplate.execute("ALTER TABLE estabelecimentos DROP COLUMN geom");
+        }
+
+        jdbcTemplate.execute("""
+                ALTER TABLE estabelecimentos ADD COLUMN IF NOT EXISTS geom geography(Point, 4326)
+                GENERATED ALWAYS AS (ST_SetSRID(ST_MakePoint(longitude, latitude), 4326)::geography) STORED
+                """);
+        jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_estabelecimentos_geom ON estabelecimentos USING GIST (geom)
+                """);
+    }
+}
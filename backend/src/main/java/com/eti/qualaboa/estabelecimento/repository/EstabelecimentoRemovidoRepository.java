@@ -0,0 +1,14 @@
+package com.eti.qualaboa.estabelecimento.repository;
+
+import com.eti.qualaboa.estabelecimento.model.EstabelecimentoRemovido;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EstabelecimentoRemovidoRepository extends JpaRepository<EstabelecimentoRemovido, Long> {
+
+    List<EstabelecimentoRemovido> findByVersaoGreaterThanOrderByVersaoAsc(Long versao, Limit limit);
+}
@@ -1,6 +1,8 @@
 package com.eti.qualaboa.estabelecimento.repository;
 
 import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,17 +14,17 @@ public interface EstabelecimentoRepository extends JpaRepository<Estabelecimento
 
     boolean existsByEmail(String email);
 
-    // Exemplo de busca espacial com PostGIS
-    @Query(value = """
-            SELECT * FROM estabelecimentos e
-            WHERE e.latitude IS NOT NULL
-            AND e.longitude IS NOT NULL
-            AND ST_DWithin(
-                ST_SetSRID(ST_MakePoint(e.longitude, e.latitude), 4326)::geography,
+    // geom é coluna gerada com índice GiST (ver EstabelecimentoGeoSchema)
+    String WITHIN_RADIUS_SQL = """
+            SELECT e.* FROM estabelecimentos e
+            WHERE ST_DWithin(
+                e.geom,
                 ST_SetSRID(ST_MakePoint(:lng, :lat), 4326)::geography,
                 :radius
             )
-            """, nativeQuery = true)
+            """;
+
+    @Query(value = WITHIN_RADIUS_SQL, nativeQuery = true)
     List<Estabelecimento> findAllWithinRadiusPostGis(
             @Param("lat") double lat,
             @Param("lng") double lng,
@@ -31,4 +33,20 @@ public interface EstabelecimentoRepository extends JpaRepository<Estabelecimento
     Optional<Estabelecimento> findByEmail(String email);
 
     Optional<Estabelecimento> findByNomeNormalizado(String nomeNormalizado);
+
+    List<Estabelecimento> findByParceiroTrueAndLatitudeIsNotNullAndLongitudeIsNotNull();
+
+    // carga dos índices fora de transação: as conveniências vêm na mesma consulta
+    @EntityGraph(attributePaths = "conveniencias")
+    List<Estabelecimento> findAllBy();
+
+    // o advisory lock serializa as escritas do catálogo até o commit, então as versões ficam
+    // visíveis na mesma ordem em que foram geradas e o delta sync nunca pula uma delas
+    @Query(value = """
+            SELECT nextval('catalogo_versao_seq')
+            FROM (SELECT pg_advisory_xact_lock(hashtext('catalogo_versao'))) l
+            """, nativeQuery = true)
+    long proximaVersaoCatalogo();
+
+    List<Estabelecimento> findByVersaoCatalogoGreaterThanOrderByVersaoCatalogoAsc(Long versao, Limit limit);
 }
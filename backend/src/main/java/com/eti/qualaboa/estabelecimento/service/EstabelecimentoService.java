@@ -7,7 +7,18 @@ import com.eti.qualaboa.endereco.Endereco;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoRegisterDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoResponseDTO;
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.dto.PaginaBuscaDTO;
+import com.eti.qualaboa.estabelecimento.dto.ResultadoFiltroDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.index.BuscaTextoIndex;
+import com.eti.qualaboa.estabelecimento.index.FacetaIndex;
+import com.eti.qualaboa.estabelecimento.index.NomePrefixIndex;
+import com.eti.qualaboa.estabelecimento.index.NomeTrigramIndex;
 import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.model.EstabelecimentoRemovido;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRemovidoRepository;
 import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
 import com.eti.qualaboa.metricas.dto.CliquesPorDiaDTO;
 import com.eti.qualaboa.metricas.dto.RelatorioCliquesDTO;
@@ -16,17 +27,21 @@ import com.eti.qualaboa.metricas.repository.LogCliqueRepository;
 import com.eti.qualaboa.metricas.repository.LogFavoritosRepository;
 import com.eti.qualaboa.metricas.service.MetricasService;
 import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.model.PlaceDetails;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.texto.NormalizadorTexto;
 import com.eti.qualaboa.usuario.domain.entity.Role;
 import com.eti.qualaboa.usuario.repository.RoleRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.text.Normalizer;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -37,7 +52,6 @@ public class EstabelecimentoService {
 
     private final EstabelecimentoRepository repositoryEstabelecimento;
     private final PlacesClient placesClient;
-    private final JdbcTemplate jdbcTemplate;
     private final RoleRepository roleRepository;
     private final BCryptPasswordEncoder passwordEncoder;
     private final MetricasService metricasService;
@@ -45,22 +59,32 @@ public class EstabelecimentoService {
     private final LogFavoritosRepository logFavoritosRepository;
     private final LogBuscaPeloNomeRepository logBuscaPeloNomeRepository;
     private final ComunidadeService comunidadeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EstabelecimentoRemovidoRepository removidoRepository;
+    private final NomePrefixIndex nomeIndex;
+    private final NomeTrigramIndex trigramIndex;
+    private final BuscaTextoIndex textoIndex;
+    private final FacetaIndex facetaIndex;
 
     public EstabelecimentoService(
             EstabelecimentoRepository repositoryEstabelecimento,
             PlacesClient placesClient,
-            JdbcTemplate jdbcTemplate,
             RoleRepository roleRepository,
             BCryptPasswordEncoder passwordEncoder,
             MetricasService metricasService,
             LogCliqueRepository logCliqueRepository,
             LogFavoritosRepository logFavoritosRepository,
             LogBuscaPeloNomeRepository logBuscaPeloNomeRepository,
-            ComunidadeService comunidadeService
+            ComunidadeService comunidadeService,
+            ApplicationEventPublisher eventPublisher,
+            EstabelecimentoRemovidoRepository removidoRepository,
+            NomePrefixIndex nomeIndex,
+            NomeTrigramIndex trigramIndex,
+            BuscaTextoIndex textoIndex,
+            FacetaIndex facetaIndex
     ) {
         this.repositoryEstabelecimento = repositoryEstabelecimento;
         this.placesClient = placesClient;
-        this.jdbcTemplate = jdbcTemplate;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.metricasService = metricasService;
@@ -68,6 +92,12 @@ public class EstabelecimentoService {
         this.logFavoritosRepository = logFavoritosRepository;
         this.logBuscaPeloNomeRepository = logBuscaPeloNomeRepository;
         this.comunidadeService = comunidadeService;
+        this.eventPublisher = eventPublisher;
+        this.removidoRepository = removidoRepository;
+        this.nomeIndex = nomeIndex;
+        this.trigramIndex = trigramIndex;
+        this.textoIndex = textoIndex;
+        this.facetaIndex = facetaIndex;
     }
 
     public EstabelecimentoResponseDTO criar(EstabelecimentoRegisterDTO estabelecimentoRequest) {
@@ -79,7 +109,7 @@ public class EstabelecimentoService {
         Estabelecimento estabelecimento = new Estabelecimento();
 
         estabelecimento.setNome(estabelecimentoRequest.getNome());
-        estabelecimento.setNomeNormalizado(normalizarNome(estabelecimentoRequest.getNome()));
+        estabelecimento.setNomeNormalizado(NormalizadorTexto.normalizarNome(estabelecimentoRequest.getNome()));
         estabelecimento.setEmail(estabelecimentoRequest.getEmail());
         estabelecimento.setSenha(passwordEncoder.encode(estabelecimentoRequest.getSenha()));
         estabelecimento.setCategoria(estabelecimentoRequest.getCategoria());
@@ -100,6 +130,7 @@ public class EstabelecimentoService {
             estabelecimento.setRoles(Set.of(role));
         }
 
+        estabelecimento.setVersaoCatalogo(repositoryEstabelecimento.proximaVersaoCatalogo());
         Estabelecimento salvo = repositoryEstabelecimento.save(estabelecimento);
 
         try {
@@ -108,17 +139,7 @@ public class EstabelecimentoService {
             log.error("Falha ao criar comunidade para Estabelecimento {}: {}", salvo.getNome(), e.getMessage());
         }
 
-        jdbcTemplate.execute("""
-                    ALTER TABLE estabelecimentos ADD COLUMN IF NOT EXISTS geom geography(Point,4326);
-                """);
-
-        if (salvo.getLatitude() != null && salvo.getLongitude() != null) {
-            jdbcTemplate.update("""
-                        UPDATE estabelecimentos
-                        SET geom = ST_SetSRID(ST_MakePoint(?, ?), 4326)
-                        WHERE id_estabelecimento = ?
-                    """, salvo.getLongitude(), salvo.getLatitude(), salvo.getIdEstabelecimento());
-        }
+        eventPublisher.publishEvent(EstabelecimentoAlteradoEvent.de(salvo));
 
         return new EstabelecimentoResponseDTO(
                 salvo.getIdEstabelecimento(),
@@ -156,19 +177,57 @@ public class EstabelecimentoService {
     }
 
     public Estabelecimento buscarPorNome(String nome) {
-        String nomeBusca = normalizarNome(nome);
+        return buscarPorNome(nome, false);
+    }
+
+    // aproximado: sem o nome exato, fica com o mais parecido do índice de trigramas ("bar do brid" acha "Bar do Bride")
+    public Estabelecimento buscarPorNome(String nome, boolean aproximado) {
+        String nomeBusca = NormalizadorTexto.normalizarNome(nome);
         log.info("Iniciando busca normalizada por: '{}'", nomeBusca);
-        Estabelecimento estabelecimento = repositoryEstabelecimento.findByNomeNormalizado(nomeBusca).orElseThrow(() -> new RuntimeException("Estabelecimento não encontrado Controller"));
-        metricasService.registrarBuscaPeloNome(nome);
+        Optional<Estabelecimento> exato = repositoryEstabelecimento.findByNomeNormalizado(nomeBusca);
+        if (exato.isEmpty() && aproximado) {
+            Estabelecimento parecido = trigramIndex.buscar(nome, 1).stream().findFirst()
+                    .flatMap(s -> repositoryEstabelecimento.findById(s.idEstabelecimento()))
+                    .orElseThrow(() -> new RuntimeException("Estabelecimento não encontrado Controller"));
+            log.info("Nome '{}' não encontrado, usando o mais parecido: '{}'", nomeBusca, parecido.getNome());
+            metricasService.registrarBuscaPeloNome(parecido);
+            return parecido;
+        }
+        Estabelecimento estabelecimento = exato.orElseThrow(() -> new RuntimeException("Estabelecimento não encontrado Controller"));
+        metricasService.registrarBuscaPeloNome(estabelecimento);
         return estabelecimento;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<EstabelecimentoSugestaoDTO> buscarAproximado(String nome, int limite) {
+        return trigramIndex.buscar(nome, limite);
+    }
+
+
+    // só memória: sem transação para não pegar conexão do pool a cada tecla
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<EstabelecimentoSugestaoDTO> autocompletar(String prefixo, int limite) {
+        return nomeIndex.buscar(prefixo, limite);
+    }
+
+    // busca por texto em categoria, conveniências, nome e descrição, pelo índice em memória
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PaginaBuscaDTO buscarTexto(String consulta, int pagina, int tamanho) {
+        return textoIndex.buscar(consulta, pagina, tamanho);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoFiltroDTO filtrar(List<String> categorias, List<String> conveniencias, Boolean parceiro,
+                                      Double classificacaoMinima, int pagina, int tamanho) {
+        return facetaIndex.filtrar(categorias, conveniencias, parceiro, classificacaoMinima, pagina, tamanho);
+    }
 
     public EstabelecimentoDTO atualizar(Long id, Estabelecimento dto) {
         Estabelecimento existente = repositoryEstabelecimento.findById(id)
                 .orElseThrow(() -> new RuntimeException("Estabelecimento não encontrado"));
 
         existente.setNome(dto.getNome());
+        existente.setNomeNormalizado(NormalizadorTexto.normalizarNome(dto.getNome()));
         existente.setCategoria(dto.getCategoria());
         existente.setDescricao(dto.getDescricao());
         existente.setTelefone(dto.getTelefone());
@@ -197,6 +256,7 @@ public class EstabelecimentoService {
             }
         }
 
+        existente.setVersaoCatalogo(repositoryEstabelecimento.proximaVersaoCatalogo());
         Estabelecimento atualizado = repositoryEstabelecimento.save(existente);
 
         try {
@@ -205,33 +265,44 @@ public class EstabelecimentoService {
             log.warn("Falha ao criar/atualizar comunidade após update: {}", e.getMessage());
         }
 
+        eventPublisher.publishEvent(EstabelecimentoAlteradoEvent.de(atualizado));
+
         return toDTO(atualizado);
     }
 
 
     public void deletar(Long id) {
+        if (!repositoryEstabelecimento.existsById(id)) {
+            throw new RuntimeException("Estabelecimento não encontrado");
+        }
         repositoryEstabelecimento.deleteById(id);
+        // fica registrado para o delta sync avisar quem já tinha o pin
+        removidoRepository.save(new EstabelecimentoRemovido(null, id, repositoryEstabelecimento.proximaVersaoCatalogo()));
+        eventPublisher.publishEvent(new EstabelecimentoRemovidoEvent(id));
     }
 
     public EstabelecimentoDTO vincularComPlace(Long id, String placeId) {
         Estabelecimento est = repositoryEstabelecimento.findById(id)
                 .orElseThrow(() -> new RuntimeException("Estabelecimento não encontrado"));
 
-        Map<String, Object> details = placesClient.placeDetails(placeId);
-        Map<String, Object> result = (Map<String, Object>) details.get("result");
+        PlaceDetailsResponse details = placesClient.placeDetails(placeId, Prioridade.SEGUNDO_PLANO);
+        if (details == null || details.result() == null) {
+            throw new RuntimeException("Place não encontrado no Google: " + placeId);
+        }
+        PlaceDetails result = details.result();
 
         est.setPlaceId(placeId);
-        est.setNome((String) result.get("name"));
-        est.setEnderecoFormatado((String) result.get("formatted_address"));
-
-        if (result.get("geometry") != null) {
-            Map<String, Object> geometry = (Map<String, Object>) result.get("geometry");
-            Map<String, Object> location = (Map<String, Object>) geometry.get("location");
-            est.setLatitude(((Number) location.get("lat")).doubleValue());
-            est.setLongitude(((Number) location.get("lng")).doubleValue());
+        est.setNome(result.name());
+        est.setNomeNormalizado(NormalizadorTexto.normalizarNome(result.name()));
+        est.setEnderecoFormatado(result.formattedAddress());
+
+        if (result.geometry() != null && result.geometry().location() != null) {
+            est.setLatitude(result.geometry().location().lat());
+            est.setLongitude(result.geometry().location().lng());
         }
 
         est.setParceiro(true);
+        est.setVersaoCatalogo(repositoryEstabelecimento.proximaVersaoCatalogo());
         Estabelecimento salvo = repositoryEstabelecimento.save(est);
 
         try {
@@ -240,6 +311,8 @@ public class EstabelecimentoService {
             log.warn("Falha ao criar comunidade no vincularComPlace: {}", e.getMessage());
         }
 
+        eventPublisher.publishEvent(EstabelecimentoAlteradoEvent.de(salvo));
+
         return toDTO(est);
     }
 
@@ -300,13 +373,4 @@ public class EstabelecimentoService {
                 .fotoUrl(e.getFotoUrl())
                 .build();
     }
-
-    public String normalizarNome(String nome) {
-        if (nome == null) {
-            return null;
-        }
-        String nomeSemAcento = Normalizer.normalize(nome, Normalizer.Form.NFD)
-                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        return nomeSemAcento.toUpperCase().trim();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.eti.qualaboa.map.cache;
+
+import java.time.Duration;
+
+/**
+ * Valor guardado nos caches do Google Places junto com o instante em que foi buscado,
+ * para decidir quando ele deve ser renovado em segundo plano.
+ */
+public record CachedValue<T>(T value, long fetchedAtMillis) {
+
+    public static <T> CachedValue<T> now(T value) {
+        return new CachedValue<>(value, System.currentTimeMillis());
+    }
+
+    public boolean isStale(Duration refreshAfter) {
+        return System.currentTimeMillis() - fetchedAtMillis >= refreshAfter.toMillis();
+    }
+}
@@ -0,0 +1,316 @@
+package com.eti.qualaboa.map.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Segundo nível dos caches do Google Places: um arquivo só de append por cache, com um índice
+ * em memória chave → posição do registro mais recente. As gravações vão para uma thread própria,
+ * então o put não espera o disco; a leitura só acontece em miss do Caffeine.
+ * <p>
+ * Registro: {@code [int tamanho][int crc32][short+utf8 chave][long buscadoEm][long expiraEm][byte tipo][json]}.
+ * Na abertura o arquivo é lido até o primeiro registro incompleto ou corrompido (queda no meio
+ * de uma gravação) e truncado ali. Quando os registros mortos passam dos vivos, o arquivo é
+ * reescrito só com o que ainda vale.
+ */
+@Slf4j
+public class DiskCacheStore implements Closeable {
+
+    private static final byte VALOR = 1;
+    private static final byte REMOCAO = 0;
+    private static final int CABECALHO = 8;
+    // abaixo disso não compensa reescrever o arquivo
+    private static final long MIN_COMPACTACAO = 1 << 20;
+    // o tamanho da chave vai num short; chaves maiores (não deveriam existir) ficam só na memória
+    private static final int MAX_CHAVE = 8_000;
+
+    private final Path arquivo;
+    private final Class<?> tipo;
+    private final ObjectMapper mapper;
+    private final ExecutorService escritor;
+    private final Map<String, Posicao> indice = new ConcurrentHashMap<>();
+
+    private volatile FileChannel canal;
+    // só a thread de escrita mexe nesses dois depois da abertura
+    private long fim;
+    private long bytesVivos;
+
+    private record Posicao(long offset, int tamanho, long expiraEm) {
+    }
+
+    public DiskCacheStore(Path arquivo, Class<?> tipo, ObjectMapper mapper) {
+        this.arquivo = arquivo;
+        this.tipo = tipo;
+        this.mapper = mapper;
+        this.escritor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "places-disk-" + arquivo.getFileName());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Files.createDirectories(arquivo.toAbsolutePath().getParent());
+            canal = abrir(arquivo);
+            carregarIndice();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o cache em disco " + arquivo, e);
+        }
+        log.info("Cache em disco {} aberto com {} entradas", arquivo, indice.size());
+    }
+
+    public CachedValue<?> ler(String chave) {
+        Posicao p = indice.get(chave);
+        if (p == null) {
+            return null;
+        }
+        // vencido: continua no índice até a próxima compactação, que é quem o descarta
+        if (p.expiraEm() <= System.currentTimeMillis()) {
+            return null;
+        }
+        try {
+            Registro r = decodificar(lerBytes(canal, p.offset(), p.tamanho()));
+            if (r == null || !r.chave().equals(chave) || r.json() == null) {
+                return null;
+            }
+            return new CachedValue<>(mapper.readValue(r.json(), tipo), r.buscadoEm());
+        } catch (IOException e) {
+            log.warn("Falha ao ler {} do cache em disco {}: {}", chave, arquivo, e.toString());
+            return null;
+        }
+    }
+
+    public void gravar(String chave, CachedValue<?> valor, long expiraEm) {
+        if (chave.length() > MAX_CHAVE) {
+            return;
+        }
+        escritor.execute(() -> {
+            try {
+                byte[] json = mapper.writeValueAsBytes(valor.value());
+                anexar(chave, valor.fetchedAtMillis(), expiraEm, VALOR, json);
+            } catch (IOException e) {
+                log.warn("Falha ao gravar {} no cache em disco {}: {}", chave, arquivo, e.toString());
+            }
+        });
+    }
+
+    public void remover(String chave) {
+        escritor.execute(() -> {
+            if (!indice.containsKey(chave)) {
+                return;
+            }
+            try {
+                anexar(chave, 0, 0, REMOCAO, new byte[0]);
+            } catch (IOException e) {
+                log.warn("Falha ao remover {} do cache em disco {}: {}", chave, arquivo, e.toString());
+            }
+        });
+    }
+
+    public void limpar() {
+        escritor.execute(() -> {
+            try {
+                indice.clear();
+                canal.truncate(0);
+                fim = 0;
+                bytesVivos = 0;
+            } catch (IOException e) {
+                log.warn("Falha ao limpar o cache em disco {}: {}", arquivo, e.toString());
+            }
+        });
+    }
+
+    public int size() {
+        return indice.size();
+    }
+
+    /** Espera as gravações pendentes e fecha o arquivo. */
+    @Override
+    public void close() throws IOException {
+        escritor.shutdown();
+        try {
+            if (!escritor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Gravações pendentes no cache em disco {} descartadas", arquivo);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        canal.close();
+    }
+
+    private void anexar(String chave, long buscadoEm, long expiraEm, byte tipoRegistro, byte[] json) throws IOException {
+        byte[] registro = codificar(chave, buscadoEm, expiraEm, tipoRegistro, json);
+        long offset = fim;
+        ByteBuffer buf = ByteBuffer.wrap(registro);
+        while (buf.hasRemaining()) {
+            canal.write(buf, offset + buf.position());
+        }
+        fim += registro.length;
+
+        Posicao anterior = tipoRegistro == VALOR
+                ? indice.put(chave, new Posicao(offset, registro.length, expiraEm))
+                : indice.remove(chave);
+        if (anterior != null) {
+            bytesVivos -= anterior.tamanho();
+        }
+        if (tipoRegistro == VALOR) {
+            bytesVivos += registro.length;
+        }
+
+        long mortos = fim - bytesVivos;
+        if (mortos > MIN_COMPACTACAO && mortos > bytesVivos) {
+            compactar();
+        }
+    }
+
+    // reescreve só os registros vivos e não vencidos num arquivo novo e troca de uma vez
+    private void compactar() throws IOException {
+        Path temp = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        long agora = System.currentTimeMillis();
+        long novoFim = 0;
+        Map<String, Posicao> novoIndice = new ConcurrentHashMap<>();
+        try (FileChannel destino = abrir(temp)) {
+            destino.truncate(0);
+            for (Map.Entry<String, Posicao> e : indice.entrySet()) {
+                Posicao p = e.getValue();
+                if (p.expiraEm() <= agora) {
+                    continue;
+                }
+                ByteBuffer buf = ByteBuffer.wrap(lerBytes(canal, p.offset(), p.tamanho()));
+                while (buf.hasRemaining()) {
+                    destino.write(buf, novoFim + buf.position());
+                }
+                novoIndice.put(e.getKey(), new Posicao(novoFim, p.tamanho(), p.expiraEm()));
+                novoFim += p.tamanho();
+            }
+            destino.force(true);
+        }
+        FileChannel antigo = canal;
+        Files.move(temp, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // troca canal e índice juntos; uma leitura concorrente pode errar uma vez e virar miss
+        canal = abrir(arquivo);
+        indice.clear();
+        indice.putAll(novoIndice);
+        antigo.close();
+        log.info("Cache em disco {} compactado: {} -> {} bytes", arquivo, fim, novoFim);
+        fim = novoFim;
+        bytesVivos = novoFim;
+    }
+
+    private void carregarIndice() throws IOException {
+        long tamanho = canal.size();
+        long offset = 0;
+        long agora = System.currentTimeMillis();
+        while (offset + CABECALHO <= tamanho) {
+            ByteBuffer cabecalho = ByteBuffer.wrap(lerBytes(canal, offset, CABECALHO));
+            int corpo = cabecalho.getInt();
+            if (corpo <= 0 || offset + CABECALHO + corpo > tamanho) {
+                break;
+            }
+            int total = CABECALHO + corpo;
+            Registro r = decodificar(lerBytes(canal, offset, total));
+            if (r == null) {
+                break;
+            }
+            Posicao anterior;
+            if (r.json() != null && r.expiraEm() > agora) {
+                anterior = indice.put(r.chave(), new Posicao(offset, total, r.expiraEm()));
+                bytesVivos += total;
+            } else {
+                anterior = indice.remove(r.chave());
+            }
+            if (anterior != null) {
+                bytesVivos -= anterior.tamanho();
+            }
+            offset += total;
+        }
+        if (offset < tamanho) {
+            log.warn("Cache em disco {} com registro incompleto em {}; descartando o resto", arquivo, offset);
+            canal.truncate(offset);
+        }
+        fim = offset;
+        if (fim - bytesVivos > MIN_COMPACTACAO && fim - bytesVivos > bytesVivos) {
+            compactar();
+        }
+    }
+
+    private record Registro(String chave, long buscadoEm, long expiraEm, byte[] json) {
+    }
+
+    private static byte[] codificar(String chave, long buscadoEm, long expiraEm, byte tipo, byte[] json) throws IOException {
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream(json.length + 64);
+        DataOutputStream out = new DataOutputStream(corpo);
+        byte[] bytesChave = chave.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytesChave.length);
+        out.write(bytesChave);
+        out.writeLong(buscadoEm);
+        out.writeLong(expiraEm);
+        out.writeByte(tipo);
+        out.write(json);
+        byte[] bytes = corpo.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer registro = ByteBuffer.allocate(CABECALHO + bytes.length);
+        registro.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+        return registro.array();
+    }
+
+    // null se o CRC não bate; json null para registro de remoção
+    private static Registro decodificar(byte[] registro) {
+        ByteBuffer buf = ByteBuffer.wrap(registro);
+        int corpo = buf.getInt();
+        int esperado = buf.getInt();
+        if (corpo != registro.length - CABECALHO) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(registro, CABECALHO, corpo);
+        if ((int) crc.getValue() != esperado) {
+            return null;
+        }
+        int tamanhoChave = buf.getShort() & 0xFFFF;
+        byte[] chave = new byte[tamanhoChave];
+        buf.get(chave);
+        long buscadoEm = buf.getLong();
+        long expiraEm = buf.getLong();
+        byte tipo = buf.get();
+        byte[] json = null;
+        if (tipo == VALOR) {
+            json = new byte[buf.remaining()];
+            buf.get(json);
+        }
+        return new Registro(new String(chave, StandardCharsets.UTF_8), buscadoEm, expiraEm, json);
+    }
+
+    private static byte[] lerBytes(FileChannel canal, long offset, int tamanho) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(tamanho);
+        while (buf.hasRemaining()) {
+            if (canal.read(buf, offset + buf.position()) < 0) {
+                throw new IOException("Fim inesperado do arquivo em " + offset);
+            }
+        }
+        return buf.array();
+    }
+
+    private static FileChannel abrir(Path arquivo) throws IOException {
+        return FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
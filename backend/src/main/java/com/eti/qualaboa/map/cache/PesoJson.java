@@ -0,0 +1,34 @@
+package com.eti.qualaboa.map.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Peso de uma entrada de cache em bytes: a chave mais o JSON do valor, que é o que o Google
+ * mandou e o que a API devolve. Só roda no put, que já custa uma chamada ao Google.
+ */
+public class PesoJson implements Weigher<Object, Object> {
+
+    // valor que não serializa conta como uma resposta média do Google
+    private static final int PADRAO = 4 * 1024;
+
+    private final ObjectMapper mapper;
+
+    public PesoJson(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        Object conteudo = value instanceof CachedValue<?> cv ? cv.value() : value;
+        int chave = key.toString().getBytes(StandardCharsets.UTF_8).length;
+        try {
+            return chave + mapper.writeValueAsBytes(conteudo).length;
+        } catch (JsonProcessingException e) {
+            return chave + PADRAO;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.eti.qualaboa.map.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica chamadas concorrentes pela mesma chave: a primeira thread executa a busca
+ * e as demais aguardam e recebem o mesmo resultado (ou a mesma exceção).
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> emVoo = new ConcurrentHashMap<>();
+
+    public V execute(K chave, Supplier<V> busca) {
+        CompletableFuture<V> nova = new CompletableFuture<>();
+        CompletableFuture<V> existente = emVoo.putIfAbsent(chave, nova);
+        if (existente != null) {
+            return aguardar(existente);
+        }
+
+        try {
+            V valor = busca.get();
+            nova.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            nova.completeExceptionally(e);
+            throw e;
+        } finally {
+            emVoo.remove(chave, nova);
+        }
+    }
+
+    public int emAndamento() {
+        return emVoo.size();
+    }
+
+    private V aguardar(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+}
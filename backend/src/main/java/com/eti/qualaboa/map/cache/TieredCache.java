@@ -0,0 +1,100 @@
+package com.eti.qualaboa.map.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache do Spring com dois níveis: Caffeine na frente e {@link DiskCacheStore} atrás.
+ * Miss na memória consulta o disco e promove o valor; put grava na memória e manda para o
+ * disco em segundo plano. A validade no disco conta a partir de quando o valor foi buscado
+ * no Google, não de quando foi gravado.
+ */
+public class TieredCache implements Cache {
+
+    private final Cache memoria;
+    private final DiskCacheStore disco;
+    private final Duration validade;
+
+    public TieredCache(Cache memoria, DiskCacheStore disco, Duration validade) {
+        this.memoria = memoria;
+        this.disco = disco;
+        this.validade = validade;
+    }
+
+    @Override
+    public String getName() {
+        return memoria.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return memoria.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper naMemoria = memoria.get(key);
+        if (naMemoria != null) {
+            return naMemoria;
+        }
+        CachedValue<?> noDisco = key instanceof String chave ? disco.ler(chave) : null;
+        if (noDisco == null) {
+            return null;
+        }
+        memoria.put(key, noDisco);
+        return new SimpleValueWrapper(noDisco);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper w = get(key);
+        Object valor = w != null ? w.get() : null;
+        if (valor != null && type != null && !type.isInstance(valor)) {
+            throw new IllegalStateException("Valor em cache não é do tipo " + type.getName() + ": " + valor);
+        }
+        return (T) valor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper w = get(key);
+        if (w != null) {
+            return (T) w.get();
+        }
+        T valor = memoria.get(key, valueLoader);
+        gravarNoDisco(key, valor);
+        return valor;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        memoria.put(key, value);
+        gravarNoDisco(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        memoria.evict(key);
+        if (key instanceof String chave) {
+            disco.remover(chave);
+        }
+    }
+
+    @Override
+    public void clear() {
+        memoria.clear();
+        disco.limpar();
+    }
+
+    // só CachedValue tem o instante da busca, que define até quando vale no disco
+    private void gravarNoDisco(Object key, Object value) {
+        if (key instanceof String chave && value instanceof CachedValue<?> cv) {
+            disco.gravar(chave, cv, cv.fetchedAtMillis() + validade.toMillis());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.eti.qualaboa.map.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * CaffeineCacheManager que coloca o nível em disco atrás dos caches que têm um
+ * {@link DiskCacheStore}; os demais ficam só na memória. Fecha os arquivos no shutdown,
+ * esperando as gravações pendentes.
+ */
+@Slf4j
+public class TieredCaffeineCacheManager extends CaffeineCacheManager implements DisposableBean {
+
+    private final Map<String, DiskCacheStore> discos;
+    private final Map<String, Duration> validades;
+
+    public TieredCaffeineCacheManager(Map<String, DiskCacheStore> discos, Map<String, Duration> validades) {
+        this.discos = discos;
+        this.validades = validades;
+    }
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        Cache memoria = super.adaptCaffeineCache(name, cache);
+        DiskCacheStore disco = discos.get(name);
+        return disco != null ? new TieredCache(memoria, disco, validades.get(name)) : memoria;
+    }
+
+    @Override
+    public void destroy() {
+        for (DiskCacheStore disco : discos.values()) {
+            try {
+                disco.close();
+            } catch (IOException e) {
+                log.warn("Falha ao fechar o cache em disco: {}", e.toString());
+            }
+        }
+    }
+}
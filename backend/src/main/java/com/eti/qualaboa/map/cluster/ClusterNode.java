@@ -0,0 +1,29 @@
+package com.eti.qualaboa.map.cluster;
+
+import com.eti.qualaboa.map.index.PartnerPoint;
+
+/**
+ * Nó de um nível da hierarquia de clusters, em coordenadas Web Mercator normalizadas (0..1).
+ * Quando {@code count == 1} é um parceiro isolado e {@code parceiro} vem preenchido.
+ *
+ * @param expansionZoom primeiro zoom em que o cluster se divide (para o cliente dar zoom ao clicar)
+ */
+public record ClusterNode(
+        double x,
+        double y,
+        int count,
+        int expansionZoom,
+        PartnerPoint parceiro) {
+
+    public boolean isCluster() {
+        return count > 1;
+    }
+
+    public double lat() {
+        return PartnerClusterIndex.yParaLat(y);
+    }
+
+    public double lng() {
+        return PartnerClusterIndex.xParaLng(x);
+    }
+}
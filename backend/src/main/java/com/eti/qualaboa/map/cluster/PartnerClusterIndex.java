@@ -0,0 +1,209 @@
+package com.eti.qualaboa.map.cluster;
+
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hierarquia de clusters dos parceiros, um nível por zoom (mesma ideia do supercluster).
+ * Cada nível agrupa o nível de cima num raio fixo em pixels, então uma consulta devolve no
+ * máximo o que cabe na tela, não importa quantos parceiros existam no viewport.
+ * Quando a versão do {@link PartnerSpatialIndex} muda, a hierarquia é reconstruída numa thread
+ * própria e as consultas seguem na anterior até a troca; só a primeira consulta constrói na hora.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartnerClusterIndex {
+
+    public static final int MIN_ZOOM = 0;
+    // acima disso os parceiros são devolvidos individualmente
+    public static final int MAX_ZOOM = 16;
+    static final double RAIO_PIXELS = 60;
+    private static final double TILE_PIXELS = 256;
+    // junta as escritas de uma rajada numa reconstrução só
+    private static final long ATRASO_RECONSTRUCAO_MS = 500;
+
+    private final PartnerSpatialIndex partnerIndex;
+
+    private final Object rebuildLock = new Object();
+    private volatile Hierarquia hierarquia;
+    private final AtomicBoolean reconstrucaoAgendada = new AtomicBoolean();
+    private final ScheduledExecutorService reconstrutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "partner-cluster-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public List<ClusterNode> getClusters(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        Hierarquia h = atual();
+        int nivel = Math.max(MIN_ZOOM, Math.min(zoom, MAX_ZOOM + 1));
+
+        // y cresce para o sul na projeção
+        double minY = latParaY(maxLat);
+        double maxY = latParaY(minLat);
+        List<ClusterNode> encontrados = new ArrayList<>();
+        if (minLng > maxLng) {
+            // viewport cruzando o antimeridiano
+            h.consultar(nivel, new Envelope(lngParaX(minLng), 1, minY, maxY), encontrados);
+            h.consultar(nivel, new Envelope(0, lngParaX(maxLng), minY, maxY), encontrados);
+        } else {
+            h.consultar(nivel, new Envelope(lngParaX(minLng), lngParaX(maxLng), minY, maxY), encontrados);
+        }
+        return encontrados;
+    }
+
+    private Hierarquia atual() {
+        Hierarquia h = hierarquia;
+        if (h == null) {
+            return reconstruir();
+        }
+        if (h.versao() != partnerIndex.versao() && reconstrucaoAgendada.compareAndSet(false, true)) {
+            reconstrutor.schedule(() -> {
+                // libera antes de ler: uma escrita daqui em diante agenda a próxima
+                reconstrucaoAgendada.set(false);
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    log.error("Falha ao reconstruir a hierarquia de clusters", e);
+                }
+            }, ATRASO_RECONSTRUCAO_MS, TimeUnit.MILLISECONDS);
+        }
+        return h;
+    }
+
+    private Hierarquia reconstruir() {
+        synchronized (rebuildLock) {
+            Hierarquia h = hierarquia;
+            long versao = partnerIndex.versao();
+            if (h == null || h.versao() != versao) {
+                // lê a versão antes dos pontos: se mudar no meio, a próxima consulta agenda de novo
+                h = construir(versao, partnerIndex.todos());
+                hierarquia = h;
+            }
+            return h;
+        }
+    }
+
+    @PreDestroy
+    public void fechar() {
+        reconstrutor.shutdownNow();
+    }
+
+    private static Hierarquia construir(long versao, List<PartnerPoint> pontos) {
+        long inicio = System.nanoTime();
+        List<List<ClusterNode>> nos = new ArrayList<>(MAX_ZOOM + 2);
+        List<STRtree> arvores = new ArrayList<>(MAX_ZOOM + 2);
+        for (int z = MIN_ZOOM; z <= MAX_ZOOM + 1; z++) {
+            nos.add(null);
+            arvores.add(null);
+        }
+
+        List<ClusterNode> atual = new ArrayList<>(pontos.size());
+        for (PartnerPoint p : pontos) {
+            atual.add(new ClusterNode(lngParaX(p.lng()), latParaY(p.lat()), 1, MAX_ZOOM + 1, p));
+        }
+        nos.set(MAX_ZOOM + 1, atual);
+        arvores.set(MAX_ZOOM + 1, arvore(atual));
+
+        for (int z = MAX_ZOOM; z >= MIN_ZOOM; z--) {
+            atual = agrupar(atual, arvores.get(z + 1), z);
+            nos.set(z, atual);
+            arvores.set(z, arvore(atual));
+        }
+
+        log.debug("Hierarquia de clusters com {} parceiros construída em {} ms",
+                pontos.size(), (System.nanoTime() - inicio) / 1_000_000);
+        return new Hierarquia(versao, nos, arvores);
+    }
+
+    // agrupa os nós do nível z+1 que ficam a menos de RAIO_PIXELS entre si no zoom z
+    private static List<ClusterNode> agrupar(List<ClusterNode> nos, STRtree arvore, int zoom) {
+        double r = RAIO_PIXELS / (TILE_PIXELS * Math.pow(2, zoom));
+        boolean[] usado = new boolean[nos.size()];
+        List<ClusterNode> proximo = new ArrayList<>();
+
+        for (int i = 0; i < nos.size(); i++) {
+            if (usado[i]) {
+                continue;
+            }
+            usado[i] = true;
+            ClusterNode no = nos.get(i);
+            double somaX = no.x() * no.count();
+            double somaY = no.y() * no.count();
+            int total = no.count();
+
+            for (Object o : arvore.query(new Envelope(no.x() - r, no.x() + r, no.y() - r, no.y() + r))) {
+                int j = (Integer) o;
+                if (usado[j]) {
+                    continue;
+                }
+                ClusterNode vizinho = nos.get(j);
+                double dx = vizinho.x() - no.x();
+                double dy = vizinho.y() - no.y();
+                if (dx * dx + dy * dy > r * r) {
+                    continue;
+                }
+                usado[j] = true;
+                somaX += vizinho.x() * vizinho.count();
+                somaY += vizinho.y() * vizinho.count();
+                total += vizinho.count();
+            }
+
+            proximo.add(total == no.count() ? no
+                    : new ClusterNode(somaX / total, somaY / total, total, zoom + 1, null));
+        }
+        return proximo;
+    }
+
+    private static STRtree arvore(List<ClusterNode> nos) {
+        STRtree arvore = new STRtree();
+        for (int i = 0; i < nos.size(); i++) {
+            ClusterNode no = nos.get(i);
+            arvore.insert(new Envelope(no.x(), no.x(), no.y(), no.y()), i);
+        }
+        arvore.build();
+        return arvore;
+    }
+
+    static double lngParaX(double lng) {
+        return lng / 360 + 0.5;
+    }
+
+    static double latParaY(double lat) {
+        double sin = Math.sin(Math.toRadians(lat));
+        double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return Math.max(0, Math.min(1, y));
+    }
+
+    static double xParaLng(double x) {
+        return (x - 0.5) * 360;
+    }
+
+    static double yParaLat(double y) {
+        double y2 = (180 - y * 360) * Math.PI / 180;
+        return 360 * Math.atan(Math.exp(y2)) / Math.PI - 90;
+    }
+
+    private record Hierarquia(long versao, List<List<ClusterNode>> nos, List<STRtree> arvores) {
+
+        void consultar(int zoom, Envelope env, List<ClusterNode> destino) {
+            List<ClusterNode> nivel = nos.get(zoom);
+            for (Object o : arvores.get(zoom).query(env)) {
+                destino.add(nivel.get((Integer) o));
+            }
+        }
+    }
+}
@@ -1,13 +1,34 @@
 package com.eti.qualaboa.map.controller;
 
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.dto.CorridorRequestDTO;
+import com.eti.qualaboa.map.dto.PinChangesDTO;
+import com.eti.qualaboa.map.dto.PinClusterDTO;
 import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.places.model.PlaceReviewsResponse;
+import com.eti.qualaboa.map.service.AutocompleteService;
 import com.eti.qualaboa.map.service.MapService;
+import com.eti.qualaboa.map.service.PinSyncService;
+import com.eti.qualaboa.map.service.PinTileService;
+import com.eti.qualaboa.map.tile.PinTile;
+import com.eti.qualaboa.map.tile.TileKey;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/map")
@@ -15,7 +36,20 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class MapController {
 
+    private static final int MAX_NEAREST = 100;
+    private static final int STREAM_FLUSH_A_CADA = 100;
+    private static final int MAX_CHANGES = 2_000;
+    private static final int MAX_PONTOS_ROTA = 1_000;
+    private static final double MAX_LARGURA_CORREDOR = 5_000;
+    private static final int MAX_TERMO_AUTOCOMPLETE = 100;
+    private static final double MAX_LATITUDE = 90;
+
     private final MapService mapService;
+    private final PinTileService pinTileService;
+    private final PinSyncService pinSyncService;
+    private final AutocompleteService autocompleteService;
+    private final MapProperties mapProperties;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/pins/nearby")
     public ResponseEntity<List<PinDTO>> nearby(
@@ -27,15 +61,125 @@ public class MapController {
         return ResponseEntity.ok(pins);
     }
 
+    // NDJSON: um pin por linha, escrito conforme sai do índice/Google, sem montar a lista inteira
+    @GetMapping(value = "/pins/nearby/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> nearbyStream(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "1000") int radius,
+            @RequestParam(required = false) String keyword) {
+        // o flush fica por conta do laço, não a cada pin
+        ObjectWriter writer = objectMapper.writerFor(PinDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody corpo = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // a quebra de linha separa os valores; sem o espaço padrão entre valores de raiz
+                gen.setRootValueSeparator(null);
+                int[] escritos = {0};
+                mapService.streamPinsNearby(lat, lng, radius, keyword, pin -> {
+                    try {
+                        writer.writeValue(gen, pin);
+                        gen.writeRaw('\n');
+                        if (++escritos[0] % STREAM_FLUSH_A_CADA == 0) {
+                            gen.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+
+    // busca enquanto digita; usuário do token + sessao (gerada pelo cliente por aba) identificam cada tecla para o debounce.
+    // Assíncrono: a espera do debounce e a chamada ao Google não seguram a thread do Tomcat
+    @GetMapping("/search/autocomplete")
+    public CompletableFuture<ResponseEntity<List<PinDTO>>> autocomplete(
+            @RequestParam String q,
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5000") int radius,
+            @RequestParam(required = false) String sessao,
+            JwtAuthenticationToken token) {
+        if (q.isBlank() || q.length() > MAX_TERMO_AUTOCOMPLETE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return autocompleteService.sugerir(q, lat, lng, radius, token.getName(), sessao).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/pins/nearest")
+    public ResponseEntity<List<PinDTO>> nearest(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") int k) {
+        if (k < 1 || k > MAX_NEAREST) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<PinDTO> pins = mapService.getNearestPartners(lat, lng, k);
+        return ResponseEntity.ok(pins);
+    }
+
+    // POST porque uma polilinha longa não cabe bem na query string
+    @PostMapping("/pins/corridor")
+    public ResponseEntity<List<PinDTO>> corridor(@RequestBody CorridorRequestDTO dto) {
+        if (dto.rota() == null || dto.rota().size() < 2 || dto.rota().size() > MAX_PONTOS_ROTA
+                || dto.larguraMetros() <= 0 || dto.larguraMetros() > MAX_LARGURA_CORREDOR) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<PinDTO> pins = mapService.getPartnersInCorridor(dto.rota(), dto.larguraMetros());
+        return ResponseEntity.ok(pins);
+    }
+
+    @GetMapping("/pins/changes")
+    public ResponseEntity<PinChangesDTO> changes(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit) {
+        if (since < 0 || limit < 1 || limit > MAX_CHANGES) {
+            return ResponseEntity.badRequest().build();
+        }
+        PinChangesDTO changes = pinSyncService.getChanges(since, limit);
+        return ResponseEntity.ok(changes);
+    }
+
+    @GetMapping("/pins/bbox")
+    public ResponseEntity<List<PinClusterDTO>> bbox(
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng,
+            @RequestParam int zoom) {
+        if (zoom < 0 || zoom > TileKey.MAX_ZOOM || minLat > maxLat
+                || Math.abs(minLat) > MAX_LATITUDE || Math.abs(maxLat) > MAX_LATITUDE) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<PinClusterDTO> pins = mapService.getPinsInBBox(minLat, minLng, maxLat, maxLng, zoom);
+        return ResponseEntity.ok(pins);
+    }
+
+    // If-None-Match com o mesmo ETag vira 304 automaticamente no Spring MVC
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public ResponseEntity<byte[]> tile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        if (!TileKey.valida(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+        PinTile tile = pinTileService.getTile(z, x, y);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(tile.etag())
+                .cacheControl(CacheControl.maxAge(mapProperties.getTiles().getMaxAge()).cachePublic())
+                .body(tile.json());
+    }
+
     @GetMapping("/places/{placeId}")
-    public ResponseEntity<Map<String, Object>> placeDetails(@PathVariable String placeId) {
-        Map<String, Object> details = mapService.getPlaceDetailsCached(placeId);
+    public ResponseEntity<PlaceDetailsResponse> placeDetails(@PathVariable String placeId) {
+        PlaceDetailsResponse details = mapService.getPlaceDetailsCached(placeId);
         return ResponseEntity.ok(details);
     }
 
     @GetMapping("/places/{placeId}/reviews")
-    public ResponseEntity<Map<String, Object>> placeReviews(@PathVariable String placeId) {
-        Map<String, Object> reviews = mapService.getPlaceReviewsCached(placeId);
+    public ResponseEntity<PlaceReviewsResponse> placeReviews(@PathVariable String placeId) {
+        PlaceReviewsResponse reviews = mapService.getPlaceReviewsCached(placeId);
         return ResponseEntity.ok(reviews);
     }
 }
@@ -0,0 +1,11 @@
+package com.eti.qualaboa.map.dto;
+
+import com.eti.qualaboa.map.places.model.LatLng;
+
+import java.util.List;
+
+// rota como polilinha (ordem dos pontos = sentido do trajeto) e largura total do corredor
+public record CorridorRequestDTO(
+        List<LatLng> rota,
+        double larguraMetros
+) {}
@@ -0,0 +1,16 @@
+package com.eti.qualaboa.map.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PinChangesDTO {
+    private Long versao;            // enviar como "since" na próxima chamada
+    private List<PinDTO> upserts;   // pins novos ou alterados
+    private List<Long> removidos;   // ids que saíram do mapa (excluídos ou deixaram de ser parceiros)
+    private Boolean temMais;        // true quando o limite cortou a página: chamar de novo com a versão nova
+}
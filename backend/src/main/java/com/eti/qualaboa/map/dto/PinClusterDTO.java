@@ -0,0 +1,16 @@
+package com.eti.qualaboa.map.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PinClusterDTO {
+    private Double lat;
+    private Double lng;
+    private Integer count;          // quantos parceiros o ponto representa
+    private Boolean isCluster;
+    private Integer expansionZoom;  // zoom em que o cluster se divide (null para pin individual)
+    private PinDTO pin;             // preenchido só quando count == 1
+}
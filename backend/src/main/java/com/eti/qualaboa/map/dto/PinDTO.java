@@ -15,4 +15,5 @@ public class PinDTO {
     private Boolean isPartner;
     private String snippet;    // descrição curta
     private String endereco;
+    private Double distanciaMetros; // distância até o ponto consultado, quando a busca tem um centro
 }
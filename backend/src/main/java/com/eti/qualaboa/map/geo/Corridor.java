@@ -0,0 +1,83 @@
+package com.eti.qualaboa.map.geo;
+
+import com.eti.qualaboa.map.places.model.LatLng;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.linearref.LengthIndexedLine;
+
+import java.util.List;
+
+/**
+ * Corredor em volta de uma rota: o buffer da polilinha com metade da largura para cada lado.
+ * O buffer do JTS trabalha em unidades do plano, então a rota é projetada em metros
+ * (equiretangular centrada na rota), o que basta para trajetos de escala urbana.
+ */
+public final class Corridor {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+    private static final double METROS_POR_GRAU = Math.toRadians(GeoUtils.RAIO_TERRA_METROS);
+
+    private final double lat0;
+    private final double lng0;
+    private final double metrosPorGrauLng;
+    private final LengthIndexedLine linha;
+    private final PreparedGeometry area;
+    private final Envelope envelope;
+
+    private Corridor(List<LatLng> rota, double larguraMetros) {
+        lat0 = rota.stream().mapToDouble(LatLng::lat).average().orElseThrow();
+        lng0 = rota.get(0).lng();
+        metrosPorGrauLng = METROS_POR_GRAU * Math.max(Math.cos(Math.toRadians(lat0)), 0.01);
+
+        Coordinate[] coords = new Coordinate[rota.size()];
+        for (int i = 0; i < coords.length; i++) {
+            coords[i] = projetar(rota.get(i).lat(), rota.get(i).lng());
+        }
+        LineString projetada = GEOMETRY_FACTORY.createLineString(coords);
+        linha = new LengthIndexedLine(projetada);
+        area = PreparedGeometryFactory.prepare(projetada.buffer(larguraMetros / 2));
+
+        // volta o envelope do buffer para graus (x = lng, y = lat) para consultar o índice
+        Envelope m = area.getGeometry().getEnvelopeInternal();
+        envelope = new Envelope(
+                lng0 + m.getMinX() / metrosPorGrauLng, lng0 + m.getMaxX() / metrosPorGrauLng,
+                lat0 + m.getMinY() / METROS_POR_GRAU, lat0 + m.getMaxY() / METROS_POR_GRAU);
+    }
+
+    public static Corridor de(List<LatLng> rota, double larguraMetros) {
+        if (rota == null || rota.size() < 2) {
+            throw new IllegalArgumentException("A rota precisa de pelo menos dois pontos");
+        }
+        if (larguraMetros <= 0) {
+            throw new IllegalArgumentException("A largura do corredor deve ser positiva");
+        }
+        return new Corridor(rota, larguraMetros);
+    }
+
+    /** Envelope em graus; pode passar de ±180 quando a rota cruza o antimeridiano. */
+    public Envelope envelope() {
+        return envelope;
+    }
+
+    public boolean contem(double lat, double lng) {
+        Coordinate c = projetar(lat, lng);
+        return area.getGeometry().getEnvelopeInternal().contains(c)
+                && area.covers(GEOMETRY_FACTORY.createPoint(c));
+    }
+
+    /** Metros percorridos desde o início da rota até o ponto dela mais perto do dado. */
+    public double posicaoNaRota(double lat, double lng) {
+        return linha.project(projetar(lat, lng));
+    }
+
+    private Coordinate projetar(double lat, double lng) {
+        // desenrola a longitude em relação ao início, para rotas que cruzam o antimeridiano
+        double dLng = lng - lng0;
+        dLng -= 360 * Math.floor((dLng + 180) / 360);
+        return new Coordinate(dLng * metrosPorGrauLng, (lat - lat0) * METROS_POR_GRAU);
+    }
+}
@@ -0,0 +1,76 @@
+package com.eti.qualaboa.map.geo;
+
+public final class GeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double lat, double lng, int precisao) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precisao);
+        boolean bitLng = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precisao) {
+            if (bitLng) {
+                double meio = (minLng + maxLng) / 2;
+                if (lng >= meio) {
+                    ch = (ch << 1) | 1;
+                    minLng = meio;
+                } else {
+                    ch = ch << 1;
+                    maxLng = meio;
+                }
+            } else {
+                double meio = (minLat + maxLat) / 2;
+                if (lat >= meio) {
+                    ch = (ch << 1) | 1;
+                    minLat = meio;
+                } else {
+                    ch = ch << 1;
+                    maxLat = meio;
+                }
+            }
+            bitLng = !bitLng;
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // {minLat, minLng, maxLat, maxLng}
+    public static double[] bounds(String hash) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        boolean bitLng = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int valor = indexOf(hash.charAt(i));
+            for (int b = 4; b >= 0; b--) {
+                boolean um = ((valor >> b) & 1) == 1;
+                if (bitLng) {
+                    double meio = (minLng + maxLng) / 2;
+                    if (um) minLng = meio; else maxLng = meio;
+                } else {
+                    double meio = (minLat + maxLat) / 2;
+                    if (um) minLat = meio; else maxLat = meio;
+                }
+                bitLng = !bitLng;
+            }
+        }
+        return new double[]{minLat, minLng, maxLat, maxLng};
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Caractere inválido em geohash: " + c);
+    }
+}
@@ -0,0 +1,29 @@
+package com.eti.qualaboa.map.geo;
+
+import org.locationtech.jts.geom.Envelope;
+
+public final class GeoUtils {
+
+    public static final double RAIO_TERRA_METROS = 6_371_008.8;
+    public static final double METROS_POR_GRAU_LAT = 111_320.0;
+
+    private GeoUtils() {
+    }
+
+    public static double distanciaMetros(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * RAIO_TERRA_METROS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // Envelope (x = lng, y = lat) que contém o círculo de raio dado
+    public static Envelope envelope(double lat, double lng, double raioMetros) {
+        double dLat = raioMetros / METROS_POR_GRAU_LAT;
+        double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        double dLng = Math.min(raioMetros / (METROS_POR_GRAU_LAT * cosLat), 180.0);
+        return new Envelope(lng - dLng, lng + dLng, lat - dLat, lat + dLat);
+    }
+}
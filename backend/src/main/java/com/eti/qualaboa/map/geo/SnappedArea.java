@@ -0,0 +1,50 @@
+package com.eti.qualaboa.map.geo;
+
+/**
+ * Área "arredondada" usada como chave do cache do Google Places: o centro vira a célula
+ * geohash que o contém e o raio sobe para o próximo degrau. A consulta ao Google usa o centro
+ * da célula com um raio que cobre qualquer círculo pedido dentro dela, então requisições
+ * vizinhas compartilham a mesma entrada e o resultado é recortado depois para o círculo exato.
+ * Cada degrau tem uma célula pequena o bastante para degrau + meia diagonal caber nos 50 km do
+ * Google; raio acima do último degrau é atendido como o último degrau.
+ */
+public record SnappedArea(String geohash, int radiusBucket, double centerLat, double centerLng, int upstreamRadius) {
+
+    // degraus de raio em metros; o último deixa folga para a meia diagonal da célula dentro dos 50 km
+    static final int[] RADIUS_BUCKETS = {250, 500, 1_000, 2_000, 5_000, 10_000, 20_000, 30_000, 49_000};
+    // limite do Google para o raio da consulta
+    static final int MAX_RADIUS = 50_000;
+
+    public static SnappedArea of(double lat, double lng, int radiusMeters) {
+        int bucket = bucket(radiusMeters);
+        String hash = GeoHash.encode(lat, lng, precisao(bucket));
+        double[] b = GeoHash.bounds(hash);
+        double centerLat = (b[0] + b[2]) / 2;
+        double centerLng = (b[1] + b[3]) / 2;
+        // meia diagonal da célula: distância máxima entre o centro da célula e qualquer ponto dela
+        double meiaDiagonal = GeoUtils.distanciaMetros(centerLat, centerLng, b[2], b[3]);
+        int upstream = (int) Math.min(MAX_RADIUS, Math.ceil(bucket + meiaDiagonal));
+        return new SnappedArea(hash, bucket, centerLat, centerLng, upstream);
+    }
+
+    public String cacheKey(String keyword) {
+        return "places:" + geohash + ":" + radiusBucket + ":" + (keyword == null ? "" : keyword);
+    }
+
+    static int bucket(int radiusMeters) {
+        for (int b : RADIUS_BUCKETS) {
+            if (radiusMeters <= b) {
+                return b;
+            }
+        }
+        return RADIUS_BUCKETS[RADIUS_BUCKETS.length - 1];
+    }
+
+    // célula bem menor que o raio, para não inflar demais a busca no Google
+    static int precisao(int bucket) {
+        if (bucket <= 1_000) return 7;  // ~153 m
+        if (bucket <= 5_000) return 6;  // ~1,2 km x 0,6 km
+        if (bucket <= 30_000) return 5; // ~4,9 km, meia diagonal ~3,5 km
+        return 6;                       // 49 km: só cabe ~0,7 km de meia diagonal
+    }
+}
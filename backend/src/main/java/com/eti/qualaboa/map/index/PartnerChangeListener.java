@@ -0,0 +1,14 @@
+package com.eti.qualaboa.map.index;
+
+/**
+ * Recebe as alterações do {@link PartnerSpatialIndex} com a posição anterior e a nova,
+ * para que caches derivados invalidem só o que foi tocado.
+ */
+public interface PartnerChangeListener {
+
+    // antes ou depois vêm nulos quando o parceiro entrou ou saiu do índice
+    void onParceiroAlterado(PartnerPoint antes, PartnerPoint depois);
+
+    // o índice foi recarregado inteiro
+    void onRecarregado();
+}
@@ -0,0 +1,27 @@
+package com.eti.qualaboa.map.index;
+
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+
+/**
+ * Visão imutável de um estabelecimento parceiro com apenas o necessário para montar um pin.
+ */
+public record PartnerPoint(
+        Long id,
+        String placeId,
+        String nome,
+        double lat,
+        double lng,
+        String descricao,
+        String enderecoFormatado) {
+
+    public static PartnerPoint de(Estabelecimento e) {
+        return new PartnerPoint(e.getIdEstabelecimento(), e.getPlaceId(), e.getNome(),
+                e.getLatitude(), e.getLongitude(), e.getDescricao(), e.getEnderecoFormatado());
+    }
+
+    public static PartnerPoint de(EstabelecimentoAlteradoEvent e) {
+        return new PartnerPoint(e.idEstabelecimento(), e.placeId(), e.nome(),
+                e.latitude(), e.longitude(), e.descricao(), e.enderecoFormatado());
+    }
+}
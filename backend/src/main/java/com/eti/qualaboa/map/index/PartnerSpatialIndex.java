@@ -0,0 +1,307 @@
+package com.eti.qualaboa.map.index;
+
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.map.geo.Corridor;
+import com.eti.qualaboa.map.geo.GeoUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.ItemVisitor;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Índice espacial em memória (STRtree) dos estabelecimentos parceiros.
+ * O STRtree é imutável depois de construído, então as escritas vão para uma camada de pendentes
+ * que as consultas aplicam por cima da árvore, e uma thread própria reconstrói a árvore pouco
+ * depois, sem parar as consultas, que seguem na árvore anterior até a troca.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartnerSpatialIndex {
+
+    private static final double RAIO_INICIAL_KNN = 500;
+    // meia circunferência da Terra: a partir daí qualquer ponto está dentro
+    private static final double RAIO_MAXIMO_KNN = Math.PI * GeoUtils.RAIO_TERRA_METROS;
+
+    private final EstabelecimentoRepository estRepo;
+
+    // junta as escritas de uma rajada numa reconstrução só
+    private static final long ATRASO_RECONSTRUCAO_MS = 200;
+
+    private final Map<Long, PartnerPoint> partners = new ConcurrentHashMap<>();
+    private volatile Arvore atual = Arvore.de(List.of());
+    private final AtomicBoolean reconstrucaoAgendada = new AtomicBoolean();
+    private final ScheduledExecutorService reconstrutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "partner-index-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+    // muda a cada escrita; índices derivados (clusters) comparam para saber se precisam reconstruir
+    private final AtomicLong versao = new AtomicLong();
+    private final List<PartnerChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        List<Estabelecimento> parceiros = estRepo.findByParceiroTrueAndLatitudeIsNotNullAndLongitudeIsNotNull();
+        Map<Long, PartnerPoint> novos = new HashMap<>();
+        for (Estabelecimento e : parceiros) {
+            novos.put(e.getIdEstabelecimento(), PartnerPoint.de(e));
+        }
+        Arvore nova = Arvore.de(novos.values());
+        synchronized (this) {
+            partners.clear();
+            partners.putAll(novos);
+            atual = nova;
+            versao.incrementAndGet();
+        }
+        listeners.forEach(PartnerChangeListener::onRecarregado);
+        log.info("Índice espacial de parceiros carregado com {} estabelecimentos", partners.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlterado(EstabelecimentoAlteradoEvent event) {
+        PartnerPoint depois = event.parceiro() && event.latitude() != null && event.longitude() != null
+                ? PartnerPoint.de(event) : null;
+        PartnerPoint antes = gravar(event.idEstabelecimento(), depois);
+        notificar(antes, depois);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRemovido(EstabelecimentoRemovidoEvent event) {
+        notificar(gravar(event.idEstabelecimento(), null), null);
+    }
+
+    public List<PartnerPoint> findWithinRadius(double lat, double lng, double radiusMeters) {
+        List<PartnerPoint> dentro = dentroDoRaio(atual, lat, lng, radiusMeters);
+        dentro.sort(Comparator.comparing(PartnerPoint::id));
+        return dentro;
+    }
+
+    /**
+     * Os k parceiros mais próximos, do mais perto para o mais longe.
+     * O STRtree mede distância em graus, então em vez do nearestNeighbour dele o raio de busca
+     * cresce até conter k parceiros: tudo que está mais perto que o k-ésimo já está dentro.
+     */
+    public List<PartnerPoint> findNearest(double lat, double lng, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        Arvore arvore = atual;
+        double raio = RAIO_INICIAL_KNN;
+        List<PartnerPoint> dentro;
+        while (true) {
+            dentro = raio >= RAIO_MAXIMO_KNN ? todosDaArvore(arvore) : dentroDoRaio(arvore, lat, lng, raio);
+            if (dentro.size() >= k || raio >= RAIO_MAXIMO_KNN) {
+                break;
+            }
+            raio *= 4;
+        }
+
+        dentro.sort(Comparator.comparingDouble((PartnerPoint p) -> GeoUtils.distanciaMetros(lat, lng, p.lat(), p.lng()))
+                .thenComparing(PartnerPoint::id));
+        return dentro.size() > k ? new ArrayList<>(dentro.subList(0, k)) : dentro;
+    }
+
+    /**
+     * Entrega cada parceiro dentro do raio direto da árvore, sem montar lista nem ordenar;
+     * usado pelo modo streaming, que não pode ter memória proporcional ao resultado.
+     */
+    public void forEachWithinRadius(double lat, double lng, double radiusMeters, Consumer<PartnerPoint> acao) {
+        visitarDentroDoRaio(atual, lat, lng, radiusMeters, acao);
+    }
+
+    /**
+     * Parceiros dentro do corredor, na ordem em que aparecem ao longo da rota.
+     * Uma consulta só na árvore com o envelope do corredor; o buffer filtra os candidatos.
+     */
+    public List<PartnerPoint> findInCorridor(Corridor corredor) {
+        List<PartnerPoint> dentro = new ArrayList<>();
+        consultar(atual, corredor.envelope(), o -> {
+            PartnerPoint p = (PartnerPoint) o;
+            if (corredor.contem(p.lat(), p.lng())) {
+                dentro.add(p);
+            }
+        });
+        dentro.sort(Comparator.comparingDouble((PartnerPoint p) -> corredor.posicaoNaRota(p.lat(), p.lng()))
+                .thenComparing(PartnerPoint::id));
+        return dentro;
+    }
+
+    private static List<PartnerPoint> dentroDoRaio(Arvore arvore, double lat, double lng, double radiusMeters) {
+        List<PartnerPoint> dentro = new ArrayList<>();
+        visitarDentroDoRaio(arvore, lat, lng, radiusMeters, dentro::add);
+        return dentro;
+    }
+
+    private static void visitarDentroDoRaio(Arvore arvore, double lat, double lng, double radiusMeters,
+                                            Consumer<PartnerPoint> acao) {
+        Envelope env = GeoUtils.envelope(lat, lng, radiusMeters);
+        ItemVisitor visitor = o -> {
+            PartnerPoint p = (PartnerPoint) o;
+            if (GeoUtils.distanciaMetros(lat, lng, p.lat(), p.lng()) <= radiusMeters) {
+                acao.accept(p);
+            }
+        };
+        consultar(arvore, env, visitor);
+    }
+
+    private static void consultar(Arvore arvore, Envelope env, ItemVisitor visitor) {
+        arvore.query(env, visitor);
+        // envelope passando do antimeridiano: consulta também o pedaço do outro lado
+        // (com largura de 360° o envelope já cobre todas as longitudes)
+        if (env.getWidth() < 360) {
+            if (env.getMinX() < -180) {
+                arvore.query(new Envelope(env.getMinX() + 360, 180, env.getMinY(), env.getMaxY()), visitor);
+            }
+            if (env.getMaxX() > 180) {
+                arvore.query(new Envelope(-180, env.getMaxX() - 360, env.getMinY(), env.getMaxY()), visitor);
+            }
+        }
+    }
+
+    private static List<PartnerPoint> todosDaArvore(Arvore arvore) {
+        List<PartnerPoint> todos = new ArrayList<>();
+        arvore.query(new Envelope(-180, 180, -90, 90), o -> todos.add((PartnerPoint) o));
+        return todos;
+    }
+
+    public synchronized int size() {
+        return partners.size();
+    }
+
+    public void addListener(PartnerChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public long versao() {
+        return versao.get();
+    }
+
+    // cópia ordenada por id, para que estruturas derivadas sejam determinísticas
+    public synchronized List<PartnerPoint> todos() {
+        List<PartnerPoint> copia = new ArrayList<>(partners.values());
+        copia.sort(Comparator.comparing(PartnerPoint::id));
+        return copia;
+    }
+
+    // grava no mapa e na camada de pendentes; a árvore fica para a reconstrução agendada
+    private PartnerPoint gravar(Long id, PartnerPoint depois) {
+        PartnerPoint antes;
+        synchronized (this) {
+            if (depois == null && !partners.containsKey(id)) {
+                return null;
+            }
+            antes = depois != null ? partners.put(id, depois) : partners.remove(id);
+            Map<Long, Pendente> pendentes = new HashMap<>(atual.pendentes());
+            pendentes.put(id, new Pendente(depois));
+            atual = new Arvore(atual.arvore(), Map.copyOf(pendentes));
+            versao.incrementAndGet();
+        }
+        if (reconstrucaoAgendada.compareAndSet(false, true)) {
+            reconstrutor.schedule(this::reconstruir, ATRASO_RECONSTRUCAO_MS, TimeUnit.MILLISECONDS);
+        }
+        return antes;
+    }
+
+    private void reconstruir() {
+        // libera antes de ler: uma escrita daqui em diante agenda a próxima
+        reconstrucaoAgendada.set(false);
+        try {
+            Arvore base = atual;
+            List<PartnerPoint> pontos = new ArrayList<>();
+            base.query(new Envelope(-180, 180, -90, 90), o -> pontos.add((PartnerPoint) o));
+            STRtree nova = Arvore.construir(pontos);
+            synchronized (this) {
+                if (atual.arvore() != base.arvore()) {
+                    // recarregado no meio: a árvore nova já tem tudo
+                    return;
+                }
+                // fica só o que foi escrito depois da leitura da base
+                Map<Long, Pendente> restantes = new HashMap<>(atual.pendentes());
+                restantes.entrySet().removeIf(e -> base.pendentes().get(e.getKey()) == e.getValue());
+                atual = new Arvore(nova, Map.copyOf(restantes));
+            }
+            log.debug("Árvore de parceiros reconstruída com {} pontos", pontos.size());
+        } catch (RuntimeException e) {
+            log.error("Falha ao reconstruir a árvore de parceiros", e);
+        }
+    }
+
+    @PreDestroy
+    public void fechar() {
+        reconstrutor.shutdownNow();
+    }
+
+    private void notificar(PartnerPoint antes, PartnerPoint depois) {
+        if (antes == null && depois == null) {
+            return;
+        }
+        for (PartnerChangeListener l : listeners) {
+            l.onParceiroAlterado(antes, depois);
+        }
+    }
+
+    // ponto nulo: o parceiro saiu do índice; cada escrita cria o seu, para a reconstrução comparar por identidade
+    private record Pendente(PartnerPoint ponto) {
+    }
+
+    /**
+     * Árvore construída mais as escritas que chegaram depois dela, trocadas juntas numa
+     * referência só; os pendentes têm precedência sobre o que a árvore tem para o mesmo id.
+     */
+    private record Arvore(STRtree arvore, Map<Long, Pendente> pendentes) {
+
+        static Arvore de(Iterable<PartnerPoint> pontos) {
+            return new Arvore(construir(pontos), Map.of());
+        }
+
+        static STRtree construir(Iterable<PartnerPoint> pontos) {
+            STRtree nova = new STRtree();
+            for (PartnerPoint p : pontos) {
+                nova.insert(new Envelope(p.lng(), p.lng(), p.lat(), p.lat()), p);
+            }
+            nova.build();
+            return nova;
+        }
+
+        void query(Envelope env, ItemVisitor visitor) {
+            if (pendentes.isEmpty()) {
+                arvore.query(env, visitor);
+                return;
+            }
+            arvore.query(env, o -> {
+                if (!pendentes.containsKey(((PartnerPoint) o).id())) {
+                    visitor.visitItem(o);
+                }
+            });
+            for (Pendente p : pendentes.values()) {
+                if (p.ponto() != null && env.contains(p.ponto().lng(), p.ponto().lat())) {
+                    visitor.visitItem(p.ponto());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.eti.qualaboa.map.places;
+
+import com.eti.qualaboa.config.MapProperties;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por taxa de falhas numa janela das últimas chamadas.
+ * Aberto, recusa tudo até o tempo de espera passar; depois deixa passar algumas chamadas
+ * de teste (meio aberto) e fecha só se todas derem certo. Uma falha no meio aberto reabre.
+ */
+public class CircuitBreaker {
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    private final MapProperties.Breaker config;
+    private final LongSupplier relogioNanos;
+
+    // janela circular: true = falha
+    private final boolean[] janela;
+    private int posicao;
+    private int preenchidos;
+    private int falhas;
+
+    private Estado estado = Estado.FECHADO;
+    private long abertoAte;
+    private int tentativasMeioAberto;
+    private int sucessosMeioAberto;
+
+    public CircuitBreaker(MapProperties.Breaker config, LongSupplier relogioNanos) {
+        this.config = config;
+        this.relogioNanos = relogioNanos;
+        this.janela = new boolean[config.getSlidingWindowSize()];
+    }
+
+    /** Reserva a chamada; cada true precisa de um registrarSucesso ou registrarFalha depois. */
+    public synchronized boolean permite() {
+        if (estado == Estado.ABERTO) {
+            if (relogioNanos.getAsLong() - abertoAte < 0) {
+                return false;
+            }
+            estado = Estado.MEIO_ABERTO;
+            tentativasMeioAberto = 0;
+            sucessosMeioAberto = 0;
+        }
+        if (estado == Estado.MEIO_ABERTO) {
+            if (tentativasMeioAberto >= config.getHalfOpenCalls()) {
+                return false;
+            }
+            tentativasMeioAberto++;
+        }
+        return true;
+    }
+
+    /** Desfaz um permite() cuja chamada acabou não sendo feita. */
+    public synchronized void cancelar() {
+        if (estado == Estado.MEIO_ABERTO && tentativasMeioAberto > 0) {
+            tentativasMeioAberto--;
+        }
+    }
+
+    public synchronized void registrarSucesso() {
+        if (estado == Estado.MEIO_ABERTO) {
+            if (++sucessosMeioAberto >= config.getHalfOpenCalls()) {
+                fechar();
+            }
+        } else if (estado == Estado.FECHADO) {
+            registrar(false);
+        }
+    }
+
+    public synchronized void registrarFalha() {
+        if (estado == Estado.MEIO_ABERTO) {
+            abrir();
+        } else if (estado == Estado.FECHADO) {
+            registrar(true);
+            if (preenchidos >= config.getMinimumCalls()
+                    && falhas * 100 >= config.getFailureRateThreshold() * preenchidos) {
+                abrir();
+            }
+        }
+        // aberto: resultado de uma chamada que começou antes de abrir, não conta
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    private void registrar(boolean falha) {
+        if (preenchidos == janela.length) {
+            if (janela[posicao]) {
+                falhas--;
+            }
+        } else {
+            preenchidos++;
+        }
+        janela[posicao] = falha;
+        if (falha) {
+            falhas++;
+        }
+        posicao = (posicao + 1) % janela.length;
+    }
+
+    private void abrir() {
+        estado = Estado.ABERTO;
+        abertoAte = relogioNanos.getAsLong() + config.getOpenDuration().toNanos();
+    }
+
+    private void fechar() {
+        estado = Estado.FECHADO;
+        posicao = 0;
+        preenchidos = 0;
+        falhas = 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.eti.qualaboa.map.places;
+
+// orçamento do Google Places da classe de prioridade acabou; só o cache responde até recarregar
+public class CotaEsgotadaException extends PlacesIndisponivelException {
+
+    public CotaEsgotadaException(String message) {
+        super(message);
+    }
+}
@@ -1,77 +1,159 @@
 package com.eti.qualaboa.map.places;
 
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.places.model.Geometry;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.places.model.PlaceReviewsResponse;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.eti.qualaboa.map.places.model.PlaceSummary;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Interner;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PlacesClient {
 
     private  WebClient webClient = WebClient.builder().build();
 
+    private final PlacesResilience resilience;
+    private final MapProperties properties;
+
+    // o mesmo local retornado por várias buscas vira uma única instância em memória
+    private final Interner<PlaceSummary> places = Interner.newWeakInterner();
+
     @Value("${google.places.apiKey}")
     private String apiKey;
 
-    public Map<String, Object> nearbySearch(double lat, double lng, int radius, String keyword) {
-        String url = UriComponentsBuilder.fromUriString("https://maps.googleapis.com/maps/api/place/nearbysearch/json")
+    @Value("${google.places.baseUrl:https://maps.googleapis.com/maps/api/place}")
+    private String baseUrl;
+
+    // diretório para gravar as respostas como fixtures de teste; vazio = desligado
+    @Value("${google.places.record-dir:}")
+    private String recordDir;
+
+    @PostConstruct
+    void configurarGravacao() {
+        if (StringUtils.hasText(recordDir)) {
+            webClient = WebClient.builder().filter(new PlacesRecorder(Path.of(recordDir))).build();
+            log.warn("Gravando as respostas do Google Places em {}", recordDir);
+        }
+    }
+
+    public PlaceSearchResponse nearbySearch(double lat, double lng, int radius, String keyword, Prioridade prioridade) {
+        String url = UriComponentsBuilder.fromUriString(baseUrl + "/nearbysearch/json")
                 .queryParam("key", apiKey)
                 .queryParam("location", lat + "," + lng)
                 .queryParam("radius", radius)
                 .queryParam("keyword", keyword)
                 .build().toUriString();
 
-        return webClient.get().uri(url)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        return toSearchResponse(resilience.executar("nearbySearch", prioridade, properties.getPlaces().getSearchTimeout(),
+                () -> webClient.get().uri(url)
+                        .retrieve()
+                        .bodyToMono(SearchWire.class)));
     }
 
-    public Map<String, Object> placeDetails(String placeId) {
-        String url = UriComponentsBuilder.fromUriString("https://maps.googleapis.com/maps/api/place/details/json")
+    // página seguinte de uma busca; o Google só aceita o token alguns segundos depois de emiti-lo
+    public PlaceSearchResponse nearbySearchNextPage(String pageToken, Prioridade prioridade) {
+        String url = UriComponentsBuilder.fromUriString(baseUrl + "/nearbysearch/json")
+                .queryParam("key", apiKey)
+                .queryParam("pagetoken", pageToken)
+                .build().toUriString();
+
+        return toSearchResponse(resilience.executar("nearbySearchPage", prioridade, properties.getPlaces().getSearchTimeout(),
+                () -> webClient.get().uri(url)
+                        .retrieve()
+                        .bodyToMono(SearchWire.class)));
+    }
+
+    public PlaceDetailsResponse placeDetails(String placeId, Prioridade prioridade) {
+        String url = UriComponentsBuilder.fromUriString(baseUrl + "/details/json")
                 .queryParam("key", apiKey)
                 .queryParam("place_id", placeId)
                 .queryParam("fields", "place_id,name,formatted_address,geometry,formatted_phone_number,website,opening_hours")
                 .build().toUriString();
 
-        return webClient.get().uri(url)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        return resilience.executar("placeDetails", prioridade, properties.getPlaces().getDetailsTimeout(),
+                () -> webClient.get().uri(url)
+                        .retrieve()
+                        .bodyToMono(PlaceDetailsResponse.class));
     }
 
-    public Map<String, Object> getPlaceReviews(String placeId) {
-        String baseUrl = "https://maps.googleapis.com/maps/api/place/details/json";
+    public PlaceReviewsResponse getPlaceReviews(String placeId, Prioridade prioridade) {
         String fields = "name,rating,reviews,user_ratings_total";
 
-        String url = UriComponentsBuilder.fromUriString(baseUrl)
+        String url = UriComponentsBuilder.fromUriString(baseUrl + "/details/json")
                 .queryParam("key", apiKey)
                 .queryParam("place_id", placeId)
                 .queryParam("fields", fields)
                 .build().toUriString();
 
-        return webClient.get().uri(url)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        return resilience.executar("placeReviews", prioridade, properties.getPlaces().getReviewsTimeout(),
+                () -> webClient.get().uri(url)
+                        .retrieve()
+                        .bodyToMono(PlaceReviewsResponse.class));
     }
 
-    public Map<String, Object> textSearch(String query, double lat, double lng, int radius) {
-        String url = UriComponentsBuilder.fromUriString("https://maps.googleapis.com/maps/api/place/textsearch/json")
+    public PlaceSearchResponse textSearch(String query, double lat, double lng, int radius, Prioridade prioridade) {
+        String url = UriComponentsBuilder.fromUriString(baseUrl + "/textsearch/json")
                 .queryParam("key", apiKey)
                 .queryParam("query", query)
                 .queryParam("location", lat + "," + lng)
                 .queryParam("radius", radius)
                 .build().toUriString();
 
-        return webClient.get().uri(url)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        return toSearchResponse(resilience.executar("textSearch", prioridade, properties.getPlaces().getSearchTimeout(),
+                () -> webClient.get().uri(url)
+                        .retrieve()
+                        .bodyToMono(SearchWire.class)));
+    }
+
+    private PlaceSearchResponse toSearchResponse(SearchWire wire) {
+        if (wire == null) {
+            return null;
+        }
+        List<PlaceSummary> results = new ArrayList<>();
+        if (wire.results() != null) {
+            for (ResultWire r : wire.results()) {
+                if (r.placeId() == null || r.geometry() == null || r.geometry().location() == null) {
+                    continue;
+                }
+                String endereco = r.vicinity() != null ? r.vicinity() : r.formattedAddress();
+                results.add(places.intern(new PlaceSummary(r.placeId(), r.name(),
+                        r.geometry().location().lat(), r.geometry().location().lng(), endereco)));
+            }
+        }
+        return new PlaceSearchResponse(wire.status(), results, wire.nextPageToken());
+    }
+
+    // formato bruto do Google, usado só durante a leitura da resposta
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SearchWire(
+            String status,
+            List<ResultWire> results,
+            @JsonProperty("next_page_token") String nextPageToken) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record ResultWire(
+            @JsonProperty("place_id") String placeId,
+            String name,
+            String vicinity,
+            @JsonProperty("formatted_address") String formattedAddress,
+            Geometry geometry) {
     }
 }
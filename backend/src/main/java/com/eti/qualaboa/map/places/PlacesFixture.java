@@ -0,0 +1,42 @@
+package com.eti.qualaboa.map.places;
+
+import org.springframework.util.DigestUtils;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Par requisição/resposta do Google Places gravado em arquivo, para reproduzir o tráfego
+ * sem chave e sem rede. A chave identifica a requisição pela operação (últimos dois
+ * segmentos do caminho, ex. {@code nearbysearch/json}) e pelos parâmetros em ordem,
+ * sem o parâmetro {@code key}: a fixture não guarda a API key e independe da baseUrl.
+ */
+public record PlacesFixture(String chave, int status, String body) {
+
+    public static String chave(String caminho, String queryCodificada) {
+        String[] segmentos = caminho.split("/");
+        String operacao = segmentos.length >= 2
+                ? segmentos[segmentos.length - 2] + "/" + segmentos[segmentos.length - 1]
+                : caminho;
+
+        List<String> parametros = new ArrayList<>();
+        if (queryCodificada != null && !queryCodificada.isEmpty()) {
+            for (String par : queryCodificada.split("&")) {
+                String decodificado = URLDecoder.decode(par, StandardCharsets.UTF_8);
+                if (!decodificado.startsWith("key=")) {
+                    parametros.add(decodificado);
+                }
+            }
+        }
+        parametros.sort(null);
+        return operacao + "?" + String.join("&", parametros);
+    }
+
+    // nome legível pela operação + hash da chave completa
+    public static String nomeArquivo(String chave) {
+        String operacao = chave.substring(0, chave.indexOf('/'));
+        return operacao + "-" + DigestUtils.md5DigestAsHex(chave.getBytes(StandardCharsets.UTF_8)) + ".json";
+    }
+}
@@ -0,0 +1,17 @@
+package com.eti.qualaboa.map.places;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Google Places fora do ar, lento demais ou recusado pelo circuit breaker/bulkhead
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PlacesIndisponivelException extends RuntimeException {
+
+    public PlacesIndisponivelException(String message) {
+        super(message);
+    }
+
+    public PlacesIndisponivelException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
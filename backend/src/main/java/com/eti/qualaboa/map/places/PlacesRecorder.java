@@ -0,0 +1,54 @@
+package com.eti.qualaboa.map.places;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Filtro do WebClient que grava cada resposta do Google como {@link PlacesFixture} num diretório.
+ * Só para gerar massa de teste (google.places.record-dir); o corpo é lido inteiro e devolvido
+ * intacto para o PlacesClient.
+ */
+@Slf4j
+public class PlacesRecorder implements ExchangeFilterFunction {
+
+    private final Path diretorio;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public PlacesRecorder(Path diretorio) {
+        this.diretorio = diretorio;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return next.exchange(request).flatMap(response -> response.bodyToMono(String.class)
+                .defaultIfEmpty("")
+                .flatMap(body -> Mono.fromRunnable(() -> gravar(request.url(), response.statusCode().value(), body))
+                        // escrita em disco fora das threads do Netty
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(response.mutate().body(body).build())));
+    }
+
+    private void gravar(URI url, int status, String body) {
+        String chave = PlacesFixture.chave(url.getRawPath(), url.getRawQuery());
+        Path arquivo = diretorio.resolve(PlacesFixture.nomeArquivo(chave));
+        try {
+            Files.createDirectories(diretorio);
+            mapper.writeValue(arquivo.toFile(), new PlacesFixture(chave, status, body));
+            log.debug("Resposta do Google gravada em {}", arquivo);
+        } catch (IOException e) {
+            log.warn("Falha ao gravar a fixture {}: {}", arquivo, e.toString());
+        }
+    }
+}
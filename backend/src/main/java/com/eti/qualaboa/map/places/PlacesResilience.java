@@ -0,0 +1,112 @@
+package com.eti.qualaboa.map.places;
+
+import com.eti.qualaboa.config.MapProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Proteção das chamadas ao Google Places: timeout por operação, bulkhead (limite de chamadas
+ * simultâneas), circuit breaker e cota diária por prioridade. Quando o Google degrada ou a cota
+ * acaba, as chamadas falham na hora com {@link PlacesIndisponivelException} em vez de prender
+ * threads do servlet, e quem chamou fica só com o que já está em cache.
+ * <p>
+ * Métricas: {@code places.circuitbreaker.state} (0 fechado, 1 aberto, 2 meio aberto),
+ * {@code places.bulkhead.available}, {@code places.quota.remaining} por classe e
+ * {@code places.calls} por operação e resultado.
+ */
+@Slf4j
+@Component
+public class PlacesResilience {
+
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final Duration maxWait;
+    private final Map<Prioridade, TokenBucket> cotas = new EnumMap<>(Prioridade.class);
+    private final MeterRegistry registry;
+
+    public PlacesResilience(MapProperties properties, MeterRegistry registry) {
+        MapProperties.Places config = properties.getPlaces();
+        this.breaker = new CircuitBreaker(config.getBreaker(), System::nanoTime);
+        this.bulkhead = new Semaphore(config.getMaxConcurrentCalls());
+        this.maxWait = config.getMaxWait();
+        this.registry = registry;
+        MapProperties.Quota quota = config.getQuota();
+        cotas.put(Prioridade.INTERATIVA, new TokenBucket(
+                quota.getInteractive().getPerDay(), quota.getInteractive().getBurst(), System::nanoTime));
+        cotas.put(Prioridade.SEGUNDO_PLANO, new TokenBucket(
+                quota.getBackground().getPerDay(), quota.getBackground().getBurst(), System::nanoTime));
+
+        Gauge.builder("places.circuitbreaker.state", breaker, b -> b.getEstado().ordinal())
+                .description("Estado do circuit breaker do Google Places: 0 fechado, 1 aberto, 2 meio aberto")
+                .register(registry);
+        Gauge.builder("places.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Vagas livres para chamadas simultâneas ao Google Places")
+                .register(registry);
+        cotas.forEach((prioridade, bucket) -> Gauge.builder("places.quota.remaining", bucket, TokenBucket::disponiveis)
+                .description("Chamadas ao Google Places ainda disponíveis na cota")
+                .tag("classe", prioridade.name().toLowerCase())
+                .register(registry));
+    }
+
+    public <T> T executar(String operacao, Prioridade prioridade, Duration timeout, Supplier<Mono<T>> chamada) {
+        if (!entrarNoBulkhead()) {
+            contar(operacao, "rejeitada");
+            throw new PlacesIndisponivelException("Limite de chamadas simultâneas ao Google Places atingido");
+        }
+        try {
+            if (!breaker.permite()) {
+                contar(operacao, "circuito_aberto");
+                throw new PlacesIndisponivelException("Circuit breaker do Google Places aberto");
+            }
+            // a ficha só é gasta por chamada que de fato vai ao Google
+            if (!cotas.get(prioridade).tentarConsumir()) {
+                breaker.cancelar();
+                contar(operacao, "cota_esgotada");
+                throw new CotaEsgotadaException("Cota " + prioridade + " do Google Places esgotada");
+            }
+            try {
+                T resp = chamada.get().timeout(timeout).block();
+                breaker.registrarSucesso();
+                contar(operacao, "sucesso");
+                return resp;
+            } catch (RuntimeException e) {
+                breaker.registrarFalha();
+                contar(operacao, "falha");
+                log.warn("Falha na chamada {} ao Google Places: {}", operacao, e.toString());
+                throw new PlacesIndisponivelException("Falha na chamada " + operacao + " ao Google Places", e);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public CircuitBreaker.Estado getEstado() {
+        return breaker.getEstado();
+    }
+
+    private boolean entrarNoBulkhead() {
+        if (maxWait.isZero()) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void contar(String operacao, String resultado) {
+        registry.counter("places.calls", "operacao", operacao, "resultado", resultado).increment();
+    }
+}
@@ -0,0 +1,7 @@
+package com.eti.qualaboa.map.places;
+
+// classe de cota da chamada ao Google: quem está esperando a resposta ou trabalho de fundo
+public enum Prioridade {
+    INTERATIVA,
+    SEGUNDO_PLANO
+}
@@ -0,0 +1,47 @@
+package com.eti.qualaboa.map.places;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket com recarga contínua: {@code porDia} fichas espalhadas ao longo do dia,
+ * acumulando no máximo {@code rajada}. Cada chamada ao Google consome uma ficha.
+ */
+public class TokenBucket {
+
+    private static final double NANOS_POR_DIA = 86_400e9;
+
+    private final double capacidade;
+    private final double fichasPorNano;
+    private final LongSupplier relogioNanos;
+
+    private double fichas;
+    private long ultimaRecarga;
+
+    public TokenBucket(int porDia, int rajada, LongSupplier relogioNanos) {
+        this.capacidade = rajada;
+        this.fichasPorNano = porDia / NANOS_POR_DIA;
+        this.relogioNanos = relogioNanos;
+        this.fichas = rajada;
+        this.ultimaRecarga = relogioNanos.getAsLong();
+    }
+
+    public synchronized boolean tentarConsumir() {
+        recarregar();
+        if (fichas < 1) {
+            return false;
+        }
+        fichas--;
+        return true;
+    }
+
+    public synchronized double disponiveis() {
+        recarregar();
+        return fichas;
+    }
+
+    private void recarregar() {
+        long agora = relogioNanos.getAsLong();
+        fichas = Math.min(capacidade, fichas + (agora - ultimaRecarga) * fichasPorNano);
+        ultimaRecarga = agora;
+    }
+}
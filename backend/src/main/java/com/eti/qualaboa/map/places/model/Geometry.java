@@ -0,0 +1,7 @@
+package com.eti.qualaboa.map.places.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Geometry(LatLng location) {
+}
@@ -0,0 +1,4 @@
+package com.eti.qualaboa.map.places.model;
+
+public record LatLng(double lat, double lng) {
+}
@@ -0,0 +1,14 @@
+package com.eti.qualaboa.map.places.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record OpeningHours(
+        @JsonProperty("open_now") Boolean openNow,
+        @JsonProperty("weekday_text") List<String> weekdayText) {
+}
@@ -0,0 +1,18 @@
+package com.eti.qualaboa.map.places.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// mesmos nomes do Google para manter o formato que o front já consome
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PlaceDetails(
+        @JsonProperty("place_id") String placeId,
+        String name,
+        @JsonProperty("formatted_address") String formattedAddress,
+        Geometry geometry,
+        @JsonProperty("formatted_phone_number") String formattedPhoneNumber,
+        String website,
+        @JsonProperty("opening_hours") OpeningHours openingHours) {
+}
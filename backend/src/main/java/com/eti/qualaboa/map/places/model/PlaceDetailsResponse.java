@@ -0,0 +1,9 @@
+package com.eti.qualaboa.map.places.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PlaceDetailsResponse(String status, PlaceDetails result) {
+}
@@ -0,0 +1,16 @@
+package com.eti.qualaboa.map.places.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PlaceReviews(
+        String name,
+        Double rating,
+        @JsonProperty("user_ratings_total") Integer userRatingsTotal,
+        List<Review> reviews) {
+}
@@ -0,0 +1,10 @@
+package com.eti.qualaboa.map.places.model;
+
+import java.util.List;
+
+public record PlaceSearchResponse(String status, List<PlaceSummary> results, String nextPageToken) {
+
+    public PlaceSearchResponse {
+        results = results == null ? List.of() : List.copyOf(results);
+    }
+}
@@ -0,0 +1,9 @@
+package com.eti.qualaboa.map.places.model;
+
+/**
+ * Resultado compacto de uma busca no Google Places: só o que vira {@code PinDTO}.
+ * Instâncias iguais são internadas pelo {@code PlacesClient}, então o mesmo local
+ * aparece uma única vez na memória mesmo estando em várias buscas em cache.
+ */
+public record PlaceSummary(String placeId, String name, double lat, double lng, String vicinity) {
+}
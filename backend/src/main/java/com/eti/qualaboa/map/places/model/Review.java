@@ -0,0 +1,16 @@
+package com.eti.qualaboa.map.places.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Review(
+        @JsonProperty("author_name") String authorName,
+        @JsonProperty("profile_photo_url") String profilePhotoUrl,
+        Integer rating,
+        @JsonProperty("relative_time_description") String relativeTimeDescription,
+        String text,
+        Long time) {
+}
@@ -0,0 +1,227 @@
+package com.eti.qualaboa.map.service;
+
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.cache.CachedValue;
+import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.geo.GeoUtils;
+import com.eti.qualaboa.map.geo.SnappedArea;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.places.PlacesIndisponivelException;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.eti.qualaboa.map.places.model.PlaceSummary;
+import com.eti.qualaboa.texto.NormalizadorTexto;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Busca enquanto o usuário digita: estabelecimentos locais pelo nome mais o textSearch do Google.
+ * Três coisas seguram as chamadas ao Google:
+ * <ul>
+ *   <li>cache "autocomplete" por área + termo, compartilhado entre usuários;</li>
+ *   <li>um termo mais longo reaproveita o resultado de um prefixo já em cache quando ele basta;</li>
+ *   <li>debounce: a busca espera um pouco e não sai se a mesma aba (usuário + sessão) já digitou outra tecla.</li>
+ * </ul>
+ * A espera do debounce não prende thread: a requisição fica assíncrona, o agendador só confere a
+ * tecla quando o tempo vence e a chamada ao Google vai para o pool limitado do Places. Tecla
+ * superada responde na hora com o que já havia, sem ocupar nada.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AutocompleteService {
+
+    private final MapService mapService;
+    private final PartnerSpatialIndex partnerIndex;
+    private final CacheManager cacheManager;
+    private final MapProperties properties;
+    private final Executor placesExecutor;
+    private final TaskScheduler autocompleteScheduler;
+
+    // última tecla de cada aba (usuário + sessão); some sozinho depois de um tempo parado
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> ultimaTecla = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    // sessao identifica a aba ou o aparelho, para duas abas da mesma conta não cancelarem uma à outra
+    public CompletableFuture<List<PinDTO>> sugerir(String texto, double lat, double lng, int radiusMeters,
+                                                   String usuario, String sessao) {
+        MapProperties.Autocomplete config = properties.getAutocomplete();
+        String termo = normalizar(texto);
+        String cliente = sessao == null || sessao.isBlank() ? usuario : usuario + "|" + sessao;
+        long tecla = sequencia.incrementAndGet();
+        ultimaTecla.put(cliente, tecla);
+
+        List<PinDTO> locais = locais(termo, lat, lng, radiusMeters);
+        if (termo.length() < config.getMinPrefix()) {
+            return CompletableFuture.completedFuture(limitar(locais));
+        }
+
+        SnappedArea area = SnappedArea.of(lat, lng, radiusMeters);
+        Cache cache = cacheManager.getCache("autocomplete");
+        CachedValue<PlaceSearchResponse> exato = lookup(cache, area.cacheKey(termo));
+        if (exato != null) {
+            return CompletableFuture.completedFuture(mesclar(locais, exato.value().results(), lat, lng, radiusMeters));
+        }
+
+        // um prefixo já buscado serve se o Google devolveu tudo (sem próxima página) ou se sobra o bastante
+        Prefixo prefixo = prefixoEmCache(cache, area, termo);
+        if (prefixo != null && (prefixo.completo() || prefixo.resultados().size() >= config.getLimit())) {
+            log.debug("Autocomplete '{}' servido pelo cache de um prefixo", termo);
+            return CompletableFuture.completedFuture(mesclar(locais, prefixo.resultados(), lat, lng, radiusMeters));
+        }
+
+        Pedido pedido = new Pedido(cliente, tecla, termo, area, locais, prefixo != null ? prefixo.resultados() : List.of(),
+                lat, lng, radiusMeters, new CompletableFuture<>());
+        Duration debounce = config.getDebounce();
+        if (debounce.isZero()) {
+            disparar(pedido);
+        } else {
+            autocompleteScheduler.schedule(() -> disparar(pedido), Instant.now().plus(debounce));
+        }
+        return pedido.resposta();
+    }
+
+    private record Prefixo(List<PlaceSummary> resultados, boolean completo) {
+    }
+
+    // o que a busca precisa depois do debounce; anteriores é o que o prefixo em cache já tinha
+    private record Pedido(String cliente, long tecla, String termo, SnappedArea area, List<PinDTO> locais,
+                          List<PlaceSummary> anteriores, double lat, double lng, int radiusMeters,
+                          CompletableFuture<List<PinDTO>> resposta) {
+    }
+
+    // o prefixo mais longo do termo que está em cache, filtrado pelo termo inteiro
+    private Prefixo prefixoEmCache(Cache cache, SnappedArea area, String termo) {
+        int minimo = properties.getAutocomplete().getMinPrefix();
+        for (int fim = termo.length() - 1; fim >= minimo; fim--) {
+            String prefixo = termo.substring(0, fim).trim();
+            CachedValue<PlaceSearchResponse> cached = lookup(cache, area.cacheKey(prefixo));
+            if (cached == null) {
+                continue;
+            }
+            List<PlaceSummary> filtrados = new ArrayList<>();
+            for (PlaceSummary r : cached.value().results()) {
+                if (casa(normalizar(r.name()), termo)) {
+                    filtrados.add(r);
+                }
+            }
+            return new Prefixo(filtrados, cached.value().nextPageToken() == null);
+        }
+        return null;
+    }
+
+    // roda no agendador quando o debounce vence: só confere a tecla e passa a chamada ao pool do Places
+    private void disparar(Pedido p) {
+        Long ultima = ultimaTecla.getIfPresent(p.cliente());
+        if (ultima != null && ultima != p.tecla()) {
+            log.debug("Autocomplete '{}' superado por outra tecla, sem chamar o Google", p.termo());
+            p.resposta().complete(mesclar(p.locais(), p.anteriores(), p.lat(), p.lng(), p.radiusMeters()));
+            return;
+        }
+        try {
+            placesExecutor.execute(() -> buscarNoGoogle(p));
+        } catch (RejectedExecutionException e) {
+            log.warn("Pool do Places lotado; autocomplete '{}' sem o Google", p.termo());
+            p.resposta().complete(mesclar(p.locais(), p.anteriores(), p.lat(), p.lng(), p.radiusMeters()));
+        }
+    }
+
+    private void buscarNoGoogle(Pedido p) {
+        try {
+            PlaceSearchResponse google = mapService.getTextSearchCached(p.area().cacheKey(p.termo()), p.area(), p.termo());
+            p.resposta().complete(mesclar(p.locais(), google != null ? google.results() : List.of(),
+                    p.lat(), p.lng(), p.radiusMeters()));
+        } catch (PlacesIndisponivelException e) {
+            log.warn("Google Places indisponível no autocomplete: {}", e.getMessage());
+            p.resposta().complete(limitar(p.locais()));
+        } catch (RuntimeException e) {
+            p.resposta().completeExceptionally(e);
+        }
+    }
+
+    // parceiros do índice cujo nome casa com o termo: os que começam com ele primeiro, depois por distância
+    private List<PinDTO> locais(String termo, double lat, double lng, int radiusMeters) {
+        if (termo.isEmpty()) {
+            return List.of();
+        }
+        List<PinDTO> pins = new ArrayList<>();
+        for (PartnerPoint p : partnerIndex.findWithinRadius(lat, lng, radiusMeters)) {
+            String nome = normalizar(p.nome());
+            if (casa(nome, termo)) {
+                PinDTO pin = MapService.toPin(p);
+                pin.setDistanciaMetros(GeoUtils.distanciaMetros(lat, lng, p.lat(), p.lng()));
+                pins.add(pin);
+            }
+        }
+        pins.sort(Comparator.comparing((PinDTO pin) -> !normalizar(pin.getNome()).startsWith(termo))
+                .thenComparing(PinDTO::getDistanciaMetros));
+        return pins;
+    }
+
+    // parceiros primeiro; do Google só o que não é parceiro e está dentro do raio
+    private List<PinDTO> mesclar(List<PinDTO> locais, List<PlaceSummary> google, double lat, double lng, int radiusMeters) {
+        Map<String, PinDTO> pins = new LinkedHashMap<>();
+        for (PinDTO p : locais) {
+            pins.put(p.getPlaceId() != null ? p.getPlaceId() : "local-" + p.getId(), p);
+        }
+        for (PlaceSummary r : google) {
+            double distancia = GeoUtils.distanciaMetros(lat, lng, r.lat(), r.lng());
+            if (distancia > radiusMeters || pins.containsKey(r.placeId())) continue;
+            pins.put(r.placeId(), MapService.toPin(r, distancia));
+        }
+        return limitar(new ArrayList<>(pins.values()));
+    }
+
+    private List<PinDTO> limitar(List<PinDTO> pins) {
+        int limite = properties.getAutocomplete().getLimit();
+        return pins.size() > limite ? pins.subList(0, limite) : pins;
+    }
+
+    // cada palavra do termo tem que ser começo de alguma palavra do nome ("bar do z" casa com "Bar do Zé")
+    static boolean casa(String nome, String termo) {
+        String[] palavrasNome = nome.split(" ");
+        for (String palavra : termo.split(" ")) {
+            boolean achou = false;
+            for (String n : palavrasNome) {
+                if (n.startsWith(palavra)) {
+                    achou = true;
+                    break;
+                }
+            }
+            if (!achou) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // a chave normalizada em minúsculas, para "Bar  do Zé " e "bar do ze" darem a mesma chave e a mesma busca no Google
+    static String normalizar(String texto) {
+        return NormalizadorTexto.normalizarTermo(texto).toLowerCase(Locale.ROOT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CachedValue<PlaceSearchResponse> lookup(Cache cache, String key) {
+        return cache != null ? cache.get(key, CachedValue.class) : null;
+    }
+}
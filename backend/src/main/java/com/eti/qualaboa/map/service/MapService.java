@@ -1,9 +1,26 @@
 package com.eti.qualaboa.map.service;
 
-import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
-import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.cache.CachedValue;
+import com.eti.qualaboa.map.cache.SingleFlight;
+import com.eti.qualaboa.map.cluster.ClusterNode;
+import com.eti.qualaboa.map.cluster.PartnerClusterIndex;
+import com.eti.qualaboa.map.dto.PinClusterDTO;
 import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.geo.Corridor;
+import com.eti.qualaboa.map.geo.GeoUtils;
+import com.eti.qualaboa.map.geo.SnappedArea;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.places.CotaEsgotadaException;
 import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.PlacesIndisponivelException;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.model.LatLng;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.places.model.PlaceReviewsResponse;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.eti.qualaboa.map.places.model.PlaceSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
@@ -11,143 +28,410 @@ import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MapService {
 
-    private final EstabelecimentoRepository estRepo;
+    private final PartnerSpatialIndex partnerIndex;
+    private final PartnerClusterIndex clusterIndex;
     private final PlacesClient placesClient;
     private final CacheManager cacheManager;
+    private final Executor placesExecutor;
+    private final Executor placesRefreshExecutor;
+    private final MapProperties properties;
+    private final SingleFlight<String, Object> inFlight = new SingleFlight<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
 
     public List<PinDTO> getPinsNearby(double lat, double lng, int radiusMeters, String keyword) {
         log.info("Buscando locais próximos de ({}, {}) com raio {}m e keyword='{}'", lat, lng, radiusMeters, keyword);
 
-        // 🔹 1. Buscar parceiros no banco
-        List<Estabelecimento> partners = estRepo.findAllWithinRadiusPostGis(lat, lng, radiusMeters)
-                .stream()
-                .filter(e -> Boolean.TRUE.equals(e.getParceiro()))
-                .collect(Collectors.toList());
+        // 🔹 1. Google em paralelo com timeout; parceiros direto do índice em memória, na própria thread
+        SnappedArea area = SnappedArea.of(lat, lng, radiusMeters);
+        String cacheKey = area.cacheKey(keyword);
+
+        CompletableFuture<PlaceSearchResponse> placesFuture = placesAsync(cacheKey, area, keyword);
+        List<PartnerPoint> partners = partnerIndex.findWithinRadius(lat, lng, radiusMeters);
+
+        // 🔹 2. Mesclar: parceiros primeiro, Google depois
+        PlaceSearchResponse placesResp = placesFuture.join();
 
         Map<String, PinDTO> map = new LinkedHashMap<>();
 
-        for (Estabelecimento e : partners) {
-            PinDTO p = PinDTO.builder()
-                    .id(e.getIdEstabelecimento())
-                    .placeId(e.getPlaceId())
-                    .nome(e.getNome())
-                    .lat(e.getLatitude())
-                    .lng(e.getLongitude())
-                    .isPartner(true)
-                    .snippet(e.getDescricao())
-                    .endereco(e.getEnderecoFormatado())
-                    .build();
-            map.put(e.getPlaceId() != null ? e.getPlaceId() : "local-" + e.getIdEstabelecimento(), p);
-        }
-
-        // 🔹 2. Buscar locais no Google Places API
-        String cacheKey = "places:" + lat + ":" + lng + ":" + radiusMeters + ":" + (keyword == null ? "" : keyword);
-        Map<String, Object> placesResp = getPlacesCached(cacheKey, lat, lng, radiusMeters, keyword);
-
-        if (placesResp != null && placesResp.containsKey("results")) {
-            Object rawResults = placesResp.get("results");
-            if (rawResults instanceof List<?>) {
-                List<?> results = (List<?>) rawResults;
-                log.info("Foram encontrados {} resultados do Google Places.", results.size());
-
-                for (Object obj : results) {
-                    if (!(obj instanceof Map<?, ?> r)) continue;
-
-                    String placeId = (String) r.get("place_id");
-                    if (map.containsKey(placeId)) continue; // evita duplicar parceiros
-
-                    Map<String, Object> geometry = (Map<String, Object>) r.get("geometry");
-                    if (geometry == null) continue;
-
-                    Map<String, Object> location = (Map<String, Object>) geometry.get("location");
-                    if (location == null) continue;
-
-                    Double plat = ((Number) location.get("lat")).doubleValue();
-                    Double plng = ((Number) location.get("lng")).doubleValue();
-
-                    String name = (String) r.get("name");
-                    String vicinity = (String) r.get("vicinity");
-
-                    map.put(placeId, PinDTO.builder()
-                            .id(null)
-                            .placeId(placeId)
-                            .nome(name)
-                            .lat(plat)
-                            .lng(plng)
-                            .isPartner(false)
-                            .snippet(vicinity)
-                            .endereco(vicinity)
-                            .build());
-                }
-            } else {
-                log.warn("Campo 'results' inesperado na resposta do Google: {}", rawResults);
+        for (PartnerPoint e : partners) {
+            PinDTO p = toPin(e);
+            p.setDistanciaMetros(GeoUtils.distanciaMetros(lat, lng, e.lat(), e.lng()));
+            map.put(e.placeId() != null ? e.placeId() : "local-" + e.id(), p);
+        }
+
+
+        List<PlaceSummary> googleResults = placesResp != null ? paginasEmCache(cacheKey, placesResp) : List.of();
+        if (!googleResults.isEmpty()) {
+            log.info("Foram encontrados {} resultados do Google Places.", googleResults.size());
+
+            for (PlaceSummary r : googleResults) {
+                if (map.containsKey(r.placeId())) continue; // evita duplicar parceiros
+
+                // a entrada do cache cobre a célula inteira: recorta para o círculo pedido
+                double distancia = GeoUtils.distanciaMetros(lat, lng, r.lat(), r.lng());
+                if (distancia > radiusMeters) continue;
+
+                map.put(r.placeId(), toPin(r, distancia));
             }
         } else {
             log.warn("Nenhum resultado retornado do Google Places (status={})",
-                    placesResp != null ? placesResp.get("status") : "null");
+                    placesResp != null ? placesResp.status() : "null");
         }
 
         return new ArrayList<>(map.values());
     }
 
-    private Map<String, Object> getPlacesCached(String cacheKey, double lat, double lng, int radius, String keyword) {
+    /**
+     * Mesma busca do getPinsNearby, mas entregando cada pin assim que ele fica pronto:
+     * parceiros direto do índice enquanto o Google é buscado em paralelo, depois os do Google.
+     * Só os placeIds já emitidos ficam em memória, para não duplicar parceiros.
+     */
+    public void streamPinsNearby(double lat, double lng, int radiusMeters, String keyword, Consumer<PinDTO> saida) {
+        SnappedArea area = SnappedArea.of(lat, lng, radiusMeters);
+        String cacheKey = area.cacheKey(keyword);
+        CompletableFuture<PlaceSearchResponse> placesFuture = placesAsync(cacheKey, area, keyword);
+
+        Set<String> emitidos = new HashSet<>();
+        partnerIndex.forEachWithinRadius(lat, lng, radiusMeters, e -> {
+            if (e.placeId() != null) {
+                emitidos.add(e.placeId());
+            }
+            PinDTO p = toPin(e);
+            p.setDistanciaMetros(GeoUtils.distanciaMetros(lat, lng, e.lat(), e.lng()));
+            saida.accept(p);
+        });
+
+        PlaceSearchResponse placesResp = placesFuture.join();
+        if (placesResp == null) {
+            return;
+        }
+        // cada página vai para a saída assim que chega; as seguintes esperam o token do Google valer
+        Consumer<PlaceSearchResponse> emitirPagina = pagina -> {
+            for (PlaceSummary r : pagina.results()) {
+                double distancia = GeoUtils.distanciaMetros(lat, lng, r.lat(), r.lng());
+                if (distancia > radiusMeters || !emitidos.add(r.placeId())) continue;
+                saida.accept(toPin(r, distancia));
+            }
+        };
+        emitirPagina.accept(placesResp);
+        paginasSeguintes(cacheKey, placesResp, 1, buscadaEm(cacheKey), Prioridade.INTERATIVA, emitirPagina);
+    }
+
+    public List<PinDTO> getNearestPartners(double lat, double lng, int k) {
+        List<PartnerPoint> parceiros = partnerIndex.findNearest(lat, lng, k);
+        log.info("{} parceiros mais próximos de ({}, {})", parceiros.size(), lat, lng);
+
+        List<PinDTO> pins = new ArrayList<>(parceiros.size());
+        for (PartnerPoint e : parceiros) {
+            PinDTO p = toPin(e);
+            p.setDistanciaMetros(GeoUtils.distanciaMetros(lat, lng, e.lat(), e.lng()));
+            pins.add(p);
+        }
+        return pins;
+    }
+
+    public List<PinDTO> getPartnersInCorridor(List<LatLng> rota, double larguraMetros) {
+        Corridor corredor = Corridor.de(rota, larguraMetros);
+        List<PartnerPoint> parceiros = partnerIndex.findInCorridor(corredor);
+        log.info("{} parceiros no corredor de {} m ao longo de {} pontos", parceiros.size(), larguraMetros, rota.size());
+
+        List<PinDTO> pins = new ArrayList<>(parceiros.size());
+        for (PartnerPoint e : parceiros) {
+            pins.add(toPin(e));
+        }
+        return pins;
+    }
+
+    public List<PinClusterDTO> getPinsInBBox(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        List<ClusterNode> nos = clusterIndex.getClusters(minLat, minLng, maxLat, maxLng, zoom);
+        log.info("Viewport ({}, {}) - ({}, {}) no zoom {}: {} pins/clusters", minLat, minLng, maxLat, maxLng, zoom, nos.size());
+
+        List<PinClusterDTO> resultado = new ArrayList<>(nos.size());
+        for (ClusterNode no : nos) {
+            if (no.isCluster()) {
+                resultado.add(PinClusterDTO.builder()
+                        .lat(no.lat())
+                        .lng(no.lng())
+                        .count(no.count())
+                        .isCluster(true)
+                        .expansionZoom(no.expansionZoom())
+                        .build());
+            } else {
+                PartnerPoint p = no.parceiro();
+                resultado.add(PinClusterDTO.builder()
+                        .lat(p.lat())
+                        .lng(p.lng())
+                        .count(1)
+                        .isCluster(false)
+                        .pin(toPin(p))
+                        .build());
+            }
+        }
+        return resultado;
+    }
+
+    static PinDTO toPin(PartnerPoint e) {
+        return PinDTO.builder()
+                .id(e.id())
+                .placeId(e.placeId())
+                .nome(e.nome())
+                .lat(e.lat())
+                .lng(e.lng())
+                .isPartner(true)
+                .snippet(e.descricao())
+                .endereco(e.enderecoFormatado())
+                .build();
+    }
+
+    static PinDTO toPin(PlaceSummary r, double distancia) {
+        return PinDTO.builder()
+                .id(null)
+                .placeId(r.placeId())
+                .nome(r.name())
+                .lat(r.lat())
+                .lng(r.lng())
+                .isPartner(false)
+                .snippet(r.vicinity())
+                .endereco(r.vicinity())
+                .distanciaMetros(distancia)
+                .build();
+    }
+
+    // timeout ou falha de uma fonte não derruba a outra: devolve o valor padrão e segue
+    // pool do Google lotado: responde sem o Google em vez de fazer a chamada lenta na thread da requisição
+    private CompletableFuture<PlaceSearchResponse> placesAsync(String cacheKey, SnappedArea area, String keyword) {
+        try {
+            return withTimeout(
+                    CompletableFuture.supplyAsync(() -> getPlacesCached(cacheKey, area, keyword), placesExecutor),
+                    properties.getPins().getPlacesTimeout().toMillis(), null, "Google Places");
+        } catch (RejectedExecutionException e) {
+            log.warn("Pool do Google Places lotado; respondendo só com os parceiros");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeoutMs, T fallback, String fonte) {
+        return future
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    log.warn("Fonte {} não respondeu a tempo ou falhou: {}", fonte, ex.toString());
+                    return fallback;
+                });
+    }
+
+    private PlaceSearchResponse getPlacesCached(String cacheKey, SnappedArea area, String keyword) {
+        return getCached("places", cacheKey, prioridade -> placesClient.nearbySearch(
+                area.centerLat(), area.centerLng(), area.upstreamRadius(),
+                keyword == null ? "bar|restaurant" : keyword, prioridade));
+    }
+
+    // páginas seguintes do nearbySearch (next_page_token): cada uma fica no cache com a própria chave,
+    // então a próxima requisição retoma de onde parou. Junta as que já estão em cache e, a partir da
+    // primeira que falta, busca em segundo plano sem segurar a resposta
+    private List<PlaceSummary> paginasEmCache(String cacheKey, PlaceSearchResponse primeira) {
         Cache cache = cacheManager.getCache("places");
-        if (cache != null) {
-            Map<String, Object> cached = cache.get(cacheKey, Map.class);
-            if (cached != null) {
-                log.info("Cache HIT para {}", cacheKey);
-                return cached;
+        List<PlaceSummary> resultados = new ArrayList<>(primeira.results());
+        PlaceSearchResponse atual = primeira;
+        long buscadaEm = buscadaEm(cacheKey);
+        for (int pagina = 1; temProxima(atual, pagina); pagina++) {
+            CachedValue<PlaceSearchResponse> cached = lookup(cache, chavePagina(cacheKey, pagina));
+            if (cached == null) {
+                buscarPaginasAsync(cacheKey, atual, pagina, buscadaEm);
+                break;
             }
+            atual = cached.value();
+            buscadaEm = cached.fetchedAtMillis();
+            resultados.addAll(atual.results());
         }
+        return resultados;
+    }
 
-        Map<String, Object> resp = placesClient.nearbySearch(lat, lng, radius,
-                keyword == null ? "bar|restaurant" : keyword);
-        if (cache != null && resp != null) {
-            cache.put(cacheKey, resp);
+    private void buscarPaginasAsync(String cacheKey, PlaceSearchResponse anterior, int pagina, long buscadaEm) {
+        String flightKey = "places|" + chavePagina(cacheKey, pagina);
+        if (!refreshing.add(flightKey)) {
+            return;
+        }
+        try {
+            placesRefreshExecutor.execute(() -> {
+                try {
+                    paginasSeguintes(cacheKey, anterior, pagina, buscadaEm, Prioridade.SEGUNDO_PLANO, p -> { });
+                } finally {
+                    refreshing.remove(flightKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(flightKey);
+            log.debug("Fila de renovação cheia, páginas de {} ficam para depois", cacheKey);
         }
-        return resp;
     }
 
-    public Map<String, Object> getPlaceDetailsCached(String placeId) {
-        Cache cache = cacheManager.getCache("placeDetails");
-        if (cache != null) {
-            Map<String, Object> cached = cache.get(placeId, Map.class);
-            if (cached != null) {
-                log.info("Cache HIT para detalhes {}", placeId);
-                return cached;
+    // percorre as páginas a partir de 'pagina', do cache ou do Google, entregando cada uma à saída
+    private void paginasSeguintes(String cacheKey, PlaceSearchResponse anterior, int pagina, long buscadaEm,
+                                  Prioridade prioridade, Consumer<PlaceSearchResponse> saida) {
+        Cache cache = cacheManager.getCache("places");
+        PlaceSearchResponse atual = anterior;
+        try {
+            for (; temProxima(atual, pagina); pagina++) {
+                String chave = chavePagina(cacheKey, pagina);
+                String token = atual.nextPageToken();
+                long tokenEmitidoEm = buscadaEm;
+                CachedValue<PlaceSearchResponse> proxima = inFlight("places|" + chave, () -> {
+                    CachedValue<PlaceSearchResponse> cached = lookup(cache, chave);
+                    if (cached != null) {
+                        return cached;
+                    }
+                    PlaceSearchResponse resp = buscarPagina(token, tokenEmitidoEm, prioridade);
+                    if (resp == null) {
+                        return null;
+                    }
+                    CachedValue<PlaceSearchResponse> valor = CachedValue.now(resp);
+                    if (cache != null) {
+                        cache.put(chave, valor);
+                    }
+                    return valor;
+                });
+                if (proxima == null) {
+                    return;
+                }
+                atual = proxima.value();
+                buscadaEm = proxima.fetchedAtMillis();
+                saida.accept(atual);
             }
+        } catch (PlacesIndisponivelException e) {
+            log.debug("Páginas de {} interrompidas na {}: {}", cacheKey, pagina, e.toString());
+        }
+    }
+
+    // o token só vale alguns segundos depois de emitido; antes disso o Google responde INVALID_REQUEST
+    private PlaceSearchResponse buscarPagina(String token, long tokenEmitidoEm, Prioridade prioridade) {
+        long espera = properties.getPlaces().getPageTokenDelay().toMillis();
+        esperarAte(tokenEmitidoEm + espera);
+        PlaceSearchResponse resp = placesClient.nearbySearchNextPage(token, prioridade);
+        // token recém-emitido que ainda não valia: uma nova tentativa; token antigo já venceu, não adianta
+        if (resp != null && "INVALID_REQUEST".equals(resp.status())
+                && System.currentTimeMillis() - tokenEmitidoEm < 2 * espera) {
+            esperarAte(System.currentTimeMillis() + espera);
+            resp = placesClient.nearbySearchNextPage(token, prioridade);
         }
+        return resp != null && "OK".equals(resp.status()) ? resp : null;
+    }
+
+    private boolean temProxima(PlaceSearchResponse atual, int pagina) {
+        return atual.nextPageToken() != null && pagina < properties.getPlaces().getMaxPages();
+    }
 
-        Map<String, Object> details = placesClient.placeDetails(placeId);
-        if (cache != null && details != null) {
-            cache.put(placeId, details);
+    private long buscadaEm(String cacheKey) {
+        CachedValue<Object> cached = lookup(cacheManager.getCache("places"), cacheKey);
+        return cached != null ? cached.fetchedAtMillis() : System.currentTimeMillis();
+    }
+
+    private static String chavePagina(String cacheKey, int pagina) {
+        return cacheKey + "|p" + pagina;
+    }
+
+    private static void esperarAte(long instanteMillis) {
+        long espera = instanteMillis - System.currentTimeMillis();
+        if (espera <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlacesIndisponivelException("Interrompido esperando a próxima página do Google Places", e);
         }
-        return details;
     }
 
-    public Map<String, Object> getPlaceReviewsCached(String placeId) {
-        Cache cache = cacheManager.getCache("placeReviews");
-        if (cache != null) {
-            Map<String, Object> cached = cache.get(placeId, Map.class);
-            if (cached != null) {
-                log.info("Cache HIT para reviews {}", placeId);
-                return cached;
+    // textSearch no cache "autocomplete", compartilhado entre usuários pela chave área + termo
+    public PlaceSearchResponse getTextSearchCached(String cacheKey, SnappedArea area, String termo) {
+        return getCached("autocomplete", cacheKey, prioridade -> placesClient.textSearch(
+                termo, area.centerLat(), area.centerLng(), area.upstreamRadius(), prioridade));
+    }
+
+    public PlaceDetailsResponse getPlaceDetailsCached(String placeId) {
+        return getCached("placeDetails", placeId, prioridade -> placesClient.placeDetails(placeId, prioridade));
+    }
+
+    public PlaceReviewsResponse getPlaceReviewsCached(String placeId) {
+        return getCached("placeReviews", placeId, prioridade -> placesClient.getPlaceReviews(placeId, prioridade));
+    }
+
+    // o loader recebe a prioridade: quem pediu espera (interativa), a renovação roda em segundo plano
+    private <T> T getCached(String cacheName, String key, Function<Prioridade, T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        String flightKey = cacheName + "|" + key;
+
+        CachedValue<T> cached = lookup(cache, key);
+        if (cached != null) {
+            log.info("Cache HIT em {} para {}", cacheName, key);
+            // stale-while-revalidate: responde já com o valor antigo e renova em segundo plano
+            if (cached.isStale(properties.getCache().getRefreshAfter())) {
+                refreshAsync(flightKey, cache, key, loader);
             }
+            return cached.value();
         }
 
-        Map<String, Object> reviews = placesClient.getPlaceReviews(placeId);
+        // só uma chamada ao Google por chave; requisições concorrentes esperam o mesmo resultado
+        return inFlight(flightKey, () -> {
+            CachedValue<T> preenchido = lookup(cache, key);
+            if (preenchido != null) {
+                return preenchido.value();
+            }
+            return fetchAndStore(cache, key, () -> loader.apply(Prioridade.INTERATIVA));
+        });
+    }
 
-        if (cache != null && reviews != null) {
-            cache.put(placeId, reviews);
+    private <T> void refreshAsync(String flightKey, Cache cache, String key, Function<Prioridade, T> loader) {
+        if (!refreshing.add(flightKey)) {
+            return;
         }
+        try {
+            placesRefreshExecutor.execute(() -> {
+                try {
+                    inFlight(flightKey, () -> fetchAndStore(cache, key, () -> loader.apply(Prioridade.SEGUNDO_PLANO)));
+                } catch (CotaEsgotadaException e) {
+                    log.debug("Cota de segundo plano esgotada, mantendo valor antigo de {}", flightKey);
+                } catch (RuntimeException e) {
+                    log.warn("Falha ao renovar {} em segundo plano: {}", flightKey, e.toString());
+                } finally {
+                    refreshing.remove(flightKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(flightKey);
+            log.debug("Fila de renovação cheia, mantendo valor antigo de {}", flightKey);
+        }
+    }
+
+    private <T> T fetchAndStore(Cache cache, String key, Supplier<T> loader) {
+        T resp = loader.get();
+        if (cache != null && resp != null) {
+            cache.put(key, CachedValue.now(resp));
+        }
+        return resp;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T inFlight(String flightKey, Supplier<T> busca) {
+        return (T) inFlight.execute(flightKey, busca::get);
+    }
 
-        return reviews;
+    @SuppressWarnings("unchecked")
+    private <T> CachedValue<T> lookup(Cache cache, String key) {
+        return cache != null ? cache.get(key, CachedValue.class) : null;
     }
 }
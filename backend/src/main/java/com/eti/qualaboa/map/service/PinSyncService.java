@@ -0,0 +1,66 @@
+package com.eti.qualaboa.map.service;
+
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.model.EstabelecimentoRemovido;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRemovidoRepository;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.map.dto.PinChangesDTO;
+import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delta sync dos pins de parceiros: devolve só o que mudou depois da versão que o cliente já tem.
+ * Alterações e exclusões são intercaladas pela versão do catálogo, então a versão devolvida
+ * é sempre um ponto consistente para retomar.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PinSyncService {
+
+    private final EstabelecimentoRepository estRepo;
+    private final EstabelecimentoRemovidoRepository removidoRepo;
+
+    @Transactional(readOnly = true)
+    public PinChangesDTO getChanges(long since, int limite) {
+        // um a mais em cada lista para saber se a página foi cortada
+        List<Estabelecimento> alterados = estRepo.findByVersaoCatalogoGreaterThanOrderByVersaoCatalogoAsc(since, Limit.of(limite + 1));
+        List<EstabelecimentoRemovido> excluidos = removidoRepo.findByVersaoGreaterThanOrderByVersaoAsc(since, Limit.of(limite + 1));
+
+        List<PinDTO> upserts = new ArrayList<>();
+        List<Long> removidos = new ArrayList<>();
+        long versao = since;
+        int a = 0;
+        int r = 0;
+        while (a + r < limite && (a < alterados.size() || r < excluidos.size())) {
+            boolean proximoEhAlterado = r >= excluidos.size()
+                    || (a < alterados.size() && alterados.get(a).getVersaoCatalogo() < excluidos.get(r).getVersao());
+            if (proximoEhAlterado) {
+                Estabelecimento e = alterados.get(a++);
+                versao = e.getVersaoCatalogo();
+                if (Boolean.TRUE.equals(e.getParceiro()) && e.getLatitude() != null && e.getLongitude() != null) {
+                    upserts.add(MapService.toPin(PartnerPoint.de(e)));
+                } else {
+                    // deixou de ser parceiro ou perdeu a localização: some do mapa
+                    removidos.add(e.getIdEstabelecimento());
+                }
+            } else {
+                EstabelecimentoRemovido x = excluidos.get(r++);
+                versao = x.getVersao();
+                removidos.add(x.getIdEstabelecimento());
+            }
+        }
+
+        boolean temMais = a < alterados.size() || r < excluidos.size();
+        log.info("Delta sync desde {}: {} upserts, {} removidos, versão {}", since, upserts.size(), removidos.size(), versao);
+        return new PinChangesDTO(versao, upserts, removidos, temMais);
+    }
+}
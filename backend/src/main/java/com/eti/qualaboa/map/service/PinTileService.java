@@ -0,0 +1,87 @@
+package com.eti.qualaboa.map.service;
+
+import com.eti.qualaboa.map.dto.PinClusterDTO;
+import com.eti.qualaboa.map.index.PartnerChangeListener;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.tile.PinTile;
+import com.eti.qualaboa.map.tile.TileKey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+
+/**
+ * Pins dos parceiros endereçados por tile (z/x/y). Cada tile é o resultado agrupado de
+ * {@link MapService#getPinsInBBox} para a área do tile, serializado uma única vez e guardado
+ * com o ETag. Uma escrita só invalida os tiles em volta da posição antiga e da nova.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PinTileService implements PartnerChangeListener {
+
+    private final MapService mapService;
+    private final PartnerSpatialIndex partnerIndex;
+    private final Cache<TileKey, PinTile> pinTileCache;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    void registrar() {
+        partnerIndex.addListener(this);
+    }
+
+    public PinTile getTile(int z, int x, int y) {
+        // get com loader: uma invalidação concorrente espera a geração terminar e então remove
+        return pinTileCache.get(new TileKey(z, x, y), this::gerar);
+    }
+
+    private PinTile gerar(TileKey key) {
+        List<PinClusterDTO> pins = mapService.getPinsInBBox(key.minLat(), key.minLng(), key.maxLat(), key.maxLng(), key.z());
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(pins);
+            return new PinTile(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o tile " + key, e);
+        }
+    }
+
+    @Override
+    public void onParceiroAlterado(PartnerPoint antes, PartnerPoint depois) {
+        if (antes != null) {
+            invalidarEmVolta(antes);
+        }
+        if (depois != null) {
+            invalidarEmVolta(depois);
+        }
+    }
+
+    @Override
+    public void onRecarregado() {
+        pinTileCache.invalidateAll();
+    }
+
+    // o centro de um cluster fica a menos de um tile do parceiro, então basta o tile e os 8 vizinhos
+    private void invalidarEmVolta(PartnerPoint p) {
+        for (int z = 0; z <= TileKey.MAX_ZOOM; z++) {
+            TileKey centro = TileKey.de(p.lat(), p.lng(), z);
+            int n = 1 << z;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    int x = Math.floorMod(centro.x() + dx, n);
+                    int y = centro.y() + dy;
+                    if (y >= 0 && y < n) {
+                        pinTileCache.invalidate(new TileKey(z, x, y));
+                    }
+                }
+            }
+        }
+        log.debug("Tiles em volta de ({}, {}) invalidados", p.lat(), p.lng());
+    }
+}
@@ -0,0 +1,12 @@
+package com.eti.qualaboa.map.tile;
+
+/**
+ * Tile já serializado: o JSON pronto para a resposta e o ETag calculado sobre ele.
+ */
+public record PinTile(byte[] json, String etag) {
+
+    // peso no cache: o corpo mais um valor fixo para o objeto, o array e o ETag
+    public int bytes() {
+        return json.length + 96;
+    }
+}
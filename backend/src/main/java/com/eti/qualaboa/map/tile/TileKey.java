@@ -0,0 +1,52 @@
+package com.eti.qualaboa.map.tile;
+
+/**
+ * Endereço de um tile no esquema z/x/y do Web Mercator (o mesmo do Google Maps e do OSM).
+ */
+public record TileKey(int z, int x, int y) {
+
+    public static final int MAX_ZOOM = 22;
+
+    public static boolean valida(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM) {
+            return false;
+        }
+        int n = 1 << z;
+        return x >= 0 && x < n && y >= 0 && y < n;
+    }
+
+    public static TileKey de(double lat, double lng, int z) {
+        int n = 1 << z;
+        double latRad = Math.toRadians(lat);
+        int x = (int) Math.floor((lng + 180) / 360 * n);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * n);
+        return new TileKey(z, Math.max(0, Math.min(n - 1, x)), Math.max(0, Math.min(n - 1, y)));
+    }
+
+    public double minLng() {
+        return x / (double) (1 << z) * 360 - 180;
+    }
+
+    public double maxLng() {
+        return (x + 1) / (double) (1 << z) * 360 - 180;
+    }
+
+    // y cresce para o sul: a borda de cima do tile é a latitude máxima
+    public double maxLat() {
+        return latDaLinha(y);
+    }
+
+    public double minLat() {
+        return latDaLinha(y + 1);
+    }
+
+    private double latDaLinha(int linha) {
+        double n = Math.PI * (1 - 2.0 * linha / (1 << z));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    @Override
+    public String toString() {
+        return z + "/" + x + "/" + y;
+    }
+}
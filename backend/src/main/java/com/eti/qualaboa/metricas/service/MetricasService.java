@@ -14,7 +14,6 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.text.Normalizer;
 import java.time.LocalDateTime;
 
 @Service
@@ -54,29 +53,12 @@ public class MetricasService {
         logFavoritosRepository.save(novoFavorito);
     }
 
+    // quem chama já achou o estabelecimento (pelo nome exato ou pelo mais parecido), não busca de novo
     @Transactional
-    public void registrarBuscaPeloNome(String nome) {
-        String nomeBusca = normalizarNome(nome);
-        Estabelecimento estabelecimento = estabelecimentoRepository.findByNomeNormalizado(nomeBusca)
-                .orElseThrow(() -> new RuntimeException("Estabelecimento não encontrado"));
-
-        Boolean nomeEncontrado = estabelecimento.getNomeNormalizado().equals(nomeBusca);
-
-        if (nomeEncontrado) {
-            LogBuscaPeloNome buscaPeloNome = new LogBuscaPeloNome();
-            buscaPeloNome.setEstabelecimento(estabelecimento);
-            buscaPeloNome.setDataHoraBusca(LocalDateTime.now());
-            logBuscaPeloNomeRepository.save(buscaPeloNome);
-        }
-
-    }
-
-    public String normalizarNome(String nome) {
-        if (nome == null) {
-            return null;
-        }
-        String nomeSemAcento = Normalizer.normalize(nome, Normalizer.Form.NFD)
-                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        return nomeSemAcento.toUpperCase().trim();
+    public void registrarBuscaPeloNome(Estabelecimento estabelecimento) {
+        LogBuscaPeloNome buscaPeloNome = new LogBuscaPeloNome();
+        buscaPeloNome.setEstabelecimento(estabelecimento);
+        buscaPeloNome.setDataHoraBusca(LocalDateTime.now());
+        logBuscaPeloNomeRepository.save(buscaPeloNome);
     }
 }
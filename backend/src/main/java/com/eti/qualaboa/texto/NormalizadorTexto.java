@@ -0,0 +1,149 @@
+package com.eti.qualaboa.texto;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de nomes e termos de busca usada pelo nomeNormalizado, pelas métricas e pelos
+ * índices em memória: sem acento, maiúsculas e sem espaços nas pontas.
+ * <p>
+ * Os caracteres até o fim do bloco de acentos combinantes (U+036F) passam por uma tabela
+ * calculada uma vez com o próprio Normalizer, então o resultado é o mesmo da versão com NFD +
+ * regex. Texto que já está normalizado volta como a mesma instância, sem alocar nada; qualquer
+ * caractere fora da tabela (ou que vira mais de um, como "ß") cai no caminho antigo.
+ */
+public final class NormalizadorTexto {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern NAO_ALFANUMERICO = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final int TAMANHO_TABELA = 0x370;
+    private static final char DESCARTAR = '\uFFFE';
+    private static final char COMPLEXO = '\uFFFF';
+    // caractere → versão sem acento em maiúscula, DESCARTAR para acento solto, COMPLEXO para o caminho antigo
+    private static final char[] TABELA = new char[TAMANHO_TABELA];
+
+    static {
+        for (char c = 0; c < TAMANHO_TABELA; c++) {
+            String dobrado = nomeLento(String.valueOf(c), false);
+            TABELA[c] = dobrado.isEmpty() ? DESCARTAR : dobrado.length() == 1 ? dobrado.charAt(0) : COMPLEXO;
+        }
+    }
+
+    private NormalizadorTexto() {
+    }
+
+    /** Formato do nomeNormalizado: sem acento, maiúsculas, sem espaços nas pontas. Nulo continua nulo. */
+    public static String normalizarNome(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        int n = texto.length();
+        int i = 0;
+        // caminho rápido: enquanto cada caractere vira ele mesmo não há nada a copiar
+        while (i < n) {
+            char c = texto.charAt(i);
+            if (c >= TAMANHO_TABELA || TABELA[c] != c) {
+                break;
+            }
+            i++;
+        }
+        if (i == n) {
+            return precisaTrim(texto) ? texto.trim() : texto;
+        }
+
+        char[] saida = new char[n];
+        texto.getChars(0, i, saida, 0);
+        int tamanho = i;
+        for (; i < n; i++) {
+            char c = texto.charAt(i);
+            char m = c < TAMANHO_TABELA ? TABELA[c] : COMPLEXO;
+            if (m == COMPLEXO) {
+                return nomeLento(texto, true);
+            }
+            if (m != DESCARTAR) {
+                saida[tamanho++] = m;
+            }
+        }
+        int inicio = 0;
+        while (inicio < tamanho && saida[inicio] <= ' ') {
+            inicio++;
+        }
+        while (tamanho > inicio && saida[tamanho - 1] <= ' ') {
+            tamanho--;
+        }
+        return new String(saida, inicio, tamanho - inicio);
+    }
+
+    /**
+     * Formato das chaves dos índices e do autocomplete: o do nomeNormalizado com tudo que não é
+     * letra ou dígito ASCII reduzido a um espaço. Nulo vira texto vazio.
+     */
+    public static String normalizarTermo(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        if (jaEhTermo(texto)) {
+            return texto;
+        }
+        int n = texto.length();
+        char[] saida = new char[n];
+        int tamanho = 0;
+        boolean separar = false;
+        for (int i = 0; i < n; i++) {
+            char c = texto.charAt(i);
+            char m = c < TAMANHO_TABELA ? TABELA[c] : COMPLEXO;
+            if (m == COMPLEXO) {
+                return termoLento(texto);
+            }
+            if (m == DESCARTAR) {
+                continue;
+            }
+            if (alfanumerico(m)) {
+                if (separar && tamanho > 0) {
+                    saida[tamanho++] = ' ';
+                }
+                separar = false;
+                saida[tamanho++] = m;
+            } else {
+                separar = true;
+            }
+        }
+        return new String(saida, 0, tamanho);
+    }
+
+    // [A-Z0-9] com espaços simples no meio
+    private static boolean jaEhTermo(String texto) {
+        int n = texto.length();
+        for (int i = 0; i < n; i++) {
+            char c = texto.charAt(i);
+            if (c == ' ') {
+                if (i == 0 || i == n - 1 || texto.charAt(i - 1) == ' ') {
+                    return false;
+                }
+            } else if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean precisaTrim(String texto) {
+        return !texto.isEmpty() && (texto.charAt(0) <= ' ' || texto.charAt(texto.length() - 1) <= ' ');
+    }
+
+    private static boolean alfanumerico(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static String nomeLento(String texto, boolean trim) {
+        String semAcento = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        String maiusculo = semAcento.toUpperCase(Locale.ROOT);
+        return trim ? maiusculo.trim() : maiusculo;
+    }
+
+    private static String termoLento(String texto) {
+        return NAO_ALFANUMERICO.matcher(nomeLento(texto, false)).replaceAll(" ").trim();
+    }
+}
@@ -1,6 +1,7 @@
 package com.eti.qualaboa.configtest;
 
 import com.eti.qualaboa.config.CacheConfig;
+import com.github.benmanes.caffeine.cache.Policy;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,13 +10,21 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {CacheConfig.class})
+@TestPropertySource(properties = {
+        "map.cache.specs.promocoesAtivas.expire-after-write=1h",
+        "map.cache.specs.promocoesAtivas.max-weight=1KB"
+})
 public class CacheConfigTest {
 
     @Autowired
@@ -36,6 +45,13 @@ public class CacheConfigTest {
         assertThat(cacheManager.getCacheNames()).contains("places", "placeDetails");
     }
 
+    @Test
+    @DisplayName("Deve registrar o cache 'placeReviews' usado pelo endpoint de avaliações")
+    void deveTerCachePlaceReviews() {
+
+        assertThat(cacheManager.getCache("placeReviews")).isNotNull();
+    }
+
     @Test
     @DisplayName("Deve ser capaz de usar os caches (put, get, evict)")
     void deveArmazenarEBuscarDadosDoCache() {
@@ -59,4 +75,53 @@ public class CacheConfigTest {
 
         assertThat(placesCache.get(key)).isNull();
     }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativo(String nome) {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cacheManager.getCache(nome).getNativeCache();
+    }
+
+    @Test
+    @DisplayName("Cada cache deve ter a própria validade e o próprio limite em bytes")
+    void cadaCache_DeveTerSuaPropriaConfiguracao() {
+        Policy<Object, Object> reviews = nativo("placeReviews").policy();
+        Policy<Object, Object> places = nativo("places").policy();
+
+        assertThat(reviews.expireAfterWrite().orElseThrow().getExpiresAfter(TimeUnit.HOURS)).isEqualTo(12);
+        assertThat(places.expireAfterWrite().orElseThrow().getExpiresAfter(TimeUnit.HOURS)).isEqualTo(24);
+        assertThat(reviews.eviction().orElseThrow().isWeighted()).isTrue();
+        assertThat(reviews.eviction().orElseThrow().getMaximum()).isEqualTo(8L * 1024 * 1024);
+        assertThat(places.isRecordingStats()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Cache novo deve vir só da configuração, sem perder os padrões")
+    void cacheNovo_DeveVirDaConfiguracao() {
+        Policy<Object, Object> promocoes = nativo("promocoesAtivas").policy();
+
+        assertThat(cacheManager.getCacheNames()).contains("places", "placeDetails", "placeReviews", "promocoesAtivas");
+        assertThat(promocoes.expireAfterWrite().orElseThrow().getExpiresAfter()).isEqualTo(Duration.ofHours(1));
+        assertThat(promocoes.eviction().orElseThrow().getMaximum()).isEqualTo(1024);
+    }
+
+    @Test
+    @DisplayName("Nome de cache não configurado não deve criar cache sem limite")
+    void cacheDesconhecido_DeveSerNulo() {
+
+        assertThat(cacheManager.getCache("naoConfigurado")).isNull();
+    }
+
+    @Test
+    @DisplayName("Entradas devem ser pesadas pelo tamanho em JSON e despejadas acima do limite")
+    void entradasGrandes_DevemSerDespejadas() {
+        Cache promocoes = cacheManager.getCache("promocoesAtivas");
+
+        promocoes.put("a", "x".repeat(600));
+        promocoes.put("b", "y".repeat(600));
+        nativo("promocoesAtivas").cleanUp();
+
+        assertThat(nativo("promocoesAtivas").policy().eviction().orElseThrow().weightedSize().orElseThrow())
+                .isLessThanOrEqualTo(1024);
+        assertThat(nativo("promocoesAtivas").stats().evictionCount()).isEqualTo(1);
+    }
 }
\ No newline at end of file
@@ -2,12 +2,16 @@ package com.eti.qualaboa.configtest;
 
 import com.eti.qualaboa.comunidade.repository.ComunidadeRepository;
 import com.eti.qualaboa.comunidade.service.ComunidadeService;
+import com.eti.qualaboa.config.MapProperties;
 import com.eti.qualaboa.config.SecurityConfig;
 import com.eti.qualaboa.cupom.service.CupomService;
 import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
 import com.eti.qualaboa.estabelecimento.service.EstabelecimentoService;
 import com.eti.qualaboa.evento.service.EventoService;
+import com.eti.qualaboa.map.service.AutocompleteService;
 import com.eti.qualaboa.map.service.MapService;
+import com.eti.qualaboa.map.service.PinSyncService;
+import com.eti.qualaboa.map.service.PinTileService;
 import com.eti.qualaboa.promocao.service.PromocaoService;
 import com.eti.qualaboa.usuario.domain.entity.Usuario;
 import com.eti.qualaboa.usuario.dto.UsuarioRequestDTO;
@@ -39,7 +43,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 
 @WebMvcTest
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, MapProperties.class})
 public class SecurityConfigTest {
 
     @Autowired
@@ -60,6 +64,12 @@ public class SecurityConfigTest {
     private CupomService cupomService;
     @MockBean
     private MapService mapService;
+    @MockBean
+    private PinTileService pinTileService;
+    @MockBean
+    private PinSyncService pinSyncService;
+    @MockBean
+    private AutocompleteService autocompleteService;
 
     // Mocks adicionados para corrigir o erro do ComunidadeController
     @MockBean
@@ -4,9 +4,14 @@ import com.eti.qualaboa.config.SecurityConfig;
 import com.eti.qualaboa.cupom.dto.CupomDTO;
 import com.eti.qualaboa.enums.TipoCupom;
 import com.eti.qualaboa.estabelecimento.controller.EstabelecimentoController;
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoBuscaDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoDTO;
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoFiltradoDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoRegisterDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoResponseDTO;
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.dto.PaginaBuscaDTO;
+import com.eti.qualaboa.estabelecimento.dto.ResultadoFiltroDTO;
 import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
 import com.eti.qualaboa.estabelecimento.service.EstabelecimentoService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,6 +27,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
@@ -188,4 +194,106 @@ public class EstabelecimentoControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].codigo", is("TESTE10")));
     }
+
+    @Test
+    @DisplayName("Deve devolver as sugestões do índice de nomes (GET /estabelecimentos/autocomplete)")
+    void deveAutocompletar() throws Exception {
+        when(estabelecimentoService.autocompletar("bar do", 10))
+                .thenReturn(List.of(new EstabelecimentoSugestaoDTO(1L, "Bar do Teste", true)));
+
+        mockMvc.perform(get("/estabelecimentos/autocomplete")
+                        .param("q", "bar do")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].idEstabelecimento", is(1)))
+                .andExpect(jsonPath("$[0].nome", is("Bar do Teste")))
+                .andExpect(jsonPath("$[0].parceiro", is(true)));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar limite acima do máximo no autocomplete")
+    void deveRejeitarLimiteAutocomplete() throws Exception {
+        mockMvc.perform(get("/estabelecimentos/autocomplete")
+                        .param("q", "bar")
+                        .param("limite", "500")
+                        .with(jwt()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve devolver candidatos tolerantes a erro (GET /estabelecimentos/busca-aproximada)")
+    void deveBuscarAproximado() throws Exception {
+        when(estabelecimentoService.buscarAproximado("bar do tesre", 10))
+                .thenReturn(List.of(new EstabelecimentoSugestaoDTO(1L, "Bar do Teste", true)));
+
+        mockMvc.perform(get("/estabelecimentos/busca-aproximada")
+                        .param("q", "bar do tesre")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nome", is("Bar do Teste")));
+    }
+
+    @Test
+    @DisplayName("buscarNome com aproximado=true deve repassar o modo ao serviço")
+    void deveBuscarPeloNomeAproximado() throws Exception {
+        when(estabelecimentoService.buscarPorNome("bar do tes", true)).thenReturn(estabelecimento);
+
+        mockMvc.perform(get("/estabelecimentos/buscarNome")
+                        .param("nomeEstabelecimento", "bar do tes")
+                        .param("aproximado", "true")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nome", is("Bar do Teste")));
+    }
+
+    @Test
+    @DisplayName("Deve devolver a página da busca por texto (GET /estabelecimentos/busca)")
+    void deveBuscarPorTexto() throws Exception {
+        when(estabelecimentoService.buscarTexto("musica ao vivo", 1, 5)).thenReturn(new PaginaBuscaDTO(
+                List.of(new EstabelecimentoBuscaDTO(1L, "Bar do Teste", "Bar", true, 2.5)), 6, 1, 5));
+
+        mockMvc.perform(get("/estabelecimentos/busca")
+                        .param("q", "musica ao vivo")
+                        .param("pagina", "1")
+                        .param("tamanho", "5")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(6)))
+                .andExpect(jsonPath("$.itens[0].nome", is("Bar do Teste")));
+    }
+
+    @Test
+    @DisplayName("Busca por texto com página negativa ou tamanho acima do máximo deve dar 400")
+    void buscaTexto_ParametrosInvalidos_DeveDar400() throws Exception {
+        mockMvc.perform(get("/estabelecimentos/busca").param("q", "bar").param("pagina", "-1").with(jwt()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/estabelecimentos/busca").param("q", "bar").param("tamanho", "51").with(jwt()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por facetas e devolver as contagens (GET /estabelecimentos/filtro)")
+    void deveFiltrarPorFacetas() throws Exception {
+        when(estabelecimentoService.filtrar(List.of("bar", "pub"), List.of("wi-fi"), true, 4.0, 0, 20))
+                .thenReturn(new ResultadoFiltroDTO(
+                        List.of(new EstabelecimentoFiltradoDTO(1L, "Bar do Teste", "Bar", true, 4.5)), 1, 0, 20,
+                        Map.of("categoria", Map.of("Bar", 1))));
+
+        mockMvc.perform(get("/estabelecimentos/filtro")
+                        .param("categoria", "bar", "pub")
+                        .param("conveniencia", "wi-fi")
+                        .param("parceiro", "true")
+                        .param("classificacaoMin", "4.0")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itens[0].nome", is("Bar do Teste")))
+                .andExpect(jsonPath("$.facetas.categoria.Bar", is(1)));
+    }
+
+    @Test
+    @DisplayName("Filtro com tamanho fora do limite deve dar 400")
+    void filtro_TamanhoInvalido_DeveDar400() throws Exception {
+        mockMvc.perform(get("/estabelecimentos/filtro").param("tamanho", "0").with(jwt()))
+                .andExpect(status().isBadRequest());
+    }
 }
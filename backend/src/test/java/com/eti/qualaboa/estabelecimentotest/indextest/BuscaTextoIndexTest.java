@@ -0,0 +1,104 @@
+package com.eti.qualaboa.estabelecimentotest.indextest;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoBuscaDTO;
+import com.eti.qualaboa.estabelecimento.dto.PaginaBuscaDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.index.BuscaTextoIndex;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BuscaTextoIndexTest {
+
+    private BuscaTextoIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BuscaTextoIndex(null);
+        index.indexar(1L, "Bar do Zé", "Bar", "Boteco com música ao vivo às sextas",
+                List.of("Wi-Fi", "Música ao vivo"), true);
+        index.indexar(2L, "Cantô", "Karaokê", "Karaokê toda noite, música ao vivo no sábado",
+                List.of("Karaokê", "Estacionamento"), false);
+        index.indexar(3L, "Pizzaria Bella", "Restaurante", "Pizza no forno a lenha e karaokê no aniversário",
+                List.of("Estacionamento"), false);
+        index.indexar(4L, "Choperia Central", "Bar", "Chope gelado e petiscos", List.of("Wi-Fi"), false);
+    }
+
+    private List<Long> ids(PaginaBuscaDTO pagina) {
+        return pagina.itens().stream().map(EstabelecimentoBuscaDTO::idEstabelecimento).toList();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar acento e maiúsculas e exigir todas as palavras da busca")
+    void buscar_TodasAsPalavras() {
+        assertThat(ids(index.buscar("MUSICA ao vivo", 0, 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.buscar("música ao vivo karaokê", 0, 10))).containsExactly(2L);
+        assertThat(index.buscar("música sertaneja", 0, 10).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Termo na categoria e nas conveniências deve ficar acima de termo só na descrição")
+    void buscar_OrdenaPorRelevancia() {
+        PaginaBuscaDTO resultado = index.buscar("karaoke", 0, 10);
+
+        assertThat(ids(resultado)).containsExactly(2L, 3L);
+        assertThat(resultado.itens().get(0).relevancia()).isGreaterThan(resultado.itens().get(1).relevancia());
+    }
+
+    @Test
+    @DisplayName("Deve paginar mantendo o total de resultados")
+    void buscar_Paginacao() {
+        List<Long> todos = ids(index.buscar("bar wi fi", 0, 10));
+
+        PaginaBuscaDTO primeira = index.buscar("bar wi fi", 0, 1);
+        PaginaBuscaDTO segunda = index.buscar("bar wi fi", 1, 1);
+        PaginaBuscaDTO alem = index.buscar("bar wi fi", 5, 1);
+
+        assertThat(todos).hasSize(2);
+        assertThat(primeira.total()).isEqualTo(2);
+        assertThat(ids(primeira)).containsExactly(todos.get(0));
+        assertThat(ids(segunda)).containsExactly(todos.get(1));
+        assertThat(alem.itens()).isEmpty();
+        assertThat(alem.total()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Eventos de alteração e remoção devem atualizar o índice")
+    void eventos_DevemAtualizarIndice() {
+        index.onAlterado(new EstabelecimentoAlteradoEvent(4L, "Choperia Central", null, false, null, null,
+                "Chope gelado e karaokê às quintas", null, "Bar", List.of("Karaokê"), null));
+        index.onRemovido(new EstabelecimentoRemovidoEvent(2L));
+
+        assertThat(ids(index.buscar("karaoke", 0, 10))).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(ids(index.buscar("petiscos", 0, 10))).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Carga deve manter o índice anterior no ar e não perder escritas feitas durante ela")
+    void carregar_DeveTrocarSemEsvaziar() {
+        EstabelecimentoRepository repo = mock(EstabelecimentoRepository.class);
+        BuscaTextoIndex carregado = new BuscaTextoIndex(repo);
+        carregado.indexar(1L, "Bar do Zé", "Bar", "Música ao vivo", List.of(), true);
+        when(repo.findAllBy()).thenAnswer(inv -> {
+            assertThat(ids(carregado.buscar("musica", 0, 10))).containsExactly(1L);
+            carregado.indexar(5L, "Boteco Novo", "Bar", "Samba de roda", List.of(), false);
+            return List.of(Estabelecimento.builder().idEstabelecimento(2L).nome("Cantô").categoria("Karaokê").build());
+        });
+
+        carregado.carregar();
+
+        assertThat(ids(carregado.buscar("musica", 0, 10))).isEmpty();
+        assertThat(ids(carregado.buscar("samba", 0, 10))).containsExactly(5L);
+        assertThat(carregado.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,166 @@
+package com.eti.qualaboa.estabelecimentotest.indextest;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoFiltradoDTO;
+import com.eti.qualaboa.estabelecimento.dto.ResultadoFiltroDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.index.FacetaIndex;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FacetaIndexTest {
+
+    private FacetaIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetaIndex(null);
+        index.indexar(1L, "Bar do Zé", "Bar", List.of("Wi-Fi", "Música ao vivo"), true, 4.6);
+        index.indexar(2L, "Cantô", "Karaokê", List.of("Wi-Fi", "Estacionamento"), false, 4.2);
+        index.indexar(3L, "Pizzaria Bella", "Restaurante", List.of("Estacionamento"), false, 3.8);
+        index.indexar(4L, "Choperia Central", "bar", List.of("Wi-Fi"), true, null);
+    }
+
+    private List<Long> ids(ResultadoFiltroDTO resultado) {
+        return resultado.itens().stream().map(EstabelecimentoFiltradoDTO::idEstabelecimento).toList();
+    }
+
+    @Test
+    @DisplayName("Categorias combinam com OU e conveniências com E, sem diferenciar acento e maiúsculas")
+    void filtrar_CombinaFacetas() {
+        assertThat(ids(index.filtrar(List.of("BAR", "karaoke"), null, null, null, 0, 10)))
+                .containsExactly(1L, 2L, 4L);
+        assertThat(ids(index.filtrar(null, List.of("wi fi", "estacionamento"), null, null, 0, 10)))
+                .containsExactly(2L);
+        assertThat(ids(index.filtrar(List.of("bar"), List.of("Wi-Fi"), true, null, 0, 10)))
+                .containsExactly(1L, 4L);
+        assertThat(ids(index.filtrar(null, null, false, null, 0, 10))).containsExactly(2L, 3L);
+        assertThat(index.filtrar(List.of("boate"), null, null, null, 0, 10).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Classificação mínima deve ser exata mesmo fora das meias estrelas e deixar de fora quem não tem nota")
+    void filtrar_ClassificacaoMinima() {
+        assertThat(ids(index.filtrar(null, null, null, 4.0, 0, 10))).containsExactly(1L, 2L);
+        assertThat(ids(index.filtrar(null, null, null, 4.3, 0, 10))).containsExactly(1L);
+        assertThat(ids(index.filtrar(null, null, null, 0.0, 0, 10))).containsExactly(1L, 2L, 3L);
+        assertThat(index.filtrar(null, null, null, 5.5, 0, 10).total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Contagens de categoria ignoram o próprio filtro; as demais são sobre o resultado")
+    void filtrar_Contagens() {
+        ResultadoFiltroDTO resultado = index.filtrar(List.of("bar"), List.of("wi-fi"), null, null, 0, 10);
+
+        assertThat(resultado.facetas().get("categoria")).containsOnly(entry("Bar", 2), entry("Karaokê", 1));
+        assertThat(resultado.facetas().get("conveniencias"))
+                .containsOnly(entry("Wi-Fi", 2), entry("Música ao vivo", 1));
+        assertThat(resultado.facetas().get("parceiro")).containsOnly(entry("true", 2), entry("false", 0));
+        assertThat(resultado.facetas().get("classificacaoMinima")).containsEntry("4", 1).containsEntry("5", 0);
+    }
+
+    @Test
+    @DisplayName("Deve paginar na ordem do índice mantendo o total")
+    void filtrar_Paginacao() {
+        ResultadoFiltroDTO segunda = index.filtrar(null, null, null, null, 1, 3);
+
+        assertThat(segunda.total()).isEqualTo(4);
+        assertThat(ids(segunda)).containsExactly(4L);
+        assertThat(index.filtrar(null, null, null, null, 9, 3).itens()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Eventos devem atualizar os bitmaps")
+    void eventos_DevemAtualizarBitmaps() {
+        index.onRemovido(new EstabelecimentoRemovidoEvent(2L));
+        index.onAlterado(new EstabelecimentoAlteradoEvent(3L, "Pizzaria Bella", null, true, null, null,
+                null, null, "Pizzaria", List.of("Wi-Fi"), 4.9));
+        index.onAlterado(new EstabelecimentoAlteradoEvent(5L, "Boteco Novo", null, false, null, null,
+                null, null, "Bar", List.of(), 3.0));
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(ids(index.filtrar(null, List.of("estacionamento"), null, null, 0, 10))).isEmpty();
+        assertThat(ids(index.filtrar(List.of("karaoke"), null, null, null, 0, 10))).isEmpty();
+        assertThat(ids(index.filtrar(null, null, true, 4.5, 0, 10))).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(ids(index.filtrar(List.of("bar"), null, false, null, 0, 10))).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Cadastro depois de uma remoção deve ir para o fim sem trocar a ordem dos demais")
+    void eventos_MantemOrdemDasPaginas() {
+        index.onRemovido(new EstabelecimentoRemovidoEvent(2L));
+        index.onAlterado(new EstabelecimentoAlteradoEvent(5L, "Boteco Novo", null, false, null, null,
+                null, null, "Bar", List.of(), 3.0));
+        index.onAlterado(new EstabelecimentoAlteradoEvent(1L, "Bar do Zé", null, true, null, null,
+                null, null, "Bar", List.of("Wi-Fi"), 4.7));
+
+        assertThat(ids(index.filtrar(null, null, null, null, 0, 2))).containsExactly(1L, 3L);
+        assertThat(ids(index.filtrar(null, null, null, null, 1, 2))).containsExactly(4L, 5L);
+    }
+
+    @Test
+    @DisplayName("Compactar os ordinais vagos não deve trocar a ordem das páginas")
+    void remocoes_CompactamSemTrocarOrdem() {
+        FacetaIndex grande = new FacetaIndex(null);
+        for (long id = 1; id <= 200; id++) {
+            grande.indexar(id, "Bar " + id, id % 2 == 0 ? "Bar" : "Boteco", List.of("Wi-Fi"), false, 4.0);
+        }
+        for (long id = 1; id <= 180; id++) {
+            grande.onRemovido(new EstabelecimentoRemovidoEvent(id));
+        }
+        grande.indexar(201L, "Bar 201", "Boteco", List.of("Wi-Fi"), true, 4.5);
+        grande.indexar(185L, "Bar 185", "Bar", List.of(), false, 3.0);
+
+        List<Long> esperados = LongStream.rangeClosed(181, 201).boxed().toList();
+        assertThat(ids(grande.filtrar(null, null, null, null, 0, 50))).containsExactlyElementsOf(esperados);
+        assertThat(ids(grande.filtrar(null, null, null, null, 1, 10))).containsExactly(191L, 192L, 193L, 194L, 195L,
+                196L, 197L, 198L, 199L, 200L);
+        assertThat(ids(grande.filtrar(List.of("bar"), List.of("wi-fi"), null, null, 0, 50))).containsExactly(
+                182L, 184L, 186L, 188L, 190L, 192L, 194L, 196L, 198L, 200L);
+        assertThat(ids(grande.filtrar(null, null, true, 4.5, 0, 50))).containsExactly(201L);
+        assertThat(grande.size()).isEqualTo(21);
+    }
+
+    @Test
+    @DisplayName("Carga deve manter o índice anterior no ar e não perder escritas feitas durante ela")
+    void carregar_DeveTrocarSemEsvaziar() {
+        EstabelecimentoRepository repo = mock(EstabelecimentoRepository.class);
+        FacetaIndex carregado = new FacetaIndex(repo);
+        carregado.indexar(1L, "Bar do Zé", "Bar", List.of(), true, 4.6);
+        when(repo.findAllBy()).thenAnswer(inv -> {
+            assertThat(ids(carregado.filtrar(List.of("bar"), null, null, null, 0, 10))).containsExactly(1L);
+            carregado.indexar(7L, "Boteco Novo", "Bar", List.of(), false, 3.0);
+            return List.of(Estabelecimento.builder().idEstabelecimento(2L).nome("Cantô").categoria("Bar").build());
+        });
+
+        carregado.carregar();
+
+        assertThat(ids(carregado.filtrar(List.of("bar"), null, null, null, 0, 10))).containsExactly(2L, 7L);
+    }
+
+    @Test
+    @DisplayName("Carga deve numerar os estabelecimentos na ordem do id")
+    void carregar_OrdenaPorId() {
+        EstabelecimentoRepository repo = mock(EstabelecimentoRepository.class);
+        when(repo.findAllBy()).thenReturn(List.of(
+                Estabelecimento.builder().idEstabelecimento(9L).nome("Nove").categoria("Bar").build(),
+                Estabelecimento.builder().idEstabelecimento(2L).nome("Dois").categoria("Bar").build(),
+                Estabelecimento.builder().idEstabelecimento(5L).nome("Cinco").categoria("Bar").build()));
+        FacetaIndex carregado = new FacetaIndex(repo);
+
+        carregado.carregar();
+
+        assertThat(ids(carregado.filtrar(List.of("bar"), null, null, null, 0, 10))).containsExactly(2L, 5L, 9L);
+    }
+}
@@ -0,0 +1,102 @@
+package com.eti.qualaboa.estabelecimentotest.indextest;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.index.NomePrefixIndex;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class NomePrefixIndexTest {
+
+    @Mock
+    private EstabelecimentoRepository estRepo;
+
+    private NomePrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NomePrefixIndex(estRepo);
+        when(estRepo.findAll()).thenReturn(List.of(
+                Estabelecimento.builder().idEstabelecimento(1L).nome("Bar do Zé").parceiro(true).build(),
+                Estabelecimento.builder().idEstabelecimento(2L).nome("Barbearia Central").build(),
+                Estabelecimento.builder().idEstabelecimento(3L).nome("Zé Lanches").build(),
+                Estabelecimento.builder().idEstabelecimento(4L).nome("Boteco do Zé").build()));
+        index.carregar();
+    }
+
+    private List<Long> ids(String prefixo) {
+        return index.buscar(prefixo, 10).stream().map(EstabelecimentoSugestaoDTO::idEstabelecimento).toList();
+    }
+
+    @Test
+    @DisplayName("Deve achar pelo começo do nome, sem acento nem diferença de caixa")
+    void buscar_PeloComecoDoNome() {
+        assertThat(ids("bar")).containsExactly(1L, 2L);
+        assertThat(ids("BAR DO Z")).containsExactly(1L);
+        assertThat(index.buscar("bar do", 10)).singleElement()
+                .isEqualTo(new EstabelecimentoSugestaoDTO(1L, "Bar do Zé", true));
+    }
+
+    @Test
+    @DisplayName("Nomes que começam pelo termo devem vir antes dos que só têm uma palavra com ele")
+    void buscar_NomeInteiroAntesDoMeio() {
+        assertThat(ids("zé")).containsExactly(3L, 1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Deve respeitar o limite")
+    void buscar_DeveRespeitarLimite() {
+        assertThat(index.buscar("ze", 2)).hasSize(2);
+        assertThat(index.buscar("  ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Renomear deve tirar o nome antigo do índice")
+    void onAlterado_Renomeado_DeveTrocarChaves() {
+        index.onAlterado(new EstabelecimentoAlteradoEvent(2L, "Cervejaria Central", null, false, null, null, null, null, null, List.of(), null));
+
+        assertThat(ids("barb")).isEmpty();
+        assertThat(ids("cerv")).containsExactly(2L);
+        assertThat(ids("central")).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Criar e remover devem refletir na hora")
+    void criarERemover_DevemRefletir() {
+        index.onAlterado(new EstabelecimentoAlteradoEvent(5L, "Bar Novo", null, false, null, null, null, null, null, List.of(), null));
+        assertThat(ids("bar n")).containsExactly(5L);
+
+        index.onRemovido(new EstabelecimentoRemovidoEvent(1L));
+        assertThat(ids("bar")).containsExactly(5L, 2L);
+        assertThat(ids("ze")).containsExactly(3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Recarga deve manter o conteúdo anterior no ar e não perder escritas feitas durante ela")
+    void carregar_DeveTrocarSemEsvaziar() {
+        when(estRepo.findAll()).thenAnswer(inv -> {
+            assertThat(ids("bar")).containsExactly(1L, 2L);
+            index.onAlterado(new EstabelecimentoAlteradoEvent(5L, "Bar Novo", null, false, null, null, null, null, null, List.of(), null));
+            return List.of(Estabelecimento.builder().idEstabelecimento(1L).nome("Bar do Zé").parceiro(true).build());
+        });
+
+        index.carregar();
+
+        assertThat(ids("bar")).containsExactly(1L, 5L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+}
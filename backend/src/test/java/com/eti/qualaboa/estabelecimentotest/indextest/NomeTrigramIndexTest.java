@@ -0,0 +1,89 @@
+package com.eti.qualaboa.estabelecimentotest.indextest;
+
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.index.NomeTrigramIndex;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NomeTrigramIndexTest {
+
+    private NomeTrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NomeTrigramIndex(null);
+        index.indexar(1L, "Bar do Bride", true);
+        index.indexar(2L, "Bar do Zé", false);
+        index.indexar(3L, "Bridge Pub", false);
+        index.indexar(4L, "Pizzaria Bella Napoli", false);
+        index.indexar(5L, "Boteco do Brito", false);
+    }
+
+    private List<Long> ids(String termo) {
+        return index.buscar(termo, 10).stream().map(EstabelecimentoSugestaoDTO::idEstabelecimento).toList();
+    }
+
+    @Test
+    @DisplayName("Deve achar o nome mesmo com o termo incompleto")
+    void buscar_TermoIncompleto() {
+        assertThat(ids("bar do brid")).first().isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Deve tolerar letras trocadas, faltando ou sobrando")
+    void buscar_ErrosDeDigitacao() {
+        assertThat(ids("bar do bidre")).first().isEqualTo(1L);
+        assertThat(ids("pizaria bela napoli")).containsExactly(4L);
+        assertThat(ids("BÁR DO ZÉÉ")).first().isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Nome sem semelhança suficiente não deve entrar")
+    void buscar_SemSemelhanca() {
+        assertThat(ids("churrascaria")).isEmpty();
+        assertThat(ids("")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Renomear e remover devem refletir no índice")
+    void alterarERemover_DevemRefletir() {
+        index.onAlterado(new EstabelecimentoAlteradoEvent(4L, "Cantina Napoli", null, false, null, null, null, null, null, List.of(), null));
+        index.onRemovido(new EstabelecimentoRemovidoEvent(1L));
+
+        assertThat(ids("pizaria bela napoli")).isEmpty();
+        assertThat(ids("cantina napoli")).containsExactly(4L);
+        assertThat(ids("bar do bride")).doesNotContain(1L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Carga deve manter as listas anteriores no ar e não perder escritas feitas durante ela")
+    void carregar_DeveTrocarSemEsvaziar() {
+        EstabelecimentoRepository repo = mock(EstabelecimentoRepository.class);
+        NomeTrigramIndex carregado = new NomeTrigramIndex(repo);
+        carregado.indexar(1L, "Bar do Bride", true);
+        when(repo.findAll()).thenAnswer(inv -> {
+            assertThat(carregado.buscar("bar do brid", 10)).isNotEmpty();
+            carregado.indexar(6L, "Choperia Central", false);
+            return List.of(Estabelecimento.builder().idEstabelecimento(2L).nome("Bar do Zé").build());
+        });
+
+        carregado.carregar();
+
+        assertThat(carregado.buscar("bar do brid", 10)).isEmpty();
+        assertThat(carregado.buscar("choperia centra", 10)).extracting(EstabelecimentoSugestaoDTO::idEstabelecimento)
+                .containsExactly(6L);
+        assertThat(carregado.size()).isEqualTo(2);
+    }
+}
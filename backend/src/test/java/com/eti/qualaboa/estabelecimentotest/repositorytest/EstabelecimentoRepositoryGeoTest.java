@@ -0,0 +1,127 @@
+package com.eti.qualaboa.estabelecimentotest.repositorytest;
+
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoGeoSchema;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.support.TestPropertySourceUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = EstabelecimentoRepositoryGeoTest.Initializer.class)
+@TestPropertySource(properties = "spring.sql.init.mode=never")
+@EntityScan(basePackages = "com.eti.qualaboa")
+public class EstabelecimentoRepositoryGeoTest {
+
+    private static final double LAT = -23.42;
+    private static final double LNG = -51.93;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.3").asCompatibleSubstituteFor("postgres"))
+            .withDatabaseName("qualaboa")
+            .withUsername("qualaboa_user")
+            .withPassword("senha123");
+
+    static class Initializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertySourceUtils.addInlinedPropertiesToEnvironment(
+                    applicationContext,
+                    "spring.datasource.url=" + postgresContainer.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresContainer.getUsername(),
+                    "spring.datasource.password=" + postgresContainer.getPassword(),
+                    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                    "spring.jpa.hibernate.ddl-auto=create-drop"
+            );
+        }
+    }
+
+    @Autowired
+    private EstabelecimentoRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS postgis");
+        new EstabelecimentoGeoSchema(jdbcTemplate).run();
+    }
+
+    @Test
+    @DisplayName("Consulta por raio deve usar o índice GiST com 100k linhas")
+    void findAllWithinRadius_DeveUsarIndiceGist() {
+        jdbcTemplate.update("""
+                INSERT INTO estabelecimentos (nome, parceiro, latitude, longitude)
+                SELECT 'Bar ' || i, i % 2 = 0, ? + (random() - 0.5) * 2, ? + (random() - 0.5) * 2
+                FROM generate_series(1, 100000) AS i
+                """, LAT, LNG);
+        jdbcTemplate.execute("ANALYZE estabelecimentos");
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("lat", LAT)
+                .addValue("lng", LNG)
+                .addValue("radius", 1000.0);
+        List<String> plano = new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+                "EXPLAIN " + EstabelecimentoRepository.WITHIN_RADIUS_SQL, params, String.class);
+
+        assertThat(String.join("\n", plano))
+                .contains("idx_estabelecimentos_geom")
+                .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("Coluna geom deve acompanhar INSERT e UPDATE de latitude/longitude")
+    void geom_DeveFicarSincronizada() {
+        Estabelecimento est = repository.saveAndFlush(Estabelecimento.builder()
+                .nome("Bar Móvel").parceiro(true).latitude(LAT).longitude(LNG).build());
+
+        assertThat(repository.findAllWithinRadiusPostGis(LAT, LNG, 100)).contains(est);
+
+        est.setLatitude(LAT + 1);
+        repository.saveAndFlush(est);
+
+        assertThat(repository.findAllWithinRadiusPostGis(LAT, LNG, 100)).doesNotContain(est);
+        assertThat(repository.findAllWithinRadiusPostGis(LAT + 1, LNG, 100)).contains(est);
+    }
+
+    @Test
+    @DisplayName("Deve recriar coluna geom legada como coluna gerada")
+    void run_DeveMigrarColunaLegada() {
+        jdbcTemplate.execute("ALTER TABLE estabelecimentos DROP COLUMN geom");
+        jdbcTemplate.execute("ALTER TABLE estabelecimentos ADD COLUMN geom geography(Point, 4326)");
+
+        new EstabelecimentoGeoSchema(jdbcTemplate).run();
+
+        String gerada = jdbcTemplate.queryForObject("""
+                SELECT is_generated FROM information_schema.columns
+                WHERE table_name = 'estabelecimentos' AND column_name = 'geom'
+                """, String.class);
+        assertThat(gerada).isEqualTo("ALWAYS");
+    }
+}
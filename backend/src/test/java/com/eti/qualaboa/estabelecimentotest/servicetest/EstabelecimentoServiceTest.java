@@ -4,10 +4,21 @@ import com.eti.qualaboa.cupom.model.Cupom;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoRegisterDTO;
 import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoResponseDTO;
+import com.eti.qualaboa.estabelecimento.dto.EstabelecimentoSugestaoDTO;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
 import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.model.EstabelecimentoRemovido;
+import com.eti.qualaboa.estabelecimento.index.NomeTrigramIndex;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRemovidoRepository;
 import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
 import com.eti.qualaboa.estabelecimento.service.EstabelecimentoService;
 import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.model.Geometry;
+import com.eti.qualaboa.map.places.model.LatLng;
+import com.eti.qualaboa.map.places.model.PlaceDetails;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
 import com.eti.qualaboa.metricas.service.MetricasService;
 import com.eti.qualaboa.usuario.domain.entity.Role;
 import com.eti.qualaboa.usuario.repository.RoleRepository;
@@ -18,11 +29,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -41,13 +51,17 @@ public class EstabelecimentoServiceTest {
     @Mock
     private PlacesClient placesClient;
     @Mock
-    private JdbcTemplate jdbcTemplate;
-    @Mock
     private RoleRepository roleRepository;
     @Mock
     private BCryptPasswordEncoder passwordEncoder;
     @Mock
     private MetricasService metricasService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private EstabelecimentoRemovidoRepository removidoRepository;
+    @Mock
+    private NomeTrigramIndex trigramIndex;
 
     @InjectMocks
     private EstabelecimentoService estabelecimentoService;
@@ -88,15 +102,13 @@ public class EstabelecimentoServiceTest {
 
         when(roleRepository.findByNome("ESTABELECIMENTO")).thenReturn(Optional.of(mockRole));
 
+        when(repositoryEstabelecimento.proximaVersaoCatalogo()).thenReturn(11L);
         when(repositoryEstabelecimento.save(any(Estabelecimento.class))).thenAnswer(invocation -> {
             Estabelecimento estSalvo = invocation.getArgument(0);
             estSalvo.setIdEstabelecimento(1L);
             return estSalvo;
         });
 
-        doNothing().when(jdbcTemplate).execute(anyString());
-        when(jdbcTemplate.update(anyString(), anyDouble(), anyDouble(), anyLong())).thenReturn(1);
-
         EstabelecimentoResponseDTO response = estabelecimentoService.criar(registerDTO);
 
         assertThat(response).isNotNull();
@@ -106,9 +118,9 @@ public class EstabelecimentoServiceTest {
 
         verify(passwordEncoder, times(1)).encode("senha123");
         verify(roleRepository, times(1)).findByNome("ESTABELECIMENTO");
+        verify(repositoryEstabelecimento).save(argThat(e -> e.getVersaoCatalogo() == 11L));
         verify(repositoryEstabelecimento, times(1)).save(any(Estabelecimento.class));
-        verify(jdbcTemplate, times(1)).execute(anyString());
-        verify(jdbcTemplate, times(1)).update(anyString(), eq(-51.0), eq(-23.0), eq(1L));
+        verify(eventPublisher, times(1)).publishEvent(any(EstabelecimentoAlteradoEvent.class));
     }
 
     @Test
@@ -168,15 +180,10 @@ public class EstabelecimentoServiceTest {
 
         when(repositoryEstabelecimento.findById(1L)).thenReturn(Optional.of(estSemPlace));
 
-        Map<String, Object> mockLocation = Map.of("lat", -23.1, "lng", -51.1);
-        Map<String, Object> mockGeometry = Map.of("location", mockLocation);
-        Map<String, Object> mockResult = Map.of(
-                "name", "Bar do Google",
-                "formatted_address", "Rua Google, 123",
-                "geometry", mockGeometry
-        );
-        Map<String, Object> mockDetails = Map.of("result", mockResult);
-        when(placesClient.placeDetails(placeId)).thenReturn(mockDetails);
+        PlaceDetails mockResult = new PlaceDetails(placeId, "Bar do Google", "Rua Google, 123",
+                new Geometry(new LatLng(-23.1, -51.1)), null, null, null);
+        PlaceDetailsResponse mockDetails = new PlaceDetailsResponse("OK", mockResult);
+        when(placesClient.placeDetails(placeId, Prioridade.SEGUNDO_PLANO)).thenReturn(mockDetails);
 
         when(repositoryEstabelecimento.save(any(Estabelecimento.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -189,8 +196,49 @@ public class EstabelecimentoServiceTest {
         assertThat(dtoResultado.getLongitude()).isEqualTo(-51.1);
         assertThat(dtoResultado.getEnderecoFormatado()).isEqualTo("Rua Google, 123");
         assertThat(dtoResultado.getParceiro()).isTrue();
+        assertThat(estSemPlace.getNomeNormalizado()).isEqualTo("BAR DO GOOGLE");
 
         verify(repositoryEstabelecimento, times(1)).save(any(Estabelecimento.class));
+        verify(eventPublisher, times(1)).publishEvent(new EstabelecimentoAlteradoEvent(
+                1L, "Bar do Google", placeId, true, -23.1, -51.1, null, "Rua Google, 123", null, List.of(), null));
+    }
+
+    @Test
+    @DisplayName("Deve atualizar o nome normalizado junto com o nome")
+    void atualizar_DeveNormalizarNovoNome() {
+        when(repositoryEstabelecimento.findById(1L)).thenReturn(Optional.of(mockEstabelecimento));
+        when(repositoryEstabelecimento.save(any(Estabelecimento.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        estabelecimentoService.atualizar(1L, Estabelecimento.builder().nome("  Boteco São João ").build());
+
+        assertThat(mockEstabelecimento.getNomeNormalizado()).isEqualTo("BOTECO SAO JOAO");
+    }
+
+    @Test
+    @DisplayName("Deve publicar evento de remoção ao deletar")
+    void deletar_DevePublicarEvento() {
+        when(repositoryEstabelecimento.existsById(1L)).thenReturn(true);
+        when(repositoryEstabelecimento.proximaVersaoCatalogo()).thenReturn(12L);
+
+        estabelecimentoService.deletar(1L);
+
+        verify(repositoryEstabelecimento, times(1)).deleteById(1L);
+        verify(removidoRepository, times(1)).save(new EstabelecimentoRemovido(null, 1L, 12L));
+        verify(eventPublisher, times(1)).publishEvent(new EstabelecimentoRemovidoEvent(1L));
+    }
+
+    @Test
+    @DisplayName("Não deve registrar remoção de estabelecimento inexistente")
+    void deletar_Falha_NaoEncontrado() {
+        when(repositoryEstabelecimento.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> estabelecimentoService.deletar(99L))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Estabelecimento não encontrado");
+
+        verify(repositoryEstabelecimento, never()).deleteById(any());
+        verify(repositoryEstabelecimento, never()).proximaVersaoCatalogo();
+        verifyNoInteractions(removidoRepository, eventPublisher);
     }
 
     @Test
@@ -211,4 +259,40 @@ public class EstabelecimentoServiceTest {
         assertThat(cupons.get(0).getCodigo()).isEqualTo("CUPOM10");
         assertThat(cupons.get(1).getIdEstabelecimento()).isEqualTo(1L);
     }
+
+    @Test
+    @DisplayName("Busca aproximada deve cair no nome mais parecido quando não há o exato")
+    void buscarPorNome_Aproximado_DeveUsarMaisParecido() {
+        Estabelecimento bride = Estabelecimento.builder().idEstabelecimento(7L).nome("Bar do Bride").build();
+        when(repositoryEstabelecimento.findByNomeNormalizado("BAR DO BRID")).thenReturn(Optional.empty());
+        when(trigramIndex.buscar("bar do brid", 1)).thenReturn(List.of(new EstabelecimentoSugestaoDTO(7L, "Bar do Bride", false)));
+        when(repositoryEstabelecimento.findById(7L)).thenReturn(Optional.of(bride));
+
+        Estabelecimento encontrado = estabelecimentoService.buscarPorNome("bar do brid", true);
+
+        assertThat(encontrado).isSameAs(bride);
+        verify(metricasService).registrarBuscaPeloNome(bride);
+        verify(repositoryEstabelecimento, times(1)).findByNomeNormalizado(anyString());
+    }
+
+    @Test
+    @DisplayName("Busca exata deve registrar a métrica com o estabelecimento encontrado")
+    void buscarPorNome_Exata_DeveRegistrarMetrica() {
+        Estabelecimento bride = Estabelecimento.builder().idEstabelecimento(7L).nome("Bar do Bride").build();
+        when(repositoryEstabelecimento.findByNomeNormalizado("BAR DO BRIDE")).thenReturn(Optional.of(bride));
+
+        Estabelecimento encontrado = estabelecimentoService.buscarPorNome("bar do bride");
+
+        assertThat(encontrado).isSameAs(bride);
+        verify(metricasService).registrarBuscaPeloNome(bride);
+    }
+
+    @Test
+    @DisplayName("Busca exata não deve consultar o índice de trigramas")
+    void buscarPorNome_Exata_NaoDeveUsarIndice() {
+        when(repositoryEstabelecimento.findByNomeNormalizado("BAR DO BRID")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> estabelecimentoService.buscarPorNome("bar do brid")).isInstanceOf(RuntimeException.class);
+        verifyNoInteractions(trigramIndex);
+    }
 }
\ No newline at end of file
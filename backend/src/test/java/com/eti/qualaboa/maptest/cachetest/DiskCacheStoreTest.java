@@ -0,0 +1,151 @@
+package com.eti.qualaboa.maptest.cachetest;
+
+import com.eti.qualaboa.map.cache.CachedValue;
+import com.eti.qualaboa.map.cache.DiskCacheStore;
+import com.eti.qualaboa.map.cache.TieredCache;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.eti.qualaboa.map.places.model.PlaceSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DiskCacheStoreTest {
+
+    private static final long UMA_HORA = Duration.ofHours(1).toMillis();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private Path arquivo() {
+        return dir.resolve("places.log");
+    }
+
+    private DiskCacheStore abrir() {
+        return new DiskCacheStore(arquivo(), PlaceSearchResponse.class, mapper);
+    }
+
+    private static CachedValue<PlaceSearchResponse> resposta(String nome, long buscadoEm) {
+        return new CachedValue<>(new PlaceSearchResponse("OK",
+                List.of(new PlaceSummary("g-" + nome, nome, -23.42, -51.93, "Rua X")), null), buscadoEm);
+    }
+
+    @Test
+    @DisplayName("Entradas gravadas devem voltar depois de reabrir o arquivo")
+    void gravar_Reabrir_DeveVoltarAquecido() throws IOException {
+        long agora = System.currentTimeMillis();
+        try (DiskCacheStore store = abrir()) {
+            store.gravar("places:6gge:500:bar", resposta("Boteco", agora), agora + UMA_HORA);
+            store.gravar("places:6gge:500:açaí 🍇", resposta("Açaí", agora), agora + UMA_HORA);
+        }
+
+        try (DiskCacheStore store = abrir()) {
+            assertThat(store.size()).isEqualTo(2);
+            CachedValue<?> lido = store.ler("places:6gge:500:bar");
+            assertThat(lido).isEqualTo(resposta("Boteco", agora));
+            assertThat(store.ler("places:6gge:500:açaí 🍇").value()).isEqualTo(resposta("Açaí", agora).value());
+        }
+    }
+
+    @Test
+    @DisplayName("Gravação mais recente da mesma chave deve prevalecer e remoção deve valer após reabrir")
+    void gravarERemover_DeveValerAUltima() throws IOException {
+        long agora = System.currentTimeMillis();
+        try (DiskCacheStore store = abrir()) {
+            store.gravar("a", resposta("Antigo", agora), agora + UMA_HORA);
+            store.gravar("a", resposta("Novo", agora), agora + UMA_HORA);
+            store.gravar("b", resposta("B", agora), agora + UMA_HORA);
+            store.remover("b");
+        }
+
+        try (DiskCacheStore store = abrir()) {
+            assertThat(store.ler("a").value()).isEqualTo(resposta("Novo", agora).value());
+            assertThat(store.ler("b")).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Entrada vencida não deve ser servida")
+    void ler_Vencida_DeveSerMiss() throws IOException {
+        long agora = System.currentTimeMillis();
+        try (DiskCacheStore store = abrir()) {
+            store.gravar("a", resposta("Velho", agora - 2 * UMA_HORA), agora - UMA_HORA);
+        }
+
+        try (DiskCacheStore store = abrir()) {
+            assertThat(store.ler("a")).isNull();
+            assertThat(store.size()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Registro cortado no fim do arquivo deve ser descartado sem perder os anteriores")
+    void abrir_RegistroIncompleto_DeveTruncar() throws IOException {
+        long agora = System.currentTimeMillis();
+        try (DiskCacheStore store = abrir()) {
+            store.gravar("a", resposta("A", agora), agora + UMA_HORA);
+        }
+        long tamanhoBom = Files.size(arquivo());
+        // simula queda no meio de uma gravação: cabeçalho prometendo mais bytes do que existem
+        Files.write(arquivo(), new byte[]{0, 0, 1, 0, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        try (DiskCacheStore store = abrir()) {
+            assertThat(store.ler("a")).isNotNull();
+            store.gravar("b", resposta("B", agora), agora + UMA_HORA);
+        }
+        try (DiskCacheStore store = abrir()) {
+            assertThat(store.ler("b")).isNotNull();
+        }
+        assertThat(Files.size(arquivo())).isGreaterThan(tamanhoBom);
+    }
+
+    @Test
+    @DisplayName("Sobrescritas repetidas devem compactar o arquivo")
+    void gravar_MuitasSobrescritas_DeveCompactar() throws IOException {
+        long agora = System.currentTimeMillis();
+        String grande = "x".repeat(10_000);
+        try (DiskCacheStore store = abrir()) {
+            for (int i = 0; i < 500; i++) {
+                store.gravar("k" + (i % 5), resposta(grande + i, agora), agora + UMA_HORA);
+            }
+        }
+
+        // 500 registros de ~10 KB sem compactação passariam de 5 MB
+        assertThat(Files.size(arquivo())).isLessThan(3L << 20);
+        try (DiskCacheStore store = abrir()) {
+            assertThat(store.size()).isEqualTo(5);
+            assertThat(((PlaceSearchResponse) store.ler("k4").value()).results().get(0).name()).isEqualTo(grande + 499);
+        }
+    }
+
+    @Test
+    @DisplayName("Miss na memória deve buscar no disco e promover para a memória")
+    void tieredCache_MissNaMemoria_DeveLerDoDisco() throws IOException {
+        long agora = System.currentTimeMillis();
+        try (DiskCacheStore store = abrir()) {
+            new TieredCache(new ConcurrentMapCache("places"), store, Duration.ofHours(24))
+                    .put("chave", resposta("Boteco", agora));
+        }
+
+        try (DiskCacheStore store = abrir()) {
+            ConcurrentMapCache memoria = new ConcurrentMapCache("places");
+            TieredCache cache = new TieredCache(memoria, store, Duration.ofHours(24));
+
+            assertThat(cache.get("chave", CachedValue.class)).isEqualTo(resposta("Boteco", agora));
+            assertThat(memoria.get("chave")).isNotNull();
+            assertThat(cache.get("outra")).isNull();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.eti.qualaboa.maptest.clustertest;
+
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.map.cluster.ClusterNode;
+import com.eti.qualaboa.map.cluster.PartnerClusterIndex;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PartnerClusterIndexTest {
+
+    private static final double LAT = -23.31;
+    private static final double LNG = -51.16;
+
+    private PartnerSpatialIndex partnerIndex;
+
+    // grade de parceiros lado a lado cobrindo ~0,2° em volta do centro
+    private PartnerClusterIndex indexCom(int lado) {
+        List<Estabelecimento> parceiros = new ArrayList<>();
+        long id = 1;
+        for (int i = 0; i < lado; i++) {
+            for (int j = 0; j < lado; j++) {
+                parceiros.add(Estabelecimento.builder()
+                        .idEstabelecimento(id).nome("Bar " + id++).parceiro(true)
+                        .latitude(LAT - 0.1 + 0.2 * i / lado)
+                        .longitude(LNG - 0.1 + 0.2 * j / lado)
+                        .build());
+            }
+        }
+        return indexCom(parceiros);
+    }
+
+    private PartnerClusterIndex indexCom(List<Estabelecimento> parceiros) {
+        EstabelecimentoRepository repo = mock(EstabelecimentoRepository.class);
+        when(repo.findByParceiroTrueAndLatitudeIsNotNullAndLongitudeIsNotNull()).thenReturn(parceiros);
+        partnerIndex = new PartnerSpatialIndex(repo);
+        partnerIndex.carregar();
+        return new PartnerClusterIndex(partnerIndex);
+    }
+
+    private static int soma(List<ClusterNode> nos) {
+        return nos.stream().mapToInt(ClusterNode::count).sum();
+    }
+
+    @Test
+    @DisplayName("Todos os níveis devem conservar o total de parceiros")
+    void getClusters_MundoInteiro_DeveConservarTotal() {
+        PartnerClusterIndex index = indexCom(50);
+
+        for (int zoom = PartnerClusterIndex.MIN_ZOOM; zoom <= PartnerClusterIndex.MAX_ZOOM + 1; zoom++) {
+            assertThat(soma(index.getClusters(-85, -180, 85, 180, zoom))).as("zoom %d", zoom).isEqualTo(2_500);
+        }
+    }
+
+    @Test
+    @DisplayName("Cidade vista de longe deve virar poucos clusters")
+    void getClusters_ZoomAfastado_DeveAgrupar() {
+        PartnerClusterIndex index = indexCom(50);
+
+        List<ClusterNode> nos = index.getClusters(LAT - 0.2, LNG - 0.2, LAT + 0.2, LNG + 0.2, 9);
+
+        assertThat(nos).hasSizeLessThanOrEqualTo(4);
+        assertThat(nos).allMatch(ClusterNode::isCluster);
+        assertThat(nos).allSatisfy(n -> assertThat(n.expansionZoom()).isGreaterThan(9));
+        assertThat(soma(nos)).isEqualTo(2_500);
+    }
+
+    @Test
+    @DisplayName("Acima do zoom máximo deve devolver os parceiros individuais do viewport")
+    void getClusters_ZoomMaximo_DeveDevolverIndividuais() {
+        PartnerClusterIndex index = indexCom(50);
+
+        List<ClusterNode> nos = index.getClusters(LAT - 0.005, LNG - 0.005, LAT + 0.005, LNG + 0.005, 20);
+
+        assertThat(nos).isNotEmpty().noneMatch(ClusterNode::isCluster);
+        assertThat(nos).allSatisfy(n -> {
+            assertThat(n.parceiro().lat()).isBetween(LAT - 0.005, LAT + 0.005);
+            assertThat(n.parceiro().lng()).isBetween(LNG - 0.005, LNG + 0.005);
+        });
+    }
+
+    @Test
+    @DisplayName("O tamanho da resposta não deve crescer com o número de parceiros no viewport")
+    void getClusters_MaisParceiros_RespostaDoMesmoTamanho() {
+        List<ClusterNode> poucos = indexCom(30)
+                .getClusters(LAT - 0.2, LNG - 0.2, LAT + 0.2, LNG + 0.2, 11);
+        List<ClusterNode> muitos = indexCom(300)
+                .getClusters(LAT - 0.2, LNG - 0.2, LAT + 0.2, LNG + 0.2, 11);
+
+        assertThat(soma(muitos)).isEqualTo(90_000);
+        // viewport de ~0,4° no zoom 11 cabe em ~600 px: no máximo ~(600/60)² clusters
+        assertThat(muitos).hasSizeLessThanOrEqualTo(150);
+        assertThat(muitos.size()).isLessThanOrEqualTo(poucos.size() * 2);
+    }
+
+    @Test
+    @DisplayName("Alteração no índice de parceiros deve refletir depois da reconstrução em segundo plano")
+    void getClusters_AposEvento_DeveReconstruir() {
+        PartnerClusterIndex index = indexCom(List.of());
+        assertThat(index.getClusters(-85, -180, 85, 180, 5)).isEmpty();
+
+        partnerIndex.onAlterado(new EstabelecimentoAlteradoEvent(7L, "Bar Novo", "place-7", true, LAT, LNG, null, null, null, List.of(), null));
+
+        // a consulta logo depois da escrita segue na hierarquia anterior, sem esperar a reconstrução
+        assertThat(index.getClusters(-85, -180, 85, 180, 5)).isEmpty();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            List<ClusterNode> nos = index.getClusters(LAT - 0.01, LNG - 0.01, LAT + 0.01, LNG + 0.01, 15);
+            assertThat(nos).singleElement().satisfies(n -> {
+                assertThat(n.parceiro().id()).isEqualTo(7L);
+                assertThat(n.lat()).isCloseTo(LAT, within(1e-9));
+            });
+        });
+    }
+
+    @Test
+    @DisplayName("Viewport cruzando o antimeridiano deve consultar os dois lados")
+    void getClusters_Antimeridiano_DeveConsultarOsDoisLados() {
+        PartnerClusterIndex index = indexCom(List.of(
+                Estabelecimento.builder().idEstabelecimento(1L).nome("Fiji").parceiro(true)
+                        .latitude(-17.7).longitude(179.5).build(),
+                Estabelecimento.builder().idEstabelecimento(2L).nome("Samoa").parceiro(true)
+                        .latitude(-13.8).longitude(-172.1).build(),
+                Estabelecimento.builder().idEstabelecimento(3L).nome("Londrina").parceiro(true)
+                        .latitude(LAT).longitude(LNG).build()));
+
+        List<ClusterNode> nos = index.getClusters(-20, 170, -10, -170, 17);
+
+        assertThat(nos).extracting(n -> n.parceiro().nome()).containsExactlyInAnyOrder("Fiji", "Samoa");
+    }
+}
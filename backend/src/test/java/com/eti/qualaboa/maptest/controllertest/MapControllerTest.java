@@ -1,9 +1,19 @@
 package com.eti.qualaboa.maptest.controllertest;
 
+import com.eti.qualaboa.config.MapProperties;
 import com.eti.qualaboa.config.SecurityConfig;
 import com.eti.qualaboa.map.controller.MapController;
+import com.eti.qualaboa.map.dto.PinChangesDTO;
+import com.eti.qualaboa.map.dto.PinClusterDTO;
 import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.places.model.LatLng;
+import com.eti.qualaboa.map.places.model.PlaceDetails;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.service.AutocompleteService;
 import com.eti.qualaboa.map.service.MapService;
+import com.eti.qualaboa.map.service.PinSyncService;
+import com.eti.qualaboa.map.service.PinTileService;
+import com.eti.qualaboa.map.tile.PinTile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,20 +21,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(MapController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, MapProperties.class})
 public class MapControllerTest {
 
     @Autowired
@@ -33,8 +52,16 @@ public class MapControllerTest {
     @MockBean
     private MapService mapService;
 
+    @MockBean
+    private PinTileService pinTileService;
+
+    @MockBean
+    private PinSyncService pinSyncService;
+    @MockBean
+    private AutocompleteService autocompleteService;
+
     private PinDTO mockPin;
-    private Map<String, Object> mockPlaceDetails;
+    private PlaceDetailsResponse mockPlaceDetails;
 
     @BeforeEach
     void setUp() {
@@ -48,10 +75,8 @@ public class MapControllerTest {
                 .build();
 
 
-        mockPlaceDetails = Map.of(
-                "name", "Bar do Mock Detalhado",
-                "formatted_address", "Rua Falsa, 123"
-        );
+        mockPlaceDetails = new PlaceDetailsResponse("OK", new PlaceDetails(
+                "place123", "Bar do Mock Detalhado", "Rua Falsa, 123", null, null, null, null));
     }
 
 
@@ -112,7 +137,232 @@ public class MapControllerTest {
         mockMvc.perform(get("/map/places/place123")
                         .with(jwt()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.name").value("Bar do Mock Detalhado"))
-                .andExpect(jsonPath("$.formatted_address").value("Rua Falsa, 123"));
+                .andExpect(jsonPath("$.result.name").value("Bar do Mock Detalhado"))
+                .andExpect(jsonPath("$.result.formatted_address").value("Rua Falsa, 123"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar pins agrupados do viewport (GET /map/pins/bbox)")
+    void deveBuscarPinsDoViewport() throws Exception {
+        PinClusterDTO cluster = PinClusterDTO.builder()
+                .lat(-23.4).lng(-51.9).count(42).isCluster(true).expansionZoom(13).build();
+        PinClusterDTO isolado = PinClusterDTO.builder()
+                .lat(-23.427).lng(-51.938).count(1).isCluster(false).pin(mockPin).build();
+        when(mapService.getPinsInBBox(-23.5, -52.0, -23.3, -51.8, 12)).thenReturn(List.of(cluster, isolado));
+
+        mockMvc.perform(get("/map/pins/bbox")
+                        .param("minLat", "-23.5")
+                        .param("minLng", "-52.0")
+                        .param("maxLat", "-23.3")
+                        .param("maxLng", "-51.8")
+                        .param("zoom", "12")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].count").value(42))
+                .andExpect(jsonPath("$[0].isCluster").value(true))
+                .andExpect(jsonPath("$[1].pin.nome").value("Bar do Mock"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar viewport com zoom ou latitudes inválidos")
+    void deveRejeitarViewportInvalido() throws Exception {
+        mockMvc.perform(get("/map/pins/bbox")
+                        .param("minLat", "-23.5").param("minLng", "-52.0")
+                        .param("maxLat", "-23.3").param("maxLng", "-51.8")
+                        .param("zoom", "23")
+                        .with(jwt()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/map/pins/bbox")
+                        .param("minLat", "-23.3").param("minLng", "-52.0")
+                        .param("maxLat", "-23.5").param("maxLng", "-51.8")
+                        .param("zoom", "12")
+                        .with(jwt()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/map/pins/bbox")
+                        .param("minLat", "-91").param("minLng", "-52.0")
+                        .param("maxLat", "-23.3").param("maxLng", "-51.8")
+                        .param("zoom", "12")
+                        .with(jwt()))
+                .andExpect(status().isBadRequest());
+
+        verify(mapService, never()).getPinsInBBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve devolver o tile com ETag e Cache-Control (GET /map/tiles/{z}/{x}/{y})")
+    void deveBuscarTileComEtag() throws Exception {
+        PinTile tile = new PinTile("[{\"count\":3}]".getBytes(StandardCharsets.UTF_8), "\"abc123\"");
+        when(pinTileService.getTile(12, 1465, 2320)).thenReturn(tile);
+
+        mockMvc.perform(get("/map/tiles/12/1465/2320").with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc123\""))
+                .andExpect(header().string("Cache-Control", "max-age=60, public"))
+                .andExpect(jsonPath("$[0].count").value(3));
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 quando o ETag do tile não mudou")
+    void deveResponderNaoModificadoParaTile() throws Exception {
+        PinTile tile = new PinTile("[]".getBytes(StandardCharsets.UTF_8), "\"abc123\"");
+        when(pinTileService.getTile(12, 1465, 2320)).thenReturn(tile);
+
+        mockMvc.perform(get("/map/tiles/12/1465/2320")
+                        .header("If-None-Match", "\"abc123\"")
+                        .with(jwt()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar coordenadas de tile fora da grade")
+    void deveRejeitarTileInvalido() throws Exception {
+        mockMvc.perform(get("/map/tiles/2/4/0").with(jwt()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve buscar os parceiros mais próximos com a distância (GET /map/pins/nearest)")
+    void deveBuscarParceirosMaisProximos() throws Exception {
+        mockPin.setDistanciaMetros(120.5);
+        when(mapService.getNearestPartners(-23.427, -51.938, 5)).thenReturn(List.of(mockPin));
+
+        mockMvc.perform(get("/map/pins/nearest")
+                        .param("lat", "-23.427")
+                        .param("lng", "-51.938")
+                        .param("k", "5")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nome").value("Bar do Mock"))
+                .andExpect(jsonPath("$[0].distanciaMetros").value(120.5));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar k fora do limite")
+    void deveRejeitarKInvalido() throws Exception {
+        mockMvc.perform(get("/map/pins/nearest")
+                        .param("lat", "-23.427")
+                        .param("lng", "-51.938")
+                        .param("k", "0")
+                        .with(jwt()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve buscar os parceiros ao longo da rota (POST /map/pins/corridor)")
+    void deveBuscarParceirosNoCorredor() throws Exception {
+        when(mapService.getPartnersInCorridor(List.of(new LatLng(-23.42, -51.93), new LatLng(-23.40, -51.93)), 200.0))
+                .thenReturn(List.of(mockPin));
+
+        mockMvc.perform(post("/map/pins/corridor")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rota\":[{\"lat\":-23.42,\"lng\":-51.93},{\"lat\":-23.40,\"lng\":-51.93}],\"larguraMetros\":200}")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nome").value("Bar do Mock"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar rota com um ponto só")
+    void deveRejeitarCorredorInvalido() throws Exception {
+        mockMvc.perform(post("/map/pins/corridor")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rota\":[{\"lat\":-23.42,\"lng\":-51.93}],\"larguraMetros\":200}")
+                        .with(jwt()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve transmitir os pins em NDJSON (GET /map/pins/nearby/stream)")
+    @SuppressWarnings("unchecked")
+    void deveTransmitirPinsEmNdjson() throws Exception {
+        PinDTO google = PinDTO.builder().placeId("g1").nome("Boteco do Google").isPartner(false).build();
+        doAnswer(inv -> {
+            Consumer<PinDTO> saida = inv.getArgument(4);
+            saida.accept(mockPin);
+            saida.accept(google);
+            return null;
+        }).when(mapService).streamPinsNearby(eq(-23.427), eq(-51.938), eq(1000), eq("bar"), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/map/pins/nearby/stream")
+                        .param("lat", "-23.427")
+                        .param("lng", "-51.938")
+                        .param("radius", "1000")
+                        .param("keyword", "bar")
+                        .with(jwt()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String corpo = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] linhas = corpo.split("\n");
+        assertThat(linhas).hasSize(2);
+        assertThat(linhas[0]).startsWith("{").contains("\"nome\":\"Bar do Mock\"");
+        assertThat(linhas[1]).startsWith("{").contains("\"nome\":\"Boteco do Google\"");
+        assertThat(corpo).endsWith("\n");
+    }
+
+    @Test
+    @DisplayName("Deve devolver só as mudanças desde a versão do cliente (GET /map/pins/changes)")
+    void deveBuscarMudancasDesdeVersao() throws Exception {
+        when(pinSyncService.getChanges(40L, 500))
+                .thenReturn(new PinChangesDTO(42L, List.of(mockPin), List.of(7L), false));
+
+        mockMvc.perform(get("/map/pins/changes")
+                        .param("since", "40")
+                        .with(jwt()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.versao").value(42))
+                .andExpect(jsonPath("$.upserts[0].nome").value("Bar do Mock"))
+                .andExpect(jsonPath("$.removidos[0]").value(7))
+                .andExpect(jsonPath("$.temMais").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar versão negativa no delta sync")
+    void deveRejeitarVersaoNegativa() throws Exception {
+        mockMvc.perform(get("/map/pins/changes")
+                        .param("since", "-1")
+                        .with(jwt()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Autocomplete deve usar o usuário do token e a sessão para o debounce (GET /map/search/autocomplete)")
+    void deveBuscarAutocomplete() throws Exception {
+        when(autocompleteService.sugerir("bar do", -23.42, -51.93, 5000, "ana@teste.com", "aba1"))
+                .thenReturn(CompletableFuture.completedFuture(List.of(mockPin)));
+
+        MvcResult inicio = mockMvc.perform(get("/map/search/autocomplete")
+                        .param("q", "bar do")
+                        .param("lat", "-23.42")
+                        .param("lng", "-51.93")
+                        .param("sessao", "aba1")
+                        .with(jwt().jwt(j -> j.subject("ana@teste.com"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nome").value("Bar do Mock"));
+    }
+
+    @Test
+    @DisplayName("Autocomplete deve rejeitar termo vazio")
+    void deveRejeitarAutocompleteVazio() throws Exception {
+        MvcResult inicio = mockMvc.perform(get("/map/search/autocomplete")
+                        .param("q", "  ")
+                        .param("lat", "-23.42")
+                        .param("lng", "-51.93")
+                        .with(jwt()))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(autocompleteService);
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.eti.qualaboa.maptest.geotest;
+
+import com.eti.qualaboa.map.geo.GeoHash;
+import com.eti.qualaboa.map.geo.GeoUtils;
+import com.eti.qualaboa.map.geo.SnappedArea;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SnappedAreaTest {
+
+    private final double LAT = -23.42;
+    private final double LNG = -51.93;
+
+    @Test
+    @DisplayName("GeoHash deve codificar e a célula deve conter o ponto")
+    void geoHash_CelulaDeveConterOPonto() {
+        assertThat(GeoHash.encode(42.6, -5.6, 5)).isEqualTo("ezs42");
+
+        String hash = GeoHash.encode(LAT, LNG, 7);
+        double[] b = GeoHash.bounds(hash);
+
+        assertThat(hash).hasSize(7);
+        assertThat(LAT).isBetween(b[0], b[2]);
+        assertThat(LNG).isBetween(b[1], b[3]);
+    }
+
+    @Test
+    @DisplayName("Consulta ao Google deve cobrir todo o círculo pedido")
+    void of_DeveCobrirCirculoPedido() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000; i++) {
+            double lat = LAT + (random.nextDouble() - 0.5) * 0.2;
+            double lng = LNG + (random.nextDouble() - 0.5) * 0.2;
+            int raio = 100 + random.nextInt(20_000);
+
+            SnappedArea area = SnappedArea.of(lat, lng, raio);
+            double centroAoCentro = GeoUtils.distanciaMetros(lat, lng, area.centerLat(), area.centerLng());
+
+            assertThat(area.radiusBucket()).isGreaterThanOrEqualTo(raio);
+            assertThat(centroAoCentro + raio).isLessThanOrEqualTo(area.upstreamRadius());
+        }
+    }
+
+    @Test
+    @DisplayName("Degraus maiores devem cobrir o círculo inteiro sem passar dos 50 km do Google")
+    void of_DegrausMaioresDevemCobrirCirculo() {
+        Random random = new Random(11);
+        for (int raio : new int[]{20_000, 25_000, 30_000, 40_000, 49_000}) {
+            for (int i = 0; i < 1_000; i++) {
+                // perto do equador a célula é mais larga, então a meia diagonal é a maior
+                double lat = (random.nextDouble() - 0.5) * 120;
+                double lng = (random.nextDouble() - 0.5) * 360;
+
+                SnappedArea area = SnappedArea.of(lat, lng, raio);
+                double centroAoCentro = GeoUtils.distanciaMetros(lat, lng, area.centerLat(), area.centerLng());
+
+                assertThat(area.radiusBucket()).isGreaterThanOrEqualTo(raio);
+                assertThat(area.upstreamRadius()).isLessThanOrEqualTo(50_000);
+                assertThat(centroAoCentro + raio).isLessThanOrEqualTo(area.upstreamRadius());
+            }
+        }
+        assertThat(SnappedArea.of(LAT, LNG, 80_000).radiusBucket()).isEqualTo(49_000);
+    }
+
+    @Test
+    @DisplayName("Chave arredondada deve elevar o hit ratio para usuários próximos")
+    void hitRatio_ChaveArredondadaVsChaveCrua() {
+        double hitRatioCru = simular(p -> "places:" + p[0] + ":" + p[1] + ":1000:");
+        double hitRatioGeohash = simular(p -> SnappedArea.of(p[0], p[1], 1000).cacheKey(null));
+
+        assertThat(hitRatioCru).isLessThan(0.01);
+        assertThat(hitRatioGeohash).isGreaterThan(0.9);
+    }
+
+    // 5.000 requisições espalhadas a até ~50 m de 20 pontos movimentados
+    private double simular(Function<double[], String> chave) {
+        Cache<String, Boolean> cache = Caffeine.newBuilder().maximumSize(5_000).recordStats().build();
+        Random random = new Random(42);
+        double[][] pontos = new double[20][];
+        for (int i = 0; i < pontos.length; i++) {
+            pontos[i] = new double[]{LAT + random.nextDouble() * 0.1, LNG + random.nextDouble() * 0.1};
+        }
+        for (int i = 0; i < 5_000; i++) {
+            double[] base = pontos[random.nextInt(pontos.length)];
+            double[] p = {base[0] + (random.nextDouble() - 0.5) * 0.0009, base[1] + (random.nextDouble() - 0.5) * 0.0009};
+            cache.get(chave.apply(p), k -> true);
+        }
+        return cache.stats().hitRate();
+    }
+}
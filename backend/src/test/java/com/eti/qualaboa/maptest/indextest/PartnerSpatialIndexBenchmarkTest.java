@@ -0,0 +1,168 @@
+package com.eti.qualaboa.maptest.indextest;
+
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoGeoSchema;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.support.TestPropertySourceUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mede o p99 da busca por raio no índice em memória e na consulta PostGIS, conferindo que as
+ * duas devolvem os mesmos parceiros. Os tempos vão para o relatório do teste e não decidem o
+ * resultado. Mede também o p99 com escritas no meio das leituras, que não podem pagar a
+ * reconstrução da árvore. Só roda quando há Docker disponível.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = PartnerSpatialIndexBenchmarkTest.Initializer.class)
+@TestPropertySource(properties = "spring.sql.init.mode=never")
+@EntityScan(basePackages = "com.eti.qualaboa")
+public class PartnerSpatialIndexBenchmarkTest {
+
+    private static final int PARCEIROS = 20_000;
+    private static final int CONSULTAS = 2_000;
+    private static final int RAIO = 1_000;
+    private static final int ESCRITA_A_CADA = 10;
+    private static final double LAT = -23.42;
+    private static final double LNG = -51.93;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.3").asCompatibleSubstituteFor("postgres"))
+            .withDatabaseName("qualaboa")
+            .withUsername("qualaboa_user")
+            .withPassword("senha123");
+
+    static class Initializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertySourceUtils.addInlinedPropertiesToEnvironment(
+                    applicationContext,
+                    "spring.datasource.url=" + postgresContainer.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresContainer.getUsername(),
+                    "spring.datasource.password=" + postgresContainer.getPassword(),
+                    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+                    "spring.jpa.hibernate.ddl-auto=create-drop"
+            );
+        }
+    }
+
+    @Autowired
+    private EstabelecimentoRepository estRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private PartnerSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS postgis");
+        new EstabelecimentoGeoSchema(jdbcTemplate).run();
+        jdbcTemplate.update("""
+                INSERT INTO estabelecimentos (nome, parceiro, latitude, longitude)
+                SELECT 'Bar ' || i, true, ? + (random() - 0.5) * 0.4, ? + (random() - 0.5) * 0.4
+                FROM generate_series(1, ?) AS i
+                """, LAT, LNG, PARCEIROS);
+        jdbcTemplate.execute("ANALYZE estabelecimentos");
+
+        index = new PartnerSpatialIndex(estRepo);
+        index.carregar();
+    }
+
+    @Test
+    @DisplayName("Índice em memória deve devolver os mesmos parceiros que a consulta PostGIS")
+    void compararP99(TestReporter reporter) {
+        Random random = new Random(42);
+        double[][] centros = new double[CONSULTAS][2];
+        for (double[] c : centros) {
+            c[0] = LAT + (random.nextDouble() - 0.5) * 0.3;
+            c[1] = LNG + (random.nextDouble() - 0.5) * 0.3;
+        }
+
+        long[] postgis = new long[CONSULTAS];
+        long[] memoria = new long[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            double lat = centros[i][0];
+            double lng = centros[i][1];
+
+            long t0 = System.nanoTime();
+            int n1 = estRepo.findAllWithinRadiusPostGis(lat, lng, RAIO).size();
+            postgis[i] = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            List<PartnerPoint> pins = index.findWithinRadius(lat, lng, RAIO);
+            memoria[i] = System.nanoTime() - t0;
+
+            assertThat(pins).hasSize(n1);
+        }
+
+        reporter.publishEntry("p99PostgisNanos", String.valueOf(p99(postgis)));
+        reporter.publishEntry("p99MemoriaNanos", String.valueOf(p99(memoria)));
+    }
+
+    @Test
+    @DisplayName("Leituras intercaladas com escritas devem ver cada escrita sem reconstruir a árvore na consulta")
+    void compararP99ComEscritas(TestReporter reporter) {
+        Random random = new Random(7);
+        long[] escritas = new long[CONSULTAS / ESCRITA_A_CADA];
+        long[] leituras = new long[CONSULTAS - escritas.length];
+        int n = 0;
+        for (int i = 0; i < CONSULTAS; i++) {
+            double lat = LAT + (random.nextDouble() - 0.5) * 0.3;
+            double lng = LNG + (random.nextDouble() - 0.5) * 0.3;
+
+            if (i % ESCRITA_A_CADA == 0) {
+                // parceiro novo bem no centro da próxima consulta
+                long id = PARCEIROS + 1L + i;
+                long t0 = System.nanoTime();
+                index.onAlterado(new EstabelecimentoAlteradoEvent(id, "Novo " + id, null, true, lat, lng,
+                        null, null, null, List.of(), null));
+                escritas[i / ESCRITA_A_CADA] = System.nanoTime() - t0;
+
+                assertThat(index.findWithinRadius(lat, lng, RAIO)).extracting(PartnerPoint::id).contains(id);
+                continue;
+            }
+
+            long t0 = System.nanoTime();
+            index.findWithinRadius(lat, lng, RAIO);
+            leituras[n++] = System.nanoTime() - t0;
+        }
+
+        reporter.publishEntry("p99LeituraComEscritasNanos", String.valueOf(p99(leituras)));
+        reporter.publishEntry("p99EscritaNanos", String.valueOf(p99(escritas)));
+    }
+
+    private static long p99(long[] amostras) {
+        long[] ordenadas = amostras.clone();
+        Arrays.sort(ordenadas);
+        return ordenadas[(int) Math.ceil(ordenadas.length * 0.99) - 1];
+    }
+}
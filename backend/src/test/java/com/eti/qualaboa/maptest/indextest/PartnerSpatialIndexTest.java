@@ -0,0 +1,199 @@
+package com.eti.qualaboa.maptest.indextest;
+
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.map.geo.Corridor;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.places.model.LatLng;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PartnerSpatialIndexTest {
+
+    @Mock
+    private EstabelecimentoRepository estRepo;
+
+    @InjectMocks
+    private PartnerSpatialIndex index;
+
+    private final double LAT = -23.42;
+    private final double LNG = -51.93;
+
+    @BeforeEach
+    void setUp() {
+        Estabelecimento perto = Estabelecimento.builder()
+                .idEstabelecimento(1L).nome("Bar Perto").parceiro(true)
+                .latitude(LAT + 0.001).longitude(LNG).build();
+        Estabelecimento longe = Estabelecimento.builder()
+                .idEstabelecimento(2L).nome("Bar Longe").parceiro(true)
+                .latitude(LAT + 0.1).longitude(LNG).build();
+
+        when(estRepo.findByParceiroTrueAndLatitudeIsNotNullAndLongitudeIsNotNull())
+                .thenReturn(List.of(perto, longe));
+        index.carregar();
+    }
+
+    private EstabelecimentoAlteradoEvent evento(Long id, boolean parceiro, double lat, double lng) {
+        return new EstabelecimentoAlteradoEvent(id, "Bar " + id, "place-" + id, parceiro, lat, lng, null, null, null, List.of(), null);
+    }
+
+    @Test
+    @DisplayName("Deve retornar apenas parceiros dentro do raio")
+    void findWithinRadius_DeveFiltrarPeloRaio() {
+        List<PartnerPoint> pins = index.findWithinRadius(LAT, LNG, 1000);
+
+        assertThat(pins).extracting(PartnerPoint::nome).containsExactly("Bar Perto");
+    }
+
+    @Test
+    @DisplayName("Deve refletir criação incremental sem recarregar do banco")
+    void onAlterado_DeveIncluirNovoParceiro() {
+        index.findWithinRadius(LAT, LNG, 1000);
+
+        index.onAlterado(evento(3L, true, LAT, LNG + 0.001));
+
+        assertThat(index.findWithinRadius(LAT, LNG, 1000))
+                .extracting(PartnerPoint::id)
+                .containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Deve mover o ponto quando a localização for atualizada")
+    void onAlterado_DeveMoverParceiro() {
+        index.onAlterado(evento(1L, true, LAT + 0.5, LNG));
+
+        assertThat(index.findWithinRadius(LAT, LNG, 1000)).isEmpty();
+        assertThat(index.findWithinRadius(LAT + 0.5, LNG, 1000))
+                .extracting(PartnerPoint::id)
+                .containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deve remover estabelecimento que deixou de ser parceiro ou foi deletado")
+    void onAlteradoERemovido_DevemTirarDoIndice() {
+        index.onAlterado(evento(1L, false, LAT, LNG));
+        index.onRemovido(new EstabelecimentoRemovidoEvent(2L));
+
+        assertThat(index.findWithinRadius(LAT, LNG, 50_000)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Escritas devem valer na hora e continuar valendo depois da reconstrução da árvore")
+    void onAlterado_DeveValerAntesEDepoisDaReconstrucao() {
+        index.onAlterado(evento(1L, true, LAT + 0.5, LNG));
+        index.onAlterado(evento(3L, true, LAT, LNG + 0.001));
+        index.onRemovido(new EstabelecimentoRemovidoEvent(2L));
+
+        assertThat(index.findWithinRadius(LAT, LNG, 50_000)).extracting(PartnerPoint::id).containsExactly(3L);
+
+        // a reconstrução roda em segundo plano logo depois; o resultado não pode mudar com ela
+        await().pollDelay(Duration.ofMillis(500)).atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            assertThat(index.findWithinRadius(LAT, LNG, 50_000)).extracting(PartnerPoint::id).containsExactly(3L);
+            assertThat(index.findNearest(LAT + 0.5, LNG, 1)).extracting(PartnerPoint::id).containsExactly(1L);
+        });
+    }
+
+    @Test
+    @DisplayName("Deve devolver os k parceiros mais próximos ordenados pela distância")
+    void findNearest_DeveOrdenarPorDistancia() {
+        index.onAlterado(evento(3L, true, LAT + 0.01, LNG));
+        index.onAlterado(evento(4L, true, LAT + 0.0005, LNG));
+
+        assertThat(index.findNearest(LAT, LNG, 3))
+                .extracting(PartnerPoint::id)
+                .containsExactly(4L, 1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Deve ampliar a busca até achar parceiros distantes")
+    void findNearest_ParceiroDistante_DeveEncontrar() {
+        index.onAlterado(evento(3L, true, 48.85, 2.35)); // Paris
+
+        assertThat(index.findNearest(LAT, LNG, 10))
+                .extracting(PartnerPoint::id)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(index.findNearest(48.85, 2.35, 1))
+                .extracting(PartnerPoint::id)
+                .containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve encontrar o mais próximo do outro lado do antimeridiano")
+    void findNearest_Antimeridiano_DeveEncontrar() {
+        index.onAlterado(evento(3L, true, -17.7, 179.9));  // ~21 km, do outro lado
+        index.onAlterado(evento(4L, true, -17.7, -179.5)); // ~42 km, do mesmo lado
+
+        assertThat(index.findNearest(-17.7, -179.9, 1))
+                .extracting(PartnerPoint::id)
+                .containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("k não positivo deve devolver lista vazia")
+    void findNearest_KZero_DeveSerVazio() {
+        assertThat(index.findNearest(LAT, LNG, 0)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("forEachWithinRadius deve entregar os mesmos parceiros do findWithinRadius")
+    void forEachWithinRadius_DeveEntregarParceirosDoRaio() {
+        List<PartnerPoint> entregues = new ArrayList<>();
+
+        index.forEachWithinRadius(LAT, LNG, 1000, entregues::add);
+
+        assertThat(entregues).extracting(PartnerPoint::nome).containsExactly("Bar Perto");
+    }
+
+    @Test
+    @DisplayName("Corredor deve trazer só os parceiros perto da rota, na ordem do trajeto")
+    void findInCorridor_DeveFiltrarEOrdenarPelaRota() {
+        // rota para o norte e depois para o leste; o 4 fica no fim, o 3 no meio, o 5 a ~300 m da rota
+        index.onAlterado(evento(3L, true, LAT + 0.01, LNG + 0.0005));
+        index.onAlterado(evento(4L, true, LAT + 0.02, LNG + 0.015));
+        index.onAlterado(evento(5L, true, LAT + 0.01, LNG + 0.003));
+        Corridor corredor = Corridor.de(List.of(
+                new LatLng(LAT, LNG), new LatLng(LAT + 0.02, LNG), new LatLng(LAT + 0.02, LNG + 0.02)), 200);
+
+        assertThat(index.findInCorridor(corredor))
+                .extracting(PartnerPoint::id)
+                .containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Corredor cruzando o antimeridiano deve consultar os dois lados")
+    void findInCorridor_Antimeridiano_DeveConsultarOsDoisLados() {
+        index.onAlterado(evento(3L, true, -17.7, 179.99));
+        index.onAlterado(evento(4L, true, -17.7, -179.99));
+        Corridor corredor = Corridor.de(List.of(new LatLng(-17.7, 179.98), new LatLng(-17.7, -179.98)), 500);
+
+        assertThat(index.findInCorridor(corredor))
+                .extracting(PartnerPoint::id)
+                .containsExactly(3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Rota com menos de dois pontos deve ser rejeitada")
+    void corridor_RotaCurta_DeveFalhar() {
+        assertThatThrownBy(() -> Corridor.de(List.of(new LatLng(LAT, LNG)), 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.eti.qualaboa.maptest.placestest;
+
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.places.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong agora = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        MapProperties.Breaker config = new MapProperties.Breaker();
+        config.setSlidingWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setOpenDuration(Duration.ofSeconds(30));
+        config.setHalfOpenCalls(2);
+        breaker = new CircuitBreaker(config, agora::get);
+    }
+
+    private void chamar(boolean falha) {
+        assertThat(breaker.permite()).isTrue();
+        if (falha) {
+            breaker.registrarFalha();
+        } else {
+            breaker.registrarSucesso();
+        }
+    }
+
+    private void abrir() {
+        for (int i = 0; i < 4; i++) {
+            chamar(true);
+        }
+        assertThat(breaker.getEstado()).isEqualTo(CircuitBreaker.Estado.ABERTO);
+    }
+
+    @Test
+    @DisplayName("Não deve abrir antes do mínimo de chamadas")
+    void poucasChamadas_NaoDeveAbrir() {
+        chamar(true);
+        chamar(true);
+        chamar(true);
+
+        assertThat(breaker.getEstado()).isEqualTo(CircuitBreaker.Estado.FECHADO);
+    }
+
+    @Test
+    @DisplayName("Taxa de falhas abaixo do limite deve manter o circuito fechado")
+    void taxaBaixa_DeveFicarFechado() {
+        for (int i = 0; i < 10; i++) {
+            chamar(i % 4 == 3);
+        }
+
+        assertThat(breaker.getEstado()).isEqualTo(CircuitBreaker.Estado.FECHADO);
+    }
+
+    @Test
+    @DisplayName("Aberto deve recusar até o tempo de espera passar")
+    void aberto_DeveRecusarAteOTempoPassar() {
+        abrir();
+
+        assertThat(breaker.permite()).isFalse();
+        agora.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertThat(breaker.permite()).isFalse();
+        agora.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(breaker.permite()).isTrue();
+        assertThat(breaker.getEstado()).isEqualTo(CircuitBreaker.Estado.MEIO_ABERTO);
+    }
+
+    @Test
+    @DisplayName("Meio aberto deve limitar as chamadas de teste e fechar quando todas derem certo")
+    void meioAberto_Sucessos_DeveFechar() {
+        abrir();
+        agora.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertThat(breaker.permite()).isTrue();
+        assertThat(breaker.permite()).isTrue();
+        assertThat(breaker.permite()).isFalse();
+        breaker.registrarSucesso();
+        breaker.registrarSucesso();
+
+        assertThat(breaker.getEstado()).isEqualTo(CircuitBreaker.Estado.FECHADO);
+        assertThat(breaker.permite()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Falha no meio aberto deve reabrir o circuito")
+    void meioAberto_Falha_DeveReabrir() {
+        abrir();
+        agora.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        chamar(true);
+
+        assertThat(breaker.getEstado()).isEqualTo(CircuitBreaker.Estado.ABERTO);
+        assertThat(breaker.permite()).isFalse();
+    }
+}
@@ -0,0 +1,122 @@
+package com.eti.qualaboa.maptest.placestest;
+
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.PlacesResilience;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara o heap ocupado pelo cache "places" com as respostas do Google em
+ * Map<String, Object> (formato antigo) e no modelo tipado com locais internados.
+ * Mede amostras e projeta para o cache cheio (maximumSize = 5000); a projeção do tipado
+ * é pessimista, já que com mais entradas os locais repetidos passam a ser reaproveitados.
+ */
+public class PlacesCacheFootprintTest {
+
+    private static final int CACHE_CHEIO = 5_000;
+    private static final int ENTRADAS = 200;
+    // o Map bruto não compartilha nada entre entradas, então cresce linear e basta uma amostra menor
+    private static final int ENTRADAS_BRUTO = 20;
+    private static final int RESULTADOS_POR_BUSCA = 20;
+    // buscas vizinhas se sobrepõem: o mesmo local aparece em várias entradas
+    private static final int LOCAIS_DISTINTOS = 2_000;
+
+    static {
+        // records não expõem o offset dos campos pelo Unsafe no JDK 17
+        System.setProperty("jol.magicFieldOffset", "true");
+    }
+
+    private MockWebServer server;
+    private PlacesClient placesClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                int busca = Integer.parseInt(request.getRequestUrl().queryParameter("radius"));
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(respostaGoogle(busca));
+            }
+        });
+        server.start();
+
+        MapProperties properties = new MapProperties();
+        placesClient = new PlacesClient(new PlacesResilience(properties, new SimpleMeterRegistry()), properties);
+        ReflectionTestUtils.setField(placesClient, "apiKey", "test-key");
+        ReflectionTestUtils.setField(placesClient, "baseUrl", server.url("/place").toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    // resposta no formato real do nearbySearch, com os campos que o PinDTO ignora
+    private static String respostaGoogle(int busca) {
+        StringJoiner results = new StringJoiner(",");
+        for (int i = 0; i < RESULTADOS_POR_BUSCA; i++) {
+            int local = (busca * 7 + i) % LOCAIS_DISTINTOS;
+            double lat = -23.42 + local * 0.0001;
+            double lng = -51.93 - local * 0.0001;
+            results.add("""
+                    {"business_status":"OPERATIONAL",
+                     "geometry":{"location":{"lat":%1$s,"lng":%2$s},
+                       "viewport":{"northeast":{"lat":%1$s,"lng":%2$s},"southwest":{"lat":%1$s,"lng":%2$s}}},
+                     "icon":"https://maps.gstatic.com/mapfiles/place_api/icons/v1/png_71/bar-71.png",
+                     "icon_background_color":"#FF9E67",
+                     "icon_mask_base_uri":"https://maps.gstatic.com/mapfiles/place_api/icons/v2/bar_pinlet",
+                     "name":"Bar %3$d","opening_hours":{"open_now":true},
+                     "photos":[{"height":3024,"width":4032,
+                       "html_attributions":["<a href=\\"https://maps.google.com/maps/contrib/1\\">Autor</a>"],
+                       "photo_reference":"AcJnMuE%3$08dxQm1vZ9s7lTqfXn1YbB2kPz4hR6wC8uJ0aD3eF5gH7iK9mL2nO4pQ6rS8tU0vW"}],
+                     "place_id":"ChIJ%3$08dAAAAAAAAAA","plus_code":{"compound_code":"H3M8+XX Londrina","global_code":"588MH3M8+XX"},
+                     "price_level":2,"rating":4.3,"reference":"ChIJ%3$08dAAAAAAAAAA","scope":"GOOGLE",
+                     "types":["bar","restaurant","food","point_of_interest","establishment"],
+                     "user_ratings_total":812,"vicinity":"Rua %3$d, Londrina"}
+                    """.formatted(lat, lng, local));
+        }
+        return "{\"html_attributions\":[],\"results\":[" + results + "],\"status\":\"OK\"}";
+    }
+
+    @Test
+    @DisplayName("Cache tipado deve ocupar uma fração do heap das respostas em Map")
+    void cacheTipado_DeveOcuparMenosHeapQueMapBruto() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<Map<?, ?>> bruto = new ArrayList<>(ENTRADAS_BRUTO);
+        for (int busca = 0; busca < ENTRADAS_BRUTO; busca++) {
+            bruto.add(mapper.readValue(respostaGoogle(busca), Map.class));
+        }
+        List<PlaceSearchResponse> tipado = new ArrayList<>(ENTRADAS);
+        for (int busca = 0; busca < ENTRADAS; busca++) {
+            tipado.add(placesClient.nearbySearch(-23.42, -51.93, busca, "bar", Prioridade.INTERATIVA));
+        }
+
+        long projecaoBruto = GraphLayout.parseInstance(bruto).totalSize() * CACHE_CHEIO / ENTRADAS_BRUTO;
+        long projecaoTipado = GraphLayout.parseInstance(tipado).totalSize() * CACHE_CHEIO / ENTRADAS;
+
+        assertThat(tipado).allSatisfy(r -> assertThat(r.results()).hasSize(RESULTADOS_POR_BUSCA));
+        assertThat(projecaoTipado * 5).isLessThan(projecaoBruto);
+    }
+}
@@ -0,0 +1,214 @@
+package com.eti.qualaboa.maptest.placestest;
+
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.places.CotaEsgotadaException;
+import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.PlacesIndisponivelException;
+import com.eti.qualaboa.map.places.PlacesResilience;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.places.model.PlaceReviewsResponse;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.eti.qualaboa.map.places.model.PlaceSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PlacesClientTest {
+
+    private MockWebServer server;
+    private PlacesClient placesClient;
+    private MapProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        properties = new MapProperties();
+        properties.getPlaces().setDetailsTimeout(Duration.ofMillis(300));
+        properties.getPlaces().getBreaker().setSlidingWindowSize(4);
+        properties.getPlaces().getBreaker().setMinimumCalls(4);
+        criarClient();
+    }
+
+    private void criarClient() {
+        registry = new SimpleMeterRegistry();
+        placesClient = new PlacesClient(new PlacesResilience(properties, registry), properties);
+        ReflectionTestUtils.setField(placesClient, "apiKey", "test-key");
+        ReflectionTestUtils.setField(placesClient, "baseUrl", server.url("/place").toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private void responder(String body) {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody(body));
+    }
+
+    @Test
+    @DisplayName("nearbySearch deve manter só os campos usados pelo PinDTO")
+    void nearbySearch_DeveConverterParaResumo() {
+        responder("""
+                {"status":"OK","next_page_token":"tok","results":[
+                  {"place_id":"g1","name":"Boteco","vicinity":"Rua X","rating":4.5,"types":["bar"],
+                   "geometry":{"location":{"lat":-23.42,"lng":-51.93},"viewport":{}}},
+                  {"place_id":"g2","name":"Sem Geometria"}
+                ]}
+                """);
+
+        PlaceSearchResponse r = placesClient.nearbySearch(-23.42, -51.93, 1000, "bar", Prioridade.INTERATIVA);
+
+        assertThat(r.status()).isEqualTo("OK");
+        assertThat(r.nextPageToken()).isEqualTo("tok");
+        assertThat(r.results()).containsExactly(new PlaceSummary("g1", "Boteco", -23.42, -51.93, "Rua X"));
+    }
+
+    @Test
+    @DisplayName("textSearch deve usar formatted_address quando não houver vicinity")
+    void textSearch_SemVicinity_DeveUsarEnderecoFormatado() {
+        responder("""
+                {"status":"OK","results":[{"place_id":"g1","name":"Boteco","formatted_address":"Rua X, 10",
+                 "geometry":{"location":{"lat":-23.42,"lng":-51.93}}}]}
+                """);
+
+        PlaceSearchResponse r = placesClient.textSearch("boteco", -23.42, -51.93, 1000, Prioridade.INTERATIVA);
+
+        assertThat(r.results()).extracting(PlaceSummary::vicinity).containsExactly("Rua X, 10");
+    }
+
+    @Test
+    @DisplayName("O mesmo local em buscas diferentes deve ser a mesma instância")
+    void nearbySearch_MesmoLocal_DeveSerInternado() {
+        String corpo = """
+                {"status":"OK","results":[{"place_id":"g1","name":"Boteco","vicinity":"Rua X",
+                 "geometry":{"location":{"lat":-23.42,"lng":-51.93}}}]}
+                """;
+        responder(corpo);
+        responder(corpo);
+
+        PlaceSummary primeiro = placesClient.nearbySearch(-23.42, -51.93, 1000, "bar", Prioridade.INTERATIVA).results().get(0);
+        PlaceSummary segundo = placesClient.nearbySearch(-23.42, -51.93, 2000, "bar", Prioridade.INTERATIVA).results().get(0);
+
+        assertThat(segundo).isSameAs(primeiro);
+    }
+
+    @Test
+    @DisplayName("nearbySearchNextPage deve pedir só pelo pagetoken")
+    void nearbySearchNextPage_DeveEnviarSoOToken() throws InterruptedException {
+        responder("""
+                {"status":"OK","results":[{"place_id":"g21","name":"Bar 21","vicinity":"Rua Y",
+                 "geometry":{"location":{"lat":-23.42,"lng":-51.93}}}]}
+                """);
+
+        PlaceSearchResponse r = placesClient.nearbySearchNextPage("tok", Prioridade.INTERATIVA);
+
+        assertThat(r.results()).extracting(PlaceSummary::placeId).containsExactly("g21");
+        assertThat(r.nextPageToken()).isNull();
+        String caminho = server.takeRequest().getPath();
+        assertThat(caminho).contains("/nearbysearch/json", "pagetoken=tok").doesNotContain("location");
+    }
+
+    @Test
+    @DisplayName("placeDetails deve converter para o modelo tipado")
+    void placeDetails_DeveConverterParaModelo() {
+        responder("""
+                {"status":"OK","html_attributions":[],"result":{"place_id":"g1","name":"Boteco",
+                 "formatted_address":"Rua X, 10","geometry":{"location":{"lat":-23.42,"lng":-51.93}},
+                 "formatted_phone_number":"(43) 3333-3333","website":"https://boteco.example",
+                 "opening_hours":{"open_now":true,"weekday_text":["segunda-feira: 18:00–02:00"],"periods":[]}}}
+                """);
+
+        PlaceDetailsResponse r = placesClient.placeDetails("g1", Prioridade.INTERATIVA);
+
+        assertThat(r.status()).isEqualTo("OK");
+        assertThat(r.result().name()).isEqualTo("Boteco");
+        assertThat(r.result().geometry().location().lat()).isEqualTo(-23.42);
+        assertThat(r.result().openingHours().openNow()).isTrue();
+        assertThat(r.result().openingHours().weekdayText()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("getPlaceReviews deve converter as avaliações")
+    void getPlaceReviews_DeveConverterAvaliacoes() {
+        responder("""
+                {"status":"OK","result":{"name":"Boteco","rating":4.4,"user_ratings_total":120,
+                 "reviews":[{"author_name":"Ana","rating":5,"text":"Ótimo","time":1700000000,
+                 "relative_time_description":"há um mês","language":"pt"}]}}
+                """);
+
+        PlaceReviewsResponse r = placesClient.getPlaceReviews("g1", Prioridade.INTERATIVA);
+
+        assertThat(r.result().userRatingsTotal()).isEqualTo(120);
+        assertThat(r.result().reviews()).singleElement()
+                .satisfies(rev -> assertThat(rev.authorName()).isEqualTo("Ana"));
+    }
+
+    @Test
+    @DisplayName("Chamada mais lenta que o timeout da operação deve falhar sem esperar o Google")
+    void placeDetails_Lento_DeveEstourarTimeout() {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody("{\"status\":\"OK\"}").setBodyDelay(2, TimeUnit.SECONDS));
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> placesClient.placeDetails("g1", Prioridade.INTERATIVA))
+                .isInstanceOf(PlacesIndisponivelException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Depois de falhas seguidas o circuito deve abrir e parar de chamar o Google")
+    void placeDetails_FalhasSeguidas_DeveAbrirCircuito() {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> placesClient.placeDetails("g1", Prioridade.INTERATIVA)).isInstanceOf(PlacesIndisponivelException.class);
+        }
+
+        assertThatThrownBy(() -> placesClient.placeDetails("g1", Prioridade.INTERATIVA))
+                .isInstanceOf(PlacesIndisponivelException.class)
+                .hasMessageContaining("aberto");
+        assertThat(server.getRequestCount()).isEqualTo(4);
+        assertThat(registry.get("places.circuitbreaker.state").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("places.calls").tags("operacao", "placeDetails", "resultado", "circuito_aberto")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Cota interativa esgotada não deve chamar o Google nem consumir a cota de segundo plano")
+    void placeDetails_CotaEsgotada_DeveRecusarSoAClasse() {
+        properties.getPlaces().getQuota().setInteractive(new MapProperties.Orcamento(100, 2));
+        criarClient();
+        String corpo = "{\"status\":\"OK\",\"result\":{\"place_id\":\"g1\",\"name\":\"Boteco\"}}";
+        responder(corpo);
+        responder(corpo);
+        responder(corpo);
+        placesClient.placeDetails("g1", Prioridade.INTERATIVA);
+        placesClient.placeDetails("g1", Prioridade.INTERATIVA);
+
+        assertThatThrownBy(() -> placesClient.placeDetails("g1", Prioridade.INTERATIVA))
+                .isInstanceOf(CotaEsgotadaException.class);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(placesClient.placeDetails("g1", Prioridade.SEGUNDO_PLANO).result().name()).isEqualTo("Boteco");
+        assertThat(registry.get("places.quota.remaining").tag("classe", "interativa").gauge().value()).isLessThan(1.0);
+        assertThat(registry.get("places.calls").tags("operacao", "placeDetails", "resultado", "cota_esgotada")
+                .counter().count()).isEqualTo(1.0);
+    }
+}
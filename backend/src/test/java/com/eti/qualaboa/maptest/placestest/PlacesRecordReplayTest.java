@@ -0,0 +1,140 @@
+package com.eti.qualaboa.maptest.placestest;
+
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.PlacesIndisponivelException;
+import com.eti.qualaboa.map.places.PlacesResilience;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PlacesRecordReplayTest {
+
+    @TempDir
+    Path fixtures;
+
+    private MockWebServer google;
+    private MockWebServer standIn;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        google = new MockWebServer();
+        google.start();
+        google.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("""
+                {"status":"OK","results":[{"place_id":"g1","name":"Boteco","vicinity":"Rua X",
+                 "geometry":{"location":{"lat":-23.42,"lng":-51.93}}}]}
+                """));
+        google.enqueue(new MockResponse().setHeader("Content-Type", "application/json").setBody("""
+                {"status":"OK","result":{"place_id":"g1","name":"Boteco","formatted_address":"Rua X, 10"}}
+                """));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        google.shutdown();
+        if (standIn != null) {
+            standIn.shutdown();
+        }
+    }
+
+    private PlacesClient client(String baseUrl, String recordDir) {
+        MapProperties properties = new MapProperties();
+        PlacesClient client = new PlacesClient(new PlacesResilience(properties, new SimpleMeterRegistry()), properties);
+        ReflectionTestUtils.setField(client, "apiKey", "chave-secreta");
+        ReflectionTestUtils.setField(client, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(client, "recordDir", recordDir);
+        ReflectionTestUtils.invokeMethod(client, "configurarGravacao");
+        return client;
+    }
+
+    private PlacesClient gravarEDevolverClientDeReplay(Duration latencia, double taxaDeErro) throws IOException {
+        PlacesClient gravador = client(google.url("/maps/api/place").toString(), fixtures.toString());
+        gravador.nearbySearch(-23.42, -51.93, 1000, "bar|restaurant", Prioridade.INTERATIVA);
+        gravador.placeDetails("g1", Prioridade.INTERATIVA);
+
+        standIn = new MockWebServer();
+        standIn.setDispatcher(new PlacesStandIn(fixtures, latencia, taxaDeErro, 42));
+        standIn.start();
+        return client(standIn.url("/place").toString(), "");
+    }
+
+    @Test
+    @DisplayName("Modo gravação deve salvar uma fixture por requisição sem a API key")
+    void gravacao_DeveSalvarFixturesSemChave() throws IOException {
+        gravarEDevolverClientDeReplay(Duration.ZERO, 0);
+
+        List<Path> arquivos;
+        try (Stream<Path> s = Files.list(fixtures)) {
+            arquivos = s.sorted().toList();
+        }
+        assertThat(arquivos).extracting(p -> p.getFileName().toString())
+                .satisfiesExactly(
+                        n -> assertThat(n).startsWith("details-"),
+                        n -> assertThat(n).startsWith("nearbysearch-"));
+        for (Path arquivo : arquivos) {
+            assertThat(Files.readString(arquivo)).doesNotContain("chave-secreta");
+        }
+    }
+
+    @Test
+    @DisplayName("Stand-in deve reproduzir as respostas gravadas para as mesmas requisições")
+    void replay_DeveResponderComAsFixtures() throws IOException {
+        PlacesClient replay = gravarEDevolverClientDeReplay(Duration.ZERO, 0);
+
+        PlaceSearchResponse busca = replay.nearbySearch(-23.42, -51.93, 1000, "bar|restaurant", Prioridade.INTERATIVA);
+        PlaceDetailsResponse detalhes = replay.placeDetails("g1", Prioridade.INTERATIVA);
+
+        assertThat(busca.results()).extracting(r -> r.name()).containsExactly("Boteco");
+        assertThat(detalhes.result().formattedAddress()).isEqualTo("Rua X, 10");
+        assertThat(google.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Stand-in deve aplicar a latência configurada")
+    void replay_DeveAplicarLatencia() throws IOException {
+        PlacesClient replay = gravarEDevolverClientDeReplay(Duration.ofMillis(300), 0);
+
+        long inicio = System.nanoTime();
+        replay.placeDetails("g1", Prioridade.INTERATIVA);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - inicio)).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+    }
+
+    @Test
+    @DisplayName("Stand-in com taxa de erro total deve falhar todas as chamadas")
+    void replay_TaxaDeErro_DeveFalhar() throws IOException {
+        PlacesClient replay = gravarEDevolverClientDeReplay(Duration.ZERO, 1.0);
+
+        assertThatThrownBy(() -> replay.placeDetails("g1", Prioridade.INTERATIVA))
+                .isInstanceOf(PlacesIndisponivelException.class);
+    }
+
+    @Test
+    @DisplayName("Requisição sem fixture deve falhar em vez de ir ao Google")
+    void replay_SemFixture_DeveFalhar() throws IOException {
+        PlacesClient replay = gravarEDevolverClientDeReplay(Duration.ZERO, 0);
+
+        assertThatThrownBy(() -> replay.placeDetails("outro", Prioridade.INTERATIVA))
+                .isInstanceOf(PlacesIndisponivelException.class);
+        assertThat(google.getRequestCount()).isEqualTo(2);
+    }
+}
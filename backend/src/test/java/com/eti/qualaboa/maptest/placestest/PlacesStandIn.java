@@ -0,0 +1,92 @@
+package com.eti.qualaboa.maptest.placestest;
+
+import com.eti.qualaboa.map.places.PlacesFixture;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Substituto local do Google Places: responde com as fixtures gravadas pelo PlacesRecorder,
+ * com latência e taxa de erro configuráveis, para medir o caminho do mapa sem rede nem chave.
+ * Requisição sem fixture recebe 404. A semente fixa deixa os erros reproduzíveis.
+ * <p>
+ * Também roda sozinho, apontando {@code google.places.baseUrl} para ele:
+ * {@code PlacesStandIn <diretorio> [porta] [latenciaMs] [taxaDeErro]}.
+ */
+public class PlacesStandIn extends Dispatcher {
+
+    private final Map<String, PlacesFixture> fixtures = new HashMap<>();
+    private final Duration latencia;
+    private final double taxaDeErro;
+    private final Random aleatorio;
+    private final AtomicInteger atendidas = new AtomicInteger();
+
+    public PlacesStandIn(Path diretorio, Duration latencia, double taxaDeErro, long semente) throws IOException {
+        this.latencia = latencia;
+        this.taxaDeErro = taxaDeErro;
+        this.aleatorio = new Random(semente);
+        ObjectMapper mapper = new ObjectMapper();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.filter(a -> a.toString().endsWith(".json"))::iterator) {
+                PlacesFixture f = mapper.readValue(arquivo.toFile(), PlacesFixture.class);
+                fixtures.put(f.chave(), f);
+            }
+        }
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        atendidas.incrementAndGet();
+        boolean erro;
+        synchronized (aleatorio) {
+            erro = aleatorio.nextDouble() < taxaDeErro;
+        }
+        MockResponse resposta;
+        if (erro) {
+            resposta = new MockResponse().setResponseCode(500).setBody("{\"status\":\"UNKNOWN_ERROR\"}");
+        } else {
+            String chave = PlacesFixture.chave(request.getRequestUrl().encodedPath(), request.getRequestUrl().encodedQuery());
+            PlacesFixture f = fixtures.get(chave);
+            resposta = f == null
+                    ? new MockResponse().setResponseCode(404).setBody("{\"status\":\"NOT_FOUND\",\"chave\":\"" + chave + "\"}")
+                    : new MockResponse().setResponseCode(f.status()).setBody(f.body());
+        }
+        return resposta.setHeader("Content-Type", "application/json")
+                .setHeadersDelay(latencia.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public int fixtures() {
+        return fixtures.size();
+    }
+
+    public int atendidas() {
+        return atendidas.get();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path diretorio = Path.of(args[0]);
+        int porta = args.length > 1 ? Integer.parseInt(args[1]) : 8089;
+        Duration latencia = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 100);
+        double taxaDeErro = args.length > 3 ? Double.parseDouble(args[3]) : 0.0;
+
+        PlacesStandIn standIn = new PlacesStandIn(diretorio, latencia, taxaDeErro, 42);
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(standIn);
+        server.start(porta);
+        System.out.printf("%d fixtures em %s; google.places.baseUrl=%s%n",
+                standIn.fixtures(), diretorio, server.url("/maps/api/place"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.eti.qualaboa.maptest.placestest;
+
+import com.eti.qualaboa.map.places.TokenBucket;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TokenBucketTest {
+
+    private final AtomicLong agora = new AtomicLong();
+
+    @Test
+    @DisplayName("Deve liberar a rajada inteira e depois recusar")
+    void tentarConsumir_AlemDaRajada_DeveRecusar() {
+        TokenBucket bucket = new TokenBucket(86_400, 3, agora::get);
+
+        assertThat(bucket.tentarConsumir()).isTrue();
+        assertThat(bucket.tentarConsumir()).isTrue();
+        assertThat(bucket.tentarConsumir()).isTrue();
+        assertThat(bucket.tentarConsumir()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve recarregar na taxa diária sem passar da rajada")
+    void recarga_DeveSeguirATaxaDiaria() {
+        // 86.400 por dia = uma ficha por segundo
+        TokenBucket bucket = new TokenBucket(86_400, 5, agora::get);
+        for (int i = 0; i < 5; i++) {
+            bucket.tentarConsumir();
+        }
+
+        agora.addAndGet(Duration.ofMillis(2_500).toNanos());
+        assertThat(bucket.disponiveis()).isCloseTo(2.5, within(1e-9));
+
+        agora.addAndGet(Duration.ofHours(1).toNanos());
+        assertThat(bucket.disponiveis()).isEqualTo(5.0);
+    }
+}
@@ -0,0 +1,214 @@
+package com.eti.qualaboa.maptest.servicetest;
+
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.cluster.PartnerClusterIndex;
+import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.PlacesIndisponivelException;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.eti.qualaboa.map.places.model.PlaceSummary;
+import com.eti.qualaboa.map.service.AutocompleteService;
+import com.eti.qualaboa.map.service.MapService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AutocompleteServiceTest {
+
+    @Mock
+    private PartnerSpatialIndex partnerIndex;
+
+    @Mock
+    private PartnerClusterIndex clusterIndex;
+
+    @Mock
+    private PlacesClient placesClient;
+
+    private MapProperties properties;
+    private ThreadPoolTaskScheduler scheduler;
+    private AutocompleteService autocompleteService;
+
+    private static final double LAT = -23.42;
+    private static final double LNG = -51.93;
+    private static final int RADIUS = 5000;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MapProperties();
+        properties.getAutocomplete().setDebounce(Duration.ZERO);
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("autocomplete");
+        MapService mapService = new MapService(partnerIndex, clusterIndex, placesClient, cacheManager,
+                Runnable::run, Runnable::run, properties);
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        autocompleteService = new AutocompleteService(mapService, partnerIndex, cacheManager, properties,
+                Runnable::run, scheduler);
+        lenient().when(partnerIndex.findWithinRadius(anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private PlaceSummary place(String placeId, String nome) {
+        return new PlaceSummary(placeId, nome, LAT, LNG, "Rua X");
+    }
+
+    @Test
+    @DisplayName("Digitar 'bar do' letra a letra deve custar uma única chamada ao Google")
+    void digitando_DeveReaproveitarPrefixo() {
+        when(placesClient.textSearch(eq("bar"), anyDouble(), anyDouble(), anyInt(), eq(Prioridade.INTERATIVA)))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(
+                        place("g1", "Bar do Zé"), place("g2", "Bar Central"), place("g3", "Bar Dois Irmãos")), null));
+
+        List<PinDTO> ultimo = null;
+        for (String termo : List.of("b", "ba", "bar", "bar ", "bar d", "bar do")) {
+            ultimo = autocompleteService.sugerir(termo, LAT, LNG, RADIUS, "ana", null).join();
+        }
+
+        verify(placesClient, times(1)).textSearch(anyString(), anyDouble(), anyDouble(), anyInt(), any());
+        assertThat(ultimo).extracting(PinDTO::getPlaceId).containsExactly("g1", "g3");
+    }
+
+    @Test
+    @DisplayName("Prefixo com resultado incompleto e poucos candidatos deve ir ao Google com o termo inteiro")
+    void prefixoIncompleto_DeveBuscarTermoInteiro() {
+        when(placesClient.textSearch(eq("bar"), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(place("g1", "Bar do Zé")), "tok"));
+        when(placesClient.textSearch(eq("bar do"), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(place("g1", "Bar do Zé"), place("g9", "Bar do Tio")), null));
+
+        autocompleteService.sugerir("bar", LAT, LNG, RADIUS, "ana", null).join();
+        List<PinDTO> pins = autocompleteService.sugerir("bar do", LAT, LNG, RADIUS, "ana", null).join();
+
+        assertThat(pins).extracting(PinDTO::getPlaceId).containsExactly("g1", "g9");
+    }
+
+    @Test
+    @DisplayName("Resultado de um usuário deve servir outro usuário na mesma área")
+    void cache_DeveSerCompartilhadoEntreUsuarios() {
+        when(placesClient.textSearch(eq("boteco"), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(place("g1", "Boteco")), null));
+
+        autocompleteService.sugerir("Boteco", LAT, LNG, RADIUS, "ana", null).join();
+        List<PinDTO> pins = autocompleteService.sugerir("boteco ", LAT, LNG, RADIUS, "bruno", null).join();
+
+        assertThat(pins).extracting(PinDTO::getPlaceId).containsExactly("g1");
+        verify(placesClient, times(1)).textSearch(anyString(), anyDouble(), anyDouble(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Parceiros que casam com o termo devem vir antes do Google e sem duplicar")
+    void parceiros_DevemVirPrimeiro() {
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(
+                new PartnerPoint(1L, "g1", "Bar do Zé", LAT, LNG, null, null),
+                new PartnerPoint(2L, null, "Pizzaria", LAT, LNG, null, null)));
+        when(placesClient.textSearch(eq("bar"), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(place("g1", "Bar do Zé"), place("g2", "Bar Central")), null));
+
+        List<PinDTO> pins = autocompleteService.sugerir("bar", LAT, LNG, RADIUS, "ana", null).join();
+
+        assertThat(pins).extracting(PinDTO::getPlaceId).containsExactly("g1", "g2");
+        assertThat(pins).extracting(PinDTO::getIsPartner).containsExactly(true, false);
+    }
+
+    @Test
+    @DisplayName("Termo curto demais deve responder só com os parceiros")
+    void termoCurto_SoParceiros() {
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(
+                new PartnerPoint(1L, null, "Bar do Zé", LAT, LNG, null, null)));
+
+        List<PinDTO> pins = autocompleteService.sugerir("ba", LAT, LNG, RADIUS, "ana", null).join();
+
+        assertThat(pins).extracting(PinDTO::getNome).containsExactly("Bar do Zé");
+        verifyNoInteractions(placesClient);
+    }
+
+    @Test
+    @DisplayName("Tecla superada durante o debounce não deve chamar o Google nem prender a thread de quem pediu")
+    void debounce_TeclaSuperada_NaoChamaGoogle() {
+        properties.getAutocomplete().setDebounce(Duration.ofMillis(300));
+        when(placesClient.textSearch(eq("bar d"), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(place("g1", "Bar do Zé")), null));
+
+        CompletableFuture<List<PinDTO>> antiga = autocompleteService.sugerir("bar", LAT, LNG, RADIUS, "ana", "aba1");
+        CompletableFuture<List<PinDTO>> nova = autocompleteService.sugerir("bar d", LAT, LNG, RADIUS, "ana", "aba1");
+
+        assertThat(antiga).isNotDone();
+        assertThat(antiga.join()).isEmpty();
+        assertThat(nova.join()).extracting(PinDTO::getPlaceId).containsExactly("g1");
+        verify(placesClient, never()).textSearch(eq("bar"), anyDouble(), anyDouble(), anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Duas abas da mesma conta não devem cancelar a busca uma da outra")
+    void debounce_SessoesDiferentes_NaoSeCancelam() {
+        properties.getAutocomplete().setDebounce(Duration.ofMillis(100));
+        when(placesClient.textSearch(eq("bar"), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(place("g1", "Bar do Zé")), null));
+        when(placesClient.textSearch(eq("pizza"), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenReturn(new PlaceSearchResponse("OK", List.of(place("g2", "Pizzaria")), null));
+
+        CompletableFuture<List<PinDTO>> celular = autocompleteService.sugerir("bar", LAT, LNG, RADIUS, "ana", "celular");
+        CompletableFuture<List<PinDTO>> notebook = autocompleteService.sugerir("pizza", LAT, LNG, RADIUS, "ana", "notebook");
+
+        assertThat(celular.join()).extracting(PinDTO::getPlaceId).containsExactly("g1");
+        assertThat(notebook.join()).extracting(PinDTO::getPlaceId).containsExactly("g2");
+    }
+
+    @Test
+    @DisplayName("Pool do Places lotado deve responder só com o que já havia, sem esperar")
+    void poolLotado_SemGoogle() {
+        MapService mapService = new MapService(partnerIndex, clusterIndex, placesClient,
+                new ConcurrentMapCacheManager("autocomplete"), Runnable::run, Runnable::run, properties);
+        AutocompleteService lotado = new AutocompleteService(mapService, partnerIndex,
+                new ConcurrentMapCacheManager("autocomplete"), properties,
+                tarefa -> {
+                    throw new RejectedExecutionException("lotado");
+                }, scheduler);
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(
+                new PartnerPoint(1L, null, "Bar do Zé", LAT, LNG, null, null)));
+
+        List<PinDTO> pins = lotado.sugerir("bar", LAT, LNG, RADIUS, "ana", null).join();
+
+        assertThat(pins).extracting(PinDTO::getNome).containsExactly("Bar do Zé");
+        verifyNoInteractions(placesClient);
+    }
+
+    @Test
+    @DisplayName("Google indisponível deve devolver só os parceiros")
+    void googleIndisponivel_SoParceiros() {
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(
+                new PartnerPoint(1L, null, "Bar do Zé", LAT, LNG, null, null)));
+        when(placesClient.textSearch(anyString(), anyDouble(), anyDouble(), anyInt(), any()))
+                .thenThrow(new PlacesIndisponivelException("fora do ar"));
+
+        List<PinDTO> pins = autocompleteService.sugerir("bar", LAT, LNG, RADIUS, "ana", null).join();
+
+        assertThat(pins).extracting(PinDTO::getNome).containsExactly("Bar do Zé");
+    }
+}
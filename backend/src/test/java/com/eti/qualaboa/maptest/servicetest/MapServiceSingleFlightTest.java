@@ -0,0 +1,115 @@
+package com.eti.qualaboa.maptest.servicetest;
+
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.cluster.PartnerClusterIndex;
+import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.PlacesResilience;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.service.MapService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MapServiceSingleFlightTest {
+
+    private static final int REQUISICOES = 32;
+
+    private MockWebServer server;
+    private ExecutorService executor;
+    private MapService mapService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        MapProperties properties = new MapProperties();
+        PlacesClient placesClient = new PlacesClient(new PlacesResilience(properties, new SimpleMeterRegistry()), properties);
+        ReflectionTestUtils.setField(placesClient, "apiKey", "test-key");
+        ReflectionTestUtils.setField(placesClient, "baseUrl", server.url("/place").toString());
+
+        PartnerSpatialIndex partnerIndex = mock(PartnerSpatialIndex.class);
+        when(partnerIndex.findWithinRadius(anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of());
+
+        executor = Executors.newFixedThreadPool(REQUISICOES * 2);
+        mapService = new MapService(partnerIndex, mock(PartnerClusterIndex.class), placesClient,
+                new ConcurrentMapCacheManager("places", "placeDetails", "placeReviews"),
+                executor, executor, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    private MockResponse respostaLenta(String body) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(body)
+                .setHeadersDelay(300, TimeUnit.MILLISECONDS);
+    }
+
+    private <T> List<T> rajada(Supplier<T> chamada) throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUISICOES; i++) {
+            futures.add(executor.submit(() -> {
+                largada.await();
+                return chamada.get();
+            }));
+        }
+        largada.countDown();
+
+        List<T> resultados = new ArrayList<>();
+        for (Future<T> f : futures) {
+            resultados.add(f.get(10, TimeUnit.SECONDS));
+        }
+        return resultados;
+    }
+
+    @Test
+    @DisplayName("Rajada de detalhes do mesmo place deve gerar uma única chamada ao Google")
+    void getPlaceDetailsCached_RajadaConcorrente_UmaChamadaUpstream() throws Exception {
+        server.enqueue(respostaLenta("{\"status\":\"OK\",\"result\":{\"place_id\":\"p1\",\"name\":\"Bar Único\"}}"));
+
+        List<PlaceDetailsResponse> resultados = rajada(() -> mapService.getPlaceDetailsCached("p1"));
+
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(resultados).hasSize(REQUISICOES)
+                .allSatisfy(r -> assertThat(r.result().name()).isEqualTo("Bar Único"));
+    }
+
+    @Test
+    @DisplayName("Rajada de buscas na mesma área deve gerar uma única chamada nearbySearch")
+    void getPinsNearby_RajadaConcorrente_UmaChamadaUpstream() throws Exception {
+        server.enqueue(respostaLenta("""
+                {"status":"OK","results":[{"place_id":"g1","name":"Boteco","vicinity":"Rua X",
+                "geometry":{"location":{"lat":-23.42,"lng":-51.93}}}]}
+                """));
+
+        List<List<PinDTO>> resultados = rajada(() -> mapService.getPinsNearby(-23.42, -51.93, 1000, "bar"));
+
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(resultados).allSatisfy(pins -> assertThat(pins).extracting(PinDTO::getNome).containsExactly("Boteco"));
+    }
+}
@@ -1,34 +1,60 @@
 package com.eti.qualaboa.maptest.servicetest;
 
-import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
-import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.config.MapProperties;
+import com.eti.qualaboa.map.cache.CachedValue;
+import com.eti.qualaboa.map.cluster.ClusterNode;
+import com.eti.qualaboa.map.cluster.PartnerClusterIndex;
+import com.eti.qualaboa.map.dto.PinClusterDTO;
 import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.geo.SnappedArea;
+import com.eti.qualaboa.map.index.PartnerPoint;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.places.CotaEsgotadaException;
 import com.eti.qualaboa.map.places.PlacesClient;
+import com.eti.qualaboa.map.places.Prioridade;
+import com.eti.qualaboa.map.places.PlacesIndisponivelException;
+import com.eti.qualaboa.map.places.model.PlaceDetails;
+import com.eti.qualaboa.map.places.model.PlaceDetailsResponse;
+import com.eti.qualaboa.map.places.model.PlaceSearchResponse;
+import com.eti.qualaboa.map.places.model.PlaceSummary;
 import com.eti.qualaboa.map.service.MapService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class MapServiceTest {
 
     @Mock
-    private EstabelecimentoRepository estRepo;
+    private PartnerSpatialIndex partnerIndex;
+
+    @Mock
+    private PartnerClusterIndex clusterIndex;
 
     @Mock
     private PlacesClient placesClient;
@@ -39,59 +65,54 @@ public class MapServiceTest {
     @Mock
     private Cache mockCache;
 
-    @InjectMocks
     private MapService mapService;
 
+    private MapProperties properties;
+
     private final double LAT = -23.42;
     private final double LNG = -51.93;
     private final int RADIUS = 1000;
     private final String KEYWORD = "bar";
-    private final String CACHE_KEY = "places:" + LAT + ":" + LNG + ":" + RADIUS + ":" + KEYWORD;
+    private final SnappedArea AREA = SnappedArea.of(LAT, LNG, RADIUS);
+    private final String CACHE_KEY = AREA.cacheKey(KEYWORD);
 
     @BeforeEach
     void setUp() {
+        properties = new MapProperties();
+        mapService = new MapService(partnerIndex, clusterIndex, placesClient, cacheManager, Runnable::run, Runnable::run, properties);
 
-        when(cacheManager.getCache(anyString())).thenReturn(mockCache);
+        lenient().when(cacheManager.getCache(anyString())).thenReturn(mockCache);
     }
 
 
-    private Estabelecimento createMockPartner(Long id, String placeId, String nome) {
-        return Estabelecimento.builder()
-                .idEstabelecimento(id)
-                .placeId(placeId)
-                .nome(nome)
-                .parceiro(true)
-                .latitude(LAT)
-                .longitude(LNG)
-                .descricao("Descrição do Parceiro")
-                .enderecoFormatado("Endereço do Parceiro")
-                .build();
+    private PartnerPoint createMockPartner(Long id, String placeId, String nome) {
+        return new PartnerPoint(id, placeId, nome, LAT, LNG, "Descrição do Parceiro", "Endereço do Parceiro");
     }
 
 
-    private Map<String, Object> createMockGoogleResponse(String placeId, String nome) {
-        Map<String, Object> location = Map.of("lat", LAT, "lng", LNG);
-        Map<String, Object> geometry = Map.of("location", location);
-        Map<String, Object> place = Map.of(
-                "place_id", placeId,
-                "name", nome,
-                "vicinity", "Endereço do Google",
-                "geometry", geometry
-        );
-        return Map.of("results", List.of(place), "status", "OK");
+    private PlaceSearchResponse createMockGoogleResponse(String placeId, String nome) {
+        return new PlaceSearchResponse("OK", List.of(createMockPlace(placeId, nome, LAT, LNG)), null);
+    }
+
+    private PlaceSummary createMockPlace(String placeId, String nome, double lat, double lng) {
+        return new PlaceSummary(placeId, nome, lat, lng, "Endereço do Google");
+    }
+
+    private PlaceDetailsResponse createMockDetails(String nome) {
+        return new PlaceDetailsResponse("OK", new PlaceDetails(null, nome, null, null, null, null, null));
     }
 
     @Test
     @DisplayName("Deve buscar parceiros e locais do Google (Cache Miss)")
     void getPinsNearby_CacheMiss_DeveMesclarAmbos() {
 
-        Estabelecimento partner = createMockPartner(1L, "partner_place_id", "Bar do Zé (Parceiro)");
-        when(estRepo.findAllWithinRadiusPostGis(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
+        PartnerPoint partner = createMockPartner(1L, "partner_place_id", "Bar do Zé (Parceiro)");
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
 
-        Map<String, Object> googleResponse = createMockGoogleResponse("google_place_id", "Boteco Falso (Google)");
-        when(placesClient.nearbySearch(LAT, LNG, RADIUS, KEYWORD)).thenReturn(googleResponse);
+        PlaceSearchResponse googleResponse = createMockGoogleResponse("google_place_id", "Boteco Falso (Google)");
+        when(placesClient.nearbySearch(AREA.centerLat(), AREA.centerLng(), AREA.upstreamRadius(), KEYWORD, Prioridade.INTERATIVA)).thenReturn(googleResponse);
 
-        when(mockCache.get(CACHE_KEY, Map.class)).thenReturn(null);
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(null);
 
         List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
 
@@ -100,20 +121,21 @@ public class MapServiceTest {
         assertThat(pins.get(0).getIsPartner()).isTrue();
         assertThat(pins.get(1).getNome()).isEqualTo("Boteco Falso (Google)");
         assertThat(pins.get(1).getIsPartner()).isFalse();
+        assertThat(pins).allSatisfy(p -> assertThat(p.getDistanciaMetros()).isZero());
 
-        verify(estRepo).findAllWithinRadiusPostGis(LAT, LNG, RADIUS);
-        verify(placesClient).nearbySearch(LAT, LNG, RADIUS, KEYWORD);
-        verify(mockCache).put(CACHE_KEY, googleResponse);
+        verify(partnerIndex).findWithinRadius(LAT, LNG, RADIUS);
+        verify(placesClient).nearbySearch(AREA.centerLat(), AREA.centerLng(), AREA.upstreamRadius(), KEYWORD, Prioridade.INTERATIVA);
+        verify(mockCache).put(eq(CACHE_KEY), argThat(v -> ((CachedValue<?>) v).value().equals(googleResponse)));
     }
 
     @Test
     @DisplayName("Deve usar dados do cache do Google (Cache Hit)")
     void getPinsNearby_CacheHit_NaoDeveChamarPlacesClient() {
 
-        when(estRepo.findAllWithinRadiusPostGis(LAT, LNG, RADIUS)).thenReturn(Collections.emptyList());
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(Collections.emptyList());
 
-        Map<String, Object> cachedGoogleResponse = createMockGoogleResponse("google_place_id", "Boteco em Cache (Google)");
-        when(mockCache.get(CACHE_KEY, Map.class)).thenReturn(cachedGoogleResponse);
+        PlaceSearchResponse cachedGoogleResponse = createMockGoogleResponse("google_place_id", "Boteco em Cache (Google)");
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(CachedValue.now(cachedGoogleResponse));
 
         List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
 
@@ -122,7 +144,7 @@ public class MapServiceTest {
         assertThat(pins.get(0).getNome()).isEqualTo("Boteco em Cache (Google)");
         assertThat(pins.get(0).getIsPartner()).isFalse();
 
-        verify(placesClient, never()).nearbySearch(anyDouble(), anyDouble(), anyInt(), anyString());
+        verify(placesClient, never()).nearbySearch(anyDouble(), anyDouble(), anyInt(), anyString(), any());
         verify(mockCache, never()).put(anyString(), any());
     }
 
@@ -130,13 +152,13 @@ public class MapServiceTest {
     @DisplayName("Deve mesclar resultados e remover duplicatas (Parceiro tem prioridade)")
     void getPinsNearby_DeveRemoverDuplicatas() {
 
-        Estabelecimento partner = createMockPartner(1L, "id_duplicado", "Bar do Zé (Parceiro)");
-        when(estRepo.findAllWithinRadiusPostGis(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
+        PartnerPoint partner = createMockPartner(1L, "id_duplicado", "Bar do Zé (Parceiro)");
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
 
-        Map<String, Object> googleResponse = createMockGoogleResponse("id_duplicado", "Bar do Zé (Google)");
-        when(placesClient.nearbySearch(LAT, LNG, RADIUS, KEYWORD)).thenReturn(googleResponse);
+        PlaceSearchResponse googleResponse = createMockGoogleResponse("id_duplicado", "Bar do Zé (Google)");
+        when(placesClient.nearbySearch(AREA.centerLat(), AREA.centerLng(), AREA.upstreamRadius(), KEYWORD, Prioridade.INTERATIVA)).thenReturn(googleResponse);
 
-        when(mockCache.get(CACHE_KEY, Map.class)).thenReturn(null);
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(null);
 
         List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
 
@@ -150,30 +172,328 @@ public class MapServiceTest {
     @DisplayName("getPlaceDetailsCached deve buscar do cliente (Cache Miss)")
     void getPlaceDetailsCached_CacheMiss() {
         String placeId = "place123";
-        Map<String, Object> detailsResponse = Map.of("name", "Detalhes do Bar");
+        PlaceDetailsResponse detailsResponse = createMockDetails("Detalhes do Bar");
 
-        when(mockCache.get(placeId, Map.class)).thenReturn(null);
-        when(placesClient.placeDetails(placeId)).thenReturn(detailsResponse);
+        when(mockCache.get(placeId, CachedValue.class)).thenReturn(null);
+        when(placesClient.placeDetails(placeId, Prioridade.INTERATIVA)).thenReturn(detailsResponse);
 
-        Map<String, Object> result = mapService.getPlaceDetailsCached(placeId);
+        PlaceDetailsResponse result = mapService.getPlaceDetailsCached(placeId);
 
         assertThat(result).isEqualTo(detailsResponse);
-        verify(placesClient).placeDetails(placeId);
-        verify(mockCache).put(placeId, detailsResponse);
+        verify(placesClient).placeDetails(placeId, Prioridade.INTERATIVA);
+        verify(mockCache).put(eq(placeId), argThat(v -> ((CachedValue<?>) v).value().equals(detailsResponse)));
     }
 
     @Test
     @DisplayName("getPlaceDetailsCached deve retornar do cache (Cache Hit)")
     void getPlaceDetailsCached_CacheHit() {
         String placeId = "place123";
-        Map<String, Object> cachedDetails = Map.of("name", "Detalhes em Cache");
+        PlaceDetailsResponse cachedDetails = createMockDetails("Detalhes em Cache");
 
-        when(mockCache.get(placeId, Map.class)).thenReturn(cachedDetails);
+        when(mockCache.get(placeId, CachedValue.class)).thenReturn(CachedValue.now(cachedDetails));
 
-        Map<String, Object> result = mapService.getPlaceDetailsCached(placeId);
+        PlaceDetailsResponse result = mapService.getPlaceDetailsCached(placeId);
 
         assertThat(result).isEqualTo(cachedDetails);
-        verify(placesClient, never()).placeDetails(placeId);
+        verify(placesClient, never()).placeDetails(eq(placeId), any());
+        verify(mockCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Com o circuito do Google aberto deve devolver só os parceiros")
+    void getPinsNearby_CircuitoAberto_DeveDevolverSoParceiros() {
+        PartnerPoint partner = createMockPartner(1L, "partner_place_id", "Bar do Zé (Parceiro)");
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(null);
+        when(placesClient.nearbySearch(AREA.centerLat(), AREA.centerLng(), AREA.upstreamRadius(), KEYWORD, Prioridade.INTERATIVA))
+                .thenThrow(new PlacesIndisponivelException("Circuit breaker do Google Places aberto"));
+
+        List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
+
+        assertThat(pins).extracting(PinDTO::getIsPartner).containsExactly(true);
+        verify(mockCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver parceiros dentro do orçamento mesmo com o Google lento")
+    void getPinsNearby_PlacesLento_DeveDevolverSoParceiros() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            properties.getPins().setPlacesTimeout(Duration.ofMillis(200));
+            mapService = new MapService(partnerIndex, clusterIndex, placesClient, cacheManager, executor, executor, properties);
+
+            PartnerPoint partner = createMockPartner(1L, "partner_place_id", "Bar do Zé (Parceiro)");
+            when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
+            when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(null);
+            when(placesClient.nearbySearch(AREA.centerLat(), AREA.centerLng(), AREA.upstreamRadius(), KEYWORD, Prioridade.INTERATIVA)).thenAnswer(inv -> {
+                Thread.sleep(2_000);
+                return createMockGoogleResponse("google_place_id", "Boteco Lento (Google)");
+            });
+
+            long inicio = System.nanoTime();
+            List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
+            long decorridoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+            assertThat(pins).hasSize(1);
+            assertThat(pins.get(0).getIsPartner()).isTrue();
+            assertThat(decorridoMs).isLessThan(1_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Com o pool do Google lotado deve devolver os parceiros na hora, sem chamar o Google na thread da requisição")
+    void getPinsNearby_PoolLotado_DeveDevolverParceirosSemEsperar() throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            // uma chamada lenta rodando e outra na fila: a próxima é recusada
+            executor.execute(() -> aguardar(liberar));
+            executor.execute(() -> aguardar(liberar));
+            mapService = new MapService(partnerIndex, clusterIndex, placesClient, cacheManager, executor, Runnable::run, properties);
+
+            PartnerPoint partner = createMockPartner(1L, "partner_place_id", "Bar do Zé (Parceiro)");
+            when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
+
+            long inicio = System.nanoTime();
+            List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
+            long decorridoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+            assertThat(pins).extracting(PinDTO::getIsPartner).containsExactly(true);
+            assertThat(decorridoMs).isLessThan(properties.getPins().getPlacesTimeout().toMillis());
+            verifyNoInteractions(placesClient);
+        } finally {
+            executor.shutdownNow();
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Com as threads do Google ocupadas e fila livre, os parceiros não devem esperar na fila")
+    void getPinsNearby_ThreadsOcupadas_DeveDevolverParceiros() throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10), new ThreadPoolExecutor.AbortPolicy());
+        CountDownLatch liberar = new CountDownLatch(1);
+        try {
+            executor.execute(() -> aguardar(liberar));
+            properties.getPins().setPlacesTimeout(Duration.ofMillis(200));
+            mapService = new MapService(partnerIndex, clusterIndex, placesClient, cacheManager, executor, Runnable::run, properties);
+
+            PartnerPoint partner = createMockPartner(1L, "partner_place_id", "Bar do Zé (Parceiro)");
+            when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(List.of(partner));
+
+            List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
+
+            assertThat(pins).extracting(PinDTO::getIsPartner).containsExactly(true);
+            verifyNoInteractions(placesClient);
+        } finally {
+            executor.shutdownNow();
+            liberar.countDown();
+        }
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a entrada do cache para pontos vizinhos e recortar ao círculo exato")
+    void getPinsNearby_PontoVizinho_DeveUsarMesmaChaveERecortar() {
+        double latVizinha = LAT + 0.00003; // ~3 m
+        assertThat(SnappedArea.of(latVizinha, LNG, RADIUS).cacheKey(KEYWORD)).isEqualTo(CACHE_KEY);
+
+        when(partnerIndex.findWithinRadius(latVizinha, LNG, RADIUS)).thenReturn(Collections.emptyList());
+        PlaceSummary longe = createMockPlace("longe", "Bar Longe", LAT + 0.02, LNG); // ~2,2 km: fora do raio pedido
+        PlaceSummary perto = createMockPlace("perto", "Bar Perto", LAT, LNG);
+        when(mockCache.get(CACHE_KEY, CachedValue.class))
+                .thenReturn(CachedValue.now(new PlaceSearchResponse("OK", List.of(perto, longe), null)));
+
+        List<PinDTO> pins = mapService.getPinsNearby(latVizinha, LNG, RADIUS, KEYWORD);
+
+        assertThat(pins).extracting(PinDTO::getNome).containsExactly("Bar Perto");
+        verify(placesClient, never()).nearbySearch(anyDouble(), anyDouble(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Entrada vencida deve ser servida na hora e renovada em segundo plano")
+    void getPlaceDetailsCached_EntradaVencida_DeveServirERenovar() {
+        String placeId = "place123";
+        PlaceDetailsResponse antigo = createMockDetails("Nome Antigo");
+        PlaceDetailsResponse novo = createMockDetails("Nome Novo");
+        long seteHorasAtras = System.currentTimeMillis() - Duration.ofHours(7).toMillis();
+
+        when(mockCache.get(placeId, CachedValue.class)).thenReturn(new CachedValue<>(antigo, seteHorasAtras));
+        when(placesClient.placeDetails(placeId, Prioridade.SEGUNDO_PLANO)).thenReturn(novo);
+
+        PlaceDetailsResponse result = mapService.getPlaceDetailsCached(placeId);
+
+        assertThat(result).isEqualTo(antigo);
+        verify(placesClient).placeDetails(placeId, Prioridade.SEGUNDO_PLANO);
+        verify(mockCache).put(eq(placeId), argThat(v -> ((CachedValue<?>) v).value().equals(novo)));
+    }
+
+    @Test
+    @DisplayName("Cota de segundo plano esgotada deve manter o valor antigo do cache")
+    void getPlaceDetailsCached_CotaEsgotada_DeveServirSoDoCache() {
+        String placeId = "place123";
+        PlaceDetailsResponse antigo = createMockDetails("Nome Antigo");
+        long seteHorasAtras = System.currentTimeMillis() - Duration.ofHours(7).toMillis();
+
+        when(mockCache.get(placeId, CachedValue.class)).thenReturn(new CachedValue<>(antigo, seteHorasAtras));
+        when(placesClient.placeDetails(placeId, Prioridade.SEGUNDO_PLANO))
+                .thenThrow(new CotaEsgotadaException("Cota SEGUNDO_PLANO do Google Places esgotada"));
+
+        PlaceDetailsResponse result = mapService.getPlaceDetailsCached(placeId);
+
+        assertThat(result).isEqualTo(antigo);
         verify(mockCache, never()).put(anyString(), any());
     }
+
+    @Test
+    @DisplayName("Renovação rejeitada pelo executor deve manter o valor antigo sem erro")
+    void getPlaceDetailsCached_FilaDeRenovacaoCheia_DeveServirValorAntigo() {
+        mapService = new MapService(partnerIndex, clusterIndex, placesClient, cacheManager, Runnable::run,
+                tarefa -> { throw new RejectedExecutionException("cheia"); }, properties);
+        String placeId = "place123";
+        PlaceDetailsResponse antigo = createMockDetails("Nome Antigo");
+        long seteHorasAtras = System.currentTimeMillis() - Duration.ofHours(7).toMillis();
+
+        when(mockCache.get(placeId, CachedValue.class)).thenReturn(new CachedValue<>(antigo, seteHorasAtras));
+
+        assertThat(mapService.getPlaceDetailsCached(placeId)).isEqualTo(antigo);
+        verify(placesClient, never()).placeDetails(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("getPinsInBBox deve converter clusters e pins individuais")
+    void getPinsInBBox_DeveConverterClustersEPins() {
+        PartnerPoint partner = createMockPartner(1L, "partner_place_id", "Bar do Zé (Parceiro)");
+        ClusterNode cluster = new ClusterNode(0.35, 0.57, 42, 13, null);
+        ClusterNode isolado = new ClusterNode(0.36, 0.58, 1, 17, partner);
+        when(clusterIndex.getClusters(-23.5, -52.0, -23.3, -51.8, 12)).thenReturn(List.of(cluster, isolado));
+
+        List<PinClusterDTO> pins = mapService.getPinsInBBox(-23.5, -52.0, -23.3, -51.8, 12);
+
+        assertThat(pins).hasSize(2);
+        assertThat(pins.get(0).getIsCluster()).isTrue();
+        assertThat(pins.get(0).getCount()).isEqualTo(42);
+        assertThat(pins.get(0).getExpansionZoom()).isEqualTo(13);
+        assertThat(pins.get(0).getPin()).isNull();
+        assertThat(pins.get(1).getIsCluster()).isFalse();
+        assertThat(pins.get(1).getLat()).isEqualTo(LAT);
+        assertThat(pins.get(1).getPin().getNome()).isEqualTo("Bar do Zé (Parceiro)");
+        assertThat(pins.get(1).getPin().getIsPartner()).isTrue();
+        verifyNoInteractions(placesClient);
+    }
+
+    @Test
+    @DisplayName("getNearestPartners deve preencher a distância sem consultar o Google")
+    void getNearestPartners_DevePreencherDistancia() {
+        PartnerPoint perto = createMockPartner(1L, "perto", "Bar Perto");
+        PartnerPoint longe = new PartnerPoint(2L, "longe", "Bar Longe", LAT + 0.01, LNG, null, null);
+        when(partnerIndex.findNearest(LAT, LNG, 2)).thenReturn(List.of(perto, longe));
+
+        List<PinDTO> pins = mapService.getNearestPartners(LAT, LNG, 2);
+
+        assertThat(pins).extracting(PinDTO::getNome).containsExactly("Bar Perto", "Bar Longe");
+        assertThat(pins.get(0).getDistanciaMetros()).isZero();
+        assertThat(pins.get(1).getDistanciaMetros()).isBetween(1_100.0, 1_130.0);
+        verifyNoInteractions(placesClient);
+    }
+
+    @Test
+    @DisplayName("streamPinsNearby deve emitir parceiros, depois Google, sem duplicar nem sair do círculo")
+    @SuppressWarnings("unchecked")
+    void streamPinsNearby_DeveEmitirParceirosDepoisGoogle() {
+        PartnerPoint partner = createMockPartner(1L, "id_duplicado", "Bar do Zé (Parceiro)");
+        doAnswer(inv -> {
+            ((Consumer<PartnerPoint>) inv.getArgument(3)).accept(partner);
+            return null;
+        }).when(partnerIndex).forEachWithinRadius(eq(LAT), eq(LNG), eq((double) RADIUS), any());
+        PlaceSearchResponse google = new PlaceSearchResponse("OK", List.of(
+                createMockPlace("id_duplicado", "Bar do Zé (Google)", LAT, LNG),
+                createMockPlace("g2", "Boteco", LAT, LNG),
+                createMockPlace("longe", "Bar Longe", LAT + 0.02, LNG)), null);
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(CachedValue.now(google));
+
+        List<PinDTO> emitidos = new ArrayList<>();
+        mapService.streamPinsNearby(LAT, LNG, RADIUS, KEYWORD, emitidos::add);
+
+        assertThat(emitidos).extracting(PinDTO::getNome).containsExactly("Bar do Zé (Parceiro)", "Boteco");
+        assertThat(emitidos).extracting(PinDTO::getIsPartner).containsExactly(true, false);
+    }
+
+    @Test
+    @DisplayName("Páginas seguintes já em cache devem entrar na resposta sem chamar o Google")
+    void getPinsNearby_PaginasEmCache_DeveJuntarSemChamarGoogle() {
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(Collections.emptyList());
+        PlaceSearchResponse pagina0 = new PlaceSearchResponse("OK", List.of(createMockPlace("g1", "Bar 1", LAT, LNG)), "tok1");
+        PlaceSearchResponse pagina1 = new PlaceSearchResponse("OK", List.of(createMockPlace("g2", "Bar 2", LAT, LNG)), null);
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(CachedValue.now(pagina0));
+        when(mockCache.get(CACHE_KEY + "|p1", CachedValue.class)).thenReturn(CachedValue.now(pagina1));
+
+        List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
+
+        assertThat(pins).extracting(PinDTO::getPlaceId).containsExactly("g1", "g2");
+        verifyNoInteractions(placesClient);
+    }
+
+    @Test
+    @DisplayName("Página que falta deve ser buscada em segundo plano e guardada com a própria chave")
+    void getPinsNearby_PaginaFaltando_DeveBuscarEmSegundoPlano() {
+        properties.getPlaces().setPageTokenDelay(Duration.ZERO);
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(Collections.emptyList());
+        PlaceSearchResponse pagina0 = new PlaceSearchResponse("OK", List.of(createMockPlace("g1", "Bar 1", LAT, LNG)), "tok1");
+        PlaceSearchResponse pagina1 = new PlaceSearchResponse("OK", List.of(createMockPlace("g2", "Bar 2", LAT, LNG)), "tok2");
+        PlaceSearchResponse pagina2 = new PlaceSearchResponse("OK", List.of(createMockPlace("g3", "Bar 3", LAT, LNG)), "tok3");
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(CachedValue.now(pagina0));
+        when(placesClient.nearbySearchNextPage("tok1", Prioridade.SEGUNDO_PLANO)).thenReturn(pagina1);
+        when(placesClient.nearbySearchNextPage("tok2", Prioridade.SEGUNDO_PLANO)).thenReturn(pagina2);
+
+        List<PinDTO> pins = mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
+
+        assertThat(pins).extracting(PinDTO::getPlaceId).containsExactly("g1");
+        verify(mockCache).put(eq(CACHE_KEY + "|p1"), argThat(v -> ((CachedValue<?>) v).value() == pagina1));
+        verify(mockCache).put(eq(CACHE_KEY + "|p2"), argThat(v -> ((CachedValue<?>) v).value() == pagina2));
+        // maxPages = 3: o tok3 não é seguido
+        verify(placesClient, never()).nearbySearchNextPage(eq("tok3"), any());
+    }
+
+    @Test
+    @DisplayName("Token ainda inválido não deve ser guardado como página")
+    void getPinsNearby_TokenInvalido_NaoDeveGuardar() {
+        properties.getPlaces().setPageTokenDelay(Duration.ZERO);
+        when(partnerIndex.findWithinRadius(LAT, LNG, RADIUS)).thenReturn(Collections.emptyList());
+        PlaceSearchResponse pagina0 = new PlaceSearchResponse("OK", List.of(createMockPlace("g1", "Bar 1", LAT, LNG)), "tok1");
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(CachedValue.now(pagina0));
+        when(placesClient.nearbySearchNextPage("tok1", Prioridade.SEGUNDO_PLANO))
+                .thenReturn(new PlaceSearchResponse("INVALID_REQUEST", List.of(), null));
+
+        mapService.getPinsNearby(LAT, LNG, RADIUS, KEYWORD);
+
+        verify(mockCache, never()).put(eq(CACHE_KEY + "|p1"), any());
+    }
+
+    @Test
+    @DisplayName("streamPinsNearby deve emitir cada página assim que ela chega")
+    void streamPinsNearby_DeveEmitirPaginasEmSequencia() {
+        properties.getPlaces().setPageTokenDelay(Duration.ZERO);
+        PlaceSearchResponse pagina0 = new PlaceSearchResponse("OK", List.of(createMockPlace("g1", "Bar 1", LAT, LNG)), "tok1");
+        PlaceSearchResponse pagina1 = new PlaceSearchResponse("OK", List.of(
+                createMockPlace("g1", "Bar 1", LAT, LNG), createMockPlace("g2", "Bar 2", LAT, LNG)), null);
+        when(mockCache.get(CACHE_KEY, CachedValue.class)).thenReturn(CachedValue.now(pagina0));
+        when(placesClient.nearbySearchNextPage("tok1", Prioridade.INTERATIVA)).thenReturn(pagina1);
+
+        List<PinDTO> emitidos = new ArrayList<>();
+        mapService.streamPinsNearby(LAT, LNG, RADIUS, KEYWORD, emitidos::add);
+
+        assertThat(emitidos).extracting(PinDTO::getPlaceId).containsExactly("g1", "g2");
+        verify(mockCache).put(eq(CACHE_KEY + "|p1"), any());
+    }
 }
\ No newline at end of file
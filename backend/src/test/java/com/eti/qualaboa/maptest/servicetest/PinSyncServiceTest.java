@@ -0,0 +1,88 @@
+package com.eti.qualaboa.maptest.servicetest;
+
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.model.EstabelecimentoRemovido;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRemovidoRepository;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.map.dto.PinChangesDTO;
+import com.eti.qualaboa.map.dto.PinDTO;
+import com.eti.qualaboa.map.service.PinSyncService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PinSyncServiceTest {
+
+    @Mock
+    private EstabelecimentoRepository estRepo;
+
+    @Mock
+    private EstabelecimentoRemovidoRepository removidoRepo;
+
+    @InjectMocks
+    private PinSyncService pinSyncService;
+
+    private Estabelecimento parceiro(Long id, long versao) {
+        return Estabelecimento.builder().idEstabelecimento(id).nome("Bar " + id).parceiro(true)
+                .latitude(-23.42).longitude(-51.93).versaoCatalogo(versao).build();
+    }
+
+    @Test
+    @DisplayName("Deve intercalar alterações e exclusões pela versão")
+    void getChanges_DeveIntercalarPorVersao() {
+        Estabelecimento deixouDeSerParceiro = Estabelecimento.builder()
+                .idEstabelecimento(3L).nome("Bar 3").parceiro(false).versaoCatalogo(13L).build();
+        when(estRepo.findByVersaoCatalogoGreaterThanOrderByVersaoCatalogoAsc(10L, Limit.of(501)))
+                .thenReturn(List.of(parceiro(1L, 11L), deixouDeSerParceiro));
+        when(removidoRepo.findByVersaoGreaterThanOrderByVersaoAsc(10L, Limit.of(501)))
+                .thenReturn(List.of(new EstabelecimentoRemovido(1L, 2L, 12L)));
+
+        PinChangesDTO changes = pinSyncService.getChanges(10L, 500);
+
+        assertThat(changes.getVersao()).isEqualTo(13L);
+        assertThat(changes.getUpserts()).extracting(PinDTO::getId).containsExactly(1L);
+        assertThat(changes.getUpserts().get(0).getIsPartner()).isTrue();
+        assertThat(changes.getRemovidos()).containsExactly(2L, 3L);
+        assertThat(changes.getTemMais()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Sem mudanças deve devolver a mesma versão")
+    void getChanges_SemMudancas_DeveManterVersao() {
+        when(estRepo.findByVersaoCatalogoGreaterThanOrderByVersaoCatalogoAsc(42L, Limit.of(501))).thenReturn(List.of());
+        when(removidoRepo.findByVersaoGreaterThanOrderByVersaoAsc(42L, Limit.of(501))).thenReturn(List.of());
+
+        PinChangesDTO changes = pinSyncService.getChanges(42L, 500);
+
+        assertThat(changes.getVersao()).isEqualTo(42L);
+        assertThat(changes.getUpserts()).isEmpty();
+        assertThat(changes.getRemovidos()).isEmpty();
+        assertThat(changes.getTemMais()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Página cortada pelo limite deve parar numa versão consistente e indicar que há mais")
+    void getChanges_Limite_DeveCortarNaVersaoCerta() {
+        when(estRepo.findByVersaoCatalogoGreaterThanOrderByVersaoCatalogoAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(parceiro(1L, 1L), parceiro(2L, 3L), parceiro(4L, 5L)));
+        when(removidoRepo.findByVersaoGreaterThanOrderByVersaoAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(new EstabelecimentoRemovido(1L, 9L, 2L)));
+
+        PinChangesDTO changes = pinSyncService.getChanges(0L, 2);
+
+        assertThat(changes.getVersao()).isEqualTo(2L);
+        assertThat(changes.getUpserts()).extracting(PinDTO::getId).containsExactly(1L);
+        assertThat(changes.getRemovidos()).containsExactly(9L);
+        assertThat(changes.getTemMais()).isTrue();
+    }
+}
@@ -0,0 +1,148 @@
+package com.eti.qualaboa.maptest.servicetest;
+
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoAlteradoEvent;
+import com.eti.qualaboa.estabelecimento.event.EstabelecimentoRemovidoEvent;
+import com.eti.qualaboa.estabelecimento.model.Estabelecimento;
+import com.eti.qualaboa.estabelecimento.repository.EstabelecimentoRepository;
+import com.eti.qualaboa.map.dto.PinClusterDTO;
+import com.eti.qualaboa.map.index.PartnerSpatialIndex;
+import com.eti.qualaboa.map.service.MapService;
+import com.eti.qualaboa.map.service.PinTileService;
+import com.eti.qualaboa.map.tile.PinTile;
+import com.eti.qualaboa.map.tile.TileKey;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class PinTileServiceTest {
+
+    private static final double LAT = -23.31;
+    private static final double LNG = -51.16;
+
+    private MapService mapService;
+    private PartnerSpatialIndex partnerIndex;
+    private Cache<TileKey, PinTile> cache;
+    private PinTileService tileService;
+
+    private final TileKey tileLondrina = TileKey.de(LAT, LNG, 14);
+    // Curitiba: longe o bastante para não ser vizinho de Londrina no zoom 14
+    private final TileKey tileCuritiba = TileKey.de(-25.43, -49.27, 14);
+
+    @BeforeEach
+    void setUp() {
+        EstabelecimentoRepository repo = mock(EstabelecimentoRepository.class);
+        when(repo.findByParceiroTrueAndLatitudeIsNotNullAndLongitudeIsNotNull()).thenReturn(List.of(
+                Estabelecimento.builder().idEstabelecimento(1L).nome("Bar Londrina").parceiro(true)
+                        .latitude(LAT).longitude(LNG).build()));
+        partnerIndex = new PartnerSpatialIndex(repo);
+        partnerIndex.carregar();
+
+        mapService = mock(MapService.class);
+        when(mapService.getPinsInBBox(anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt()))
+                .thenReturn(List.of(PinClusterDTO.builder().lat(LAT).lng(LNG).count(1).isCluster(false).build()));
+
+        cache = Caffeine.newBuilder().maximumWeight(1_000_000).weigher((TileKey k, PinTile t) -> t.bytes()).build();
+        tileService = new PinTileService(mapService, partnerIndex, cache, new ObjectMapper());
+        ReflectionTestUtils.invokeMethod(tileService, "registrar");
+    }
+
+    private PinTile buscar(TileKey key) {
+        return tileService.getTile(key.z(), key.x(), key.y());
+    }
+
+    @Test
+    @DisplayName("Tile repetido deve sair do cache sem consultar os clusters de novo")
+    void getTile_Repetido_DeveUsarCache() {
+        PinTile primeiro = buscar(tileLondrina);
+        PinTile segundo = buscar(tileLondrina);
+
+        assertThat(segundo).isSameAs(primeiro);
+        assertThat(primeiro.etag()).startsWith("\"").endsWith("\"");
+        verify(mapService, times(1)).getPinsInBBox(
+                tileLondrina.minLat(), tileLondrina.minLng(), tileLondrina.maxLat(), tileLondrina.maxLng(), 14);
+    }
+
+    @Test
+    @DisplayName("Mesmo conteúdo deve gerar o mesmo ETag")
+    void getTile_MesmoConteudo_MesmoEtag() {
+        String etag = buscar(tileLondrina).etag();
+        cache.invalidateAll();
+
+        assertThat(buscar(tileLondrina).etag()).isEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("Escrita deve invalidar só os tiles em volta da posição antiga e da nova")
+    void onAlterado_DeveInvalidarSoTilesTocados() {
+        buscar(tileLondrina);
+        buscar(tileCuritiba);
+
+        partnerIndex.onAlterado(new EstabelecimentoAlteradoEvent(1L, "Bar Londrina", null, true,
+                LAT + 0.001, LNG, null, null, null, List.of(), null));
+
+        assertThat(cache.getIfPresent(tileLondrina)).isNull();
+        assertThat(cache.getIfPresent(tileCuritiba)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Mudança de endereço deve invalidar o tile antigo e o novo")
+    void onAlterado_Mudanca_DeveInvalidarAntigoENovo() {
+        buscar(tileLondrina);
+        buscar(tileCuritiba);
+
+        partnerIndex.onAlterado(new EstabelecimentoAlteradoEvent(1L, "Bar Londrina", null, true,
+                -25.43, -49.27, null, null, null, List.of(), null));
+
+        assertThat(cache.getIfPresent(tileLondrina)).isNull();
+        assertThat(cache.getIfPresent(tileCuritiba)).isNull();
+    }
+
+    @Test
+    @DisplayName("Remoção deve invalidar os tiles da última posição")
+    void onRemovido_DeveInvalidarUltimaPosicao() {
+        buscar(tileLondrina);
+
+        partnerIndex.onRemovido(new EstabelecimentoRemovidoEvent(1L));
+
+        assertThat(cache.getIfPresent(tileLondrina)).isNull();
+    }
+
+    @Test
+    @DisplayName("Recarga do índice deve limpar todos os tiles")
+    void onRecarregado_DeveLimparTudo() {
+        buscar(tileLondrina);
+        buscar(tileCuritiba);
+
+        partnerIndex.carregar();
+
+        assertThat(cache.asMap()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("O cache deve respeitar o orçamento em bytes")
+    void getTile_OrcamentoEmBytes_DeveDespejar() {
+        cache = Caffeine.newBuilder().maximumWeight(1_000).weigher((TileKey k, PinTile t) -> t.bytes())
+                .executor(Runnable::run).build();
+        tileService = new PinTileService(mapService, partnerIndex, cache, new ObjectMapper());
+
+        for (int x = 0; x < 50; x++) {
+            tileService.getTile(14, x, 0);
+        }
+        cache.cleanUp();
+
+        long pesoTotal = cache.asMap().values().stream().mapToLong(PinTile::bytes).sum();
+        assertThat(pesoTotal).isLessThanOrEqualTo(1_000);
+        assertThat(cache.asMap()).isNotEmpty();
+    }
+}
@@ -0,0 +1,42 @@
+package com.eti.qualaboa.maptest.tiletest;
+
+import com.eti.qualaboa.map.tile.TileKey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TileKeyTest {
+
+    @Test
+    @DisplayName("Deve calcular o tile de um ponto igual ao esquema do OSM")
+    void de_DeveSeguirEsquemaSlippyMap() {
+        // Londrina no zoom 12
+        TileKey key = TileKey.de(-23.31, -51.16, 12);
+
+        assertThat(key).isEqualTo(new TileKey(12, 1465, 2320));
+        assertThat(TileKey.de(0, 0, 0)).isEqualTo(new TileKey(0, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Os limites do tile devem conter o ponto que o originou")
+    void limites_DevemConterOPonto() {
+        TileKey key = TileKey.de(-23.31, -51.16, 15);
+
+        assertThat(key.minLat()).isLessThan(-23.31);
+        assertThat(key.maxLat()).isGreaterThan(-23.31);
+        assertThat(key.minLng()).isLessThan(-51.16);
+        assertThat(key.maxLng()).isGreaterThan(-51.16);
+        assertThat(new TileKey(0, 0, 0).maxLat()).isCloseTo(85.0511, within(1e-4));
+    }
+
+    @Test
+    @DisplayName("Deve validar z/x/y dentro da grade")
+    void valida_DeveRecusarForaDaGrade() {
+        assertThat(TileKey.valida(2, 3, 3)).isTrue();
+        assertThat(TileKey.valida(2, 4, 0)).isFalse();
+        assertThat(TileKey.valida(-1, 0, 0)).isFalse();
+        assertThat(TileKey.valida(TileKey.MAX_ZOOM + 1, 0, 0)).isFalse();
+    }
+}
@@ -0,0 +1,91 @@
+package com.eti.qualaboa.textotest;
+
+import com.eti.qualaboa.texto.NormalizadorTexto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NormalizadorTextoTest {
+
+    // implementações anteriores (EstabelecimentoService/MetricasService e NomePrefixIndex), como referência
+    private static String nomeAntigo(String nome) {
+        if (nome == null) {
+            return null;
+        }
+        String nomeSemAcento = Normalizer.normalize(nome, Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        return nomeSemAcento.toUpperCase(Locale.ROOT).trim();
+    }
+
+    private static String termoAntigo(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcento = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        return semAcento.toUpperCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim();
+    }
+
+    @Test
+    @DisplayName("Deve tirar acento, passar para maiúsculas e aparar as pontas")
+    void normalizarNome_Exemplos() {
+        assertThat(NormalizadorTexto.normalizarNome("  Bar do Zé ")).isEqualTo("BAR DO ZE");
+        assertThat(NormalizadorTexto.normalizarNome("Açaí & Cia.")).isEqualTo("ACAI & CIA.");
+        assertThat(NormalizadorTexto.normalizarNome("Café Não")).isEqualTo("CAFE NAO");
+        assertThat(NormalizadorTexto.normalizarNome("Straße")).isEqualTo("STRASSE");
+        assertThat(NormalizadorTexto.normalizarNome(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Termo deve reduzir pontuação e espaços repetidos a um espaço")
+    void normalizarTermo_Exemplos() {
+        assertThat(NormalizadorTexto.normalizarTermo("  Bar  do Zé - Centro! ")).isEqualTo("BAR DO ZE CENTRO");
+        assertThat(NormalizadorTexto.normalizarTermo("Wi-Fi")).isEqualTo("WI FI");
+        assertThat(NormalizadorTexto.normalizarTermo("...")).isEmpty();
+        assertThat(NormalizadorTexto.normalizarTermo(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Texto já normalizado deve voltar como a mesma instância")
+    void jaNormalizado_DeveDevolverMesmaInstancia() {
+        String nome = "BAR DO ZE";
+        String pontuado = "ACAI & CIA.";
+
+        assertThat(NormalizadorTexto.normalizarNome(nome)).isSameAs(nome);
+        assertThat(NormalizadorTexto.normalizarNome(pontuado)).isSameAs(pontuado);
+        assertThat(NormalizadorTexto.normalizarTermo(nome)).isSameAs(nome);
+    }
+
+    @Test
+    @DisplayName("Cada caractere até U+036F, sozinho e entre letras, deve dar o mesmo resultado da versão anterior")
+    void conformidade_CaractereACaractere() {
+        for (char c = 0; c < 0x370; c++) {
+            for (String texto : new String[]{String.valueOf(c), "a" + c + "b", " " + c + "é "}) {
+                assertThat(NormalizadorTexto.normalizarNome(texto)).as("nome U+%04X", (int) c).isEqualTo(nomeAntigo(texto));
+                assertThat(NormalizadorTexto.normalizarTermo(texto)).as("termo U+%04X", (int) c).isEqualTo(termoAntigo(texto));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Textos aleatórios com acentos, pontuação e caracteres fora da tabela devem bater com a versão anterior")
+    void conformidade_TextosAleatorios() {
+        String alfabeto = "abcxyzABCXYZ019 áàâãäéêíóôõöúüçñÁÂÃÉÍÓÚḈ̧̃-_.,;!?&'\"/\t\nßŉǅøØæ€™ĳﬁ日本ᾳ᷀";
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int tamanho = random.nextInt(24);
+            for (int j = 0; j < tamanho; j++) {
+                sb.append(alfabeto.charAt(random.nextInt(alfabeto.length())));
+            }
+            String texto = sb.toString();
+            assertThat(NormalizadorTexto.normalizarNome(texto)).as("nome '%s'", texto).isEqualTo(nomeAntigo(texto));
+            assertThat(NormalizadorTexto.normalizarTermo(texto)).as("termo '%s'", texto).isEqualTo(termoAntigo(texto));
+        }
+    }
+}